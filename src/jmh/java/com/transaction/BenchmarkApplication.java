@@ -0,0 +1,38 @@
+package com.transaction;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+ * Starts the application for benchmarks that drive the services and repositories directly,
+ * or with the web server on a random port for benchmarks that go through HTTP
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... args) {
+        return run(WebApplicationType.NONE, args);
+    }
+
+    public static ConfigurableApplicationContext startServer(String... args) {
+        String[] serverArgs = java.util.Arrays.copyOf(args, args.length + 1);
+        serverArgs[args.length] = "--server.port=0";
+        return run(WebApplicationType.SERVLET, serverArgs);
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType webApplicationType, String... args) {
+        SpringApplication application = new SpringApplication(TransactionApplication.class);
+        application.setWebApplicationType(webApplicationType);
+        application.setBannerMode(Banner.Mode.OFF);
+        application.setDefaultProperties(java.util.Map.of("logging.level.root", "WARN"));
+        return application.run(args);
+    }
+}
@@ -0,0 +1,89 @@
+package com.transaction.modules.account.cache;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.account.repository.AccountRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Account existence checks of validateAccount through the registry and straight from the repository
+ * Half of the checks are for existing accounts and half for unknown user ids
+ * The queries counter divided by the score is the number of database queries per check
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountRegistryBenchmark {
+
+    private static final int USERS = 100;
+
+    private ConfigurableApplicationContext context;
+
+    private AccountRegistry accountRegistry;
+
+    private AccountRepository accountRepository;
+
+    private Statistics statistics;
+
+    private String[] userIds;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Queries {
+        public long queries;
+    }
+
+    @Setup(Level.Trial)
+    public void seedAccounts() {
+        context = BenchmarkApplication.start("--spring.jpa.properties.hibernate.generate_statistics=true");
+        accountRegistry = context.getBean(AccountRegistry.class);
+        accountRepository = context.getBean(AccountRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<Object[]> accounts = new ArrayList<>(USERS);
+        userIds = new String[USERS * 2];
+        for (int i = 0; i < USERS; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+            userIds[i] = "user" + i;
+            userIds[USERS + i] = "unknown" + i;
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean registry(Queries queries) {
+        long before = statistics.getPrepareStatementCount();
+        boolean exists = accountRegistry.exists(nextUserId());
+        queries.queries += statistics.getPrepareStatementCount() - before;
+        return exists;
+    }
+
+    @Benchmark
+    public boolean repository(Queries queries) {
+        long before = statistics.getPrepareStatementCount();
+        boolean exists = accountRepository.existsById(nextUserId());
+        queries.queries += statistics.getPrepareStatementCount() - before;
+        return exists;
+    }
+
+    private String nextUserId() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+}
@@ -0,0 +1,94 @@
+package com.transaction.modules.account.service;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.account.controller.response.BalanceResponse;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.controller.response.LoadResponse;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.service.TransactionEventService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Balance reads alone and while a writer loads the same users as fast as it can
+ * The read score of readWhileWriting next to readOnly shows how much the reads suffer from the writes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AccountBalanceBenchmark {
+
+    @Param({"1000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+
+    private AccountService accountService;
+
+    private TransactionEventService transactionEventService;
+
+    private final AtomicLong messageIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start();
+        accountService = context.getBean(AccountService.class);
+        transactionEventService = context.getBean(TransactionEventService.class);
+
+        List<Object[]> accounts = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(3)
+    public BalanceResponse readOnly() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public BalanceResponse reader() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public LoadResponse writer() {
+        String messageId = "message" + messageIds.incrementAndGet();
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(TransactionType.CREDIT);
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId("user" + ThreadLocalRandom.current().nextInt(users));
+        loadRequest.setMessageId(messageId);
+        loadRequest.setTransactionAmount(amount);
+        return transactionEventService.load(loadRequest, messageId);
+    }
+
+    private BalanceResponse read() {
+        return accountService.findBalance("user" + ThreadLocalRandom.current().nextInt(users));
+    }
+}
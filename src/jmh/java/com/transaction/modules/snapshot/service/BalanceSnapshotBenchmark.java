@@ -0,0 +1,78 @@
+package com.transaction.modules.snapshot.service;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.repository.EventTail;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Rebuild of one user's balance as the user's history grows
+ * The snapshot is 100 events behind the latest event, fullReplay folds the whole history instead
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BalanceSnapshotBenchmark {
+
+    private static final String USER_ID = "user";
+
+    private static final int TAIL = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int historySize;
+
+    private ConfigurableApplicationContext context;
+
+    private BalanceSnapshotService balanceSnapshotService;
+
+    private TransactionEventRepository transactionEventRepository;
+
+    @Setup(Level.Trial)
+    public void seedHistory() {
+        // Without result reuse H2 would answer the repeated aggregate from its cache instead of folding the events
+        context = BenchmarkApplication.start("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        balanceSnapshotService = context.getBean(BalanceSnapshotService.class);
+        transactionEventRepository = context.getBean(TransactionEventRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> events = new ArrayList<>(10000);
+        for (int i = 1; i <= historySize; i++) {
+            events.add(new Object[]{"message" + i, USER_ID, (long) i, "CREDIT", 100L, i * 100L, "$", "PROCESSED", createdAt});
+            if (events.size() == 10000 || i == historySize) {
+                jdbcTemplate.batchUpdate("INSERT INTO TRANSACTION_EVENT (MESSAGE_ID, USER_ID, SEQUENCE, TYPE, AMOUNT, RUNNING_BALANCE, CURRENCY, STATUS, CREATED_AT) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", events);
+                events.clear();
+            }
+        }
+        long snapshotSequence = historySize - TAIL;
+        jdbcTemplate.update("INSERT INTO BALANCE_SNAPSHOT (USER_ID, BALANCE, SEQUENCE, CREATED_AT) VALUES (?, ?, ?, ?)",
+                USER_ID, snapshotSequence * 100L, snapshotSequence, createdAt);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserBalance rebuildFromSnapshot() {
+        return balanceSnapshotService.rebuild(USER_ID);
+    }
+
+    @Benchmark
+    public EventTail fullReplay() {
+        return transactionEventRepository.summarizeTail(USER_ID, 0);
+    }
+}
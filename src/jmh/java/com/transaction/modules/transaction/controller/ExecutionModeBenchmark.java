@@ -0,0 +1,90 @@
+package com.transaction.modules.transaction.controller;
+
+import com.transaction.BenchmarkApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Loads sent over HTTP by many concurrent clients, with request handling on platform threads and on virtual threads
+ * Every request waits for one of the few pooled database connections, the score is the time until all clients have their response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ExecutionModeBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"1024", "4096"})
+    private int clients;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private String baseUrl;
+
+    private long round;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        context = BenchmarkApplication.startServer("--spring.threads.virtual.enabled=" + virtualThreads);
+        List<Object[]> accounts = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+        baseUrl = "http://localhost:" + BenchmarkApplication.port(context) + "/api/v1/transaction/load/";
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        httpClient.close();
+        context.close();
+    }
+
+    /**
+     * Sends one load per client at the same time and waits for all responses.
+     */
+    @Benchmark
+    public int loads() {
+        round++;
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            String messageId = "message" + round + "-" + i;
+            String body = "{\"messageId\":\"" + messageId + "\",\"userId\":\"user" + i
+                    + "\",\"transactionAmount\":{\"amount\":\"1.00\",\"currency\":\"$\",\"debitOrCredit\":\"CREDIT\"}}";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + messageId))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int created = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                created++;
+            }
+        }
+        if (created != clients) {
+            throw new IllegalStateException(created + " of " + clients + " loads succeeded");
+        }
+        return created;
+    }
+}
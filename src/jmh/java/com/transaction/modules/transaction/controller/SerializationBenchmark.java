@@ -0,0 +1,68 @@
+package com.transaction.modules.transaction.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.controller.response.AuthorizationResponse;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.AuthorizationStatus;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Jackson reading of a load request body and writing of an authorization response, with an object mapper built like the application's
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final byte[] LOAD_REQUEST = ("{\"messageId\":\"55210c62-e480-asdf-bc1b-e991ac67FSAC\",\"userId\":\"2226e2f9-ih09-46a8-958f-d659880asdfD\","
+            + "\"transactionAmount\":{\"amount\":\"100.00\",\"currency\":\"USD\",\"debitOrCredit\":\"CREDIT\"}}").getBytes(StandardCharsets.UTF_8);
+
+    private ObjectReader loadRequestReader;
+
+    private ObjectWriter authorizationResponseWriter;
+
+    private AuthorizationResponse authorizationResponse;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        loadRequestReader = objectMapper.readerFor(LoadRequest.class);
+        authorizationResponseWriter = objectMapper.writerFor(AuthorizationResponse.class);
+
+        Amount amount = new Amount();
+        amount.setAmount("100.00");
+        amount.setCurrency("USD");
+        amount.setDebitOrCredit(TransactionType.DEBIT);
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId("2226e2f9-ih09-46a8-958f-d659880asdfD");
+        authorizationRequest.setMessageId("55210c62-e480-asdf-bc1b-e991ac67FSAD");
+        authorizationRequest.setTransactionAmount(amount);
+        TransactionEvent transactionEvent = new TransactionEvent(authorizationRequest, 10000, 90000, 2, TransactionEventStatus.PENDING);
+        authorizationResponse = new AuthorizationResponse(transactionEvent, new Amount(transactionEvent), AuthorizationStatus.APPROVED);
+    }
+
+    @Benchmark
+    public LoadRequest readLoadRequest() throws IOException {
+        return loadRequestReader.readValue(LOAD_REQUEST);
+    }
+
+    @Benchmark
+    public byte[] writeAuthorizationResponse() throws IOException {
+        return authorizationResponseWriter.writeValueAsBytes(authorizationResponse);
+    }
+}
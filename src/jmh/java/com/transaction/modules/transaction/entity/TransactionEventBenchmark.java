@@ -0,0 +1,56 @@
+package com.transaction.modules.transaction.entity;
+
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Construction of the events created for every load and authorization
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionEventBenchmark {
+
+    private LoadRequest loadRequest;
+
+    private AuthorizationRequest authorizationRequest;
+
+    @Setup
+    public void setUp() {
+        loadRequest = new LoadRequest();
+        loadRequest.setUserId("user");
+        loadRequest.setMessageId("load");
+        loadRequest.setTransactionAmount(amount(TransactionType.CREDIT));
+        authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId("user");
+        authorizationRequest.setMessageId("authorization");
+        authorizationRequest.setTransactionAmount(amount(TransactionType.DEBIT));
+    }
+
+    @Benchmark
+    public TransactionEvent loadEvent() {
+        return new TransactionEvent(loadRequest, 100, 10000, 2);
+    }
+
+    @Benchmark
+    public TransactionEvent authorizationEvent() {
+        return new TransactionEvent(authorizationRequest, 100, 9900, 2, TransactionEventStatus.PENDING);
+    }
+
+    private static Amount amount(TransactionType type) {
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(type);
+        return amount;
+    }
+}
@@ -0,0 +1,104 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Time to project a pending backlog with its users hashed onto 1 to 8 partitions, each partition drained on its own thread
+ * The sweeper is slowed down so that only the benchmark projects the backlog
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PartitionedProjectorBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int partitions;
+
+    @Param({"100000"})
+    private int pendingEvents;
+
+    @Param({"1000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionUpdateJob transactionUpdateJob;
+
+    private TransactionEventRepository transactionEventRepository;
+
+    private TransactionRepository transactionRepository;
+
+    private ExecutorService workers;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start("--transaction.projector.partitions=" + partitions,
+                "--transaction.projector.sweeper.min-interval=1h", "--transaction.projector.sweeper.max-interval=1h");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionUpdateJob = context.getBean(TransactionUpdateJob.class);
+        transactionEventRepository = context.getBean(TransactionEventRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        workers = Executors.newFixedThreadPool(partitions);
+
+        List<Object[]> accounts = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+    }
+
+    @Setup(Level.Iteration)
+    public void seedPendingEvents() {
+        transactionEventRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> events = new ArrayList<>(10000);
+        for (int i = 0; i < pendingEvents; i++) {
+            String userId = "user" + (i % users);
+            events.add(new Object[]{"message" + i, userId, TransactionEvent.hashUserId(userId), (long) (i / users + 1), "CREDIT", 100L,
+                    (long) (i / users + 1) * 100, "$", "PENDING", createdAt});
+            if (events.size() == 10000 || i == pendingEvents - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO TRANSACTION_EVENT (MESSAGE_ID, USER_ID, USER_HASH, SEQUENCE, TYPE, AMOUNT, RUNNING_BALANCE, CURRENCY, STATUS, CREATED_AT) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", events);
+                events.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        workers.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public void drainPartitions() {
+        CompletableFuture<?>[] passes = new CompletableFuture<?>[partitions];
+        for (int partition = 0; partition < partitions; partition++) {
+            int projectorPartition = partition;
+            passes[partition] = CompletableFuture.runAsync(() -> transactionUpdateJob.execute(projectorPartition), workers);
+        }
+        CompletableFuture.allOf(passes).join();
+    }
+}
@@ -0,0 +1,118 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.service.TransactionEventService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Projection lag with the events handed off to the projector after their commit and with the projector scanning the event table
+ * Each operation is one round in which every client sends one load of its own user, timed until the projector has projected the whole round,
+ * the reads of the event table by the projector and the sweeper are reported per iteration as an auxiliary counter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ProjectorHandoffBenchmark {
+
+    private static final Set<String> EVENT_TABLE_READS = Set.of("findByStatusInPartition", "findAllById", "countByStatus", "findOldestCreatedAt", "summarizeByPartition");
+
+    @Param({"true", "false"})
+    private boolean handoff;
+
+    @Param({"1", "16", "64"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionEventService transactionEventService;
+
+    private MeterRegistry meterRegistry;
+
+    private Counter projectedEvents;
+
+    private ExecutorService executorService;
+
+    private long round;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EventTableReads {
+
+        public long eventTableReads;
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start("--transaction.projector.handoff.enabled=" + handoff);
+        transactionEventService = context.getBean(TransactionEventService.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+        projectedEvents = meterRegistry.get("transaction.projector.events").counter();
+        List<Object[]> accounts = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+        executorService = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        executorService.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public void loadAndProject(EventTableReads eventTableReads) {
+        round++;
+        double projected = projectedEvents.count() + concurrency;
+        long reads = eventTableReads();
+        CompletableFuture<?>[] clients = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            LoadRequest loadRequest = loadRequest("user" + i, "message" + round + "-" + i);
+            clients[i] = CompletableFuture.runAsync(() -> transactionEventService.load(loadRequest, loadRequest.getMessageId()), executorService);
+        }
+        CompletableFuture.allOf(clients).join();
+        while (projectedEvents.count() < projected) {
+            LockSupport.parkNanos(10_000);
+        }
+        eventTableReads.eventTableReads += eventTableReads() - reads;
+    }
+
+    private long eventTableReads() {
+        return meterRegistry.find("spring.data.repository.invocations").tag("repository", "TransactionEventRepository").timers().stream()
+                .filter(timer -> EVENT_TABLE_READS.contains(timer.getId().getTag("method")))
+                .mapToLong(Timer::count).sum();
+    }
+
+    private static LoadRequest loadRequest(String userId, String messageId) {
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(TransactionType.CREDIT);
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(userId);
+        loadRequest.setMessageId(messageId);
+        loadRequest.setTransactionAmount(amount);
+        return loadRequest;
+    }
+}
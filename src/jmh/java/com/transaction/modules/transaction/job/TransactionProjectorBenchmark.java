@@ -0,0 +1,116 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Time of one projection pass over the pending backlog, events/sec is pendingEvents divided by the score
+ * perEvent replays the previous projector which saved every event with its own round trips
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransactionProjectorBenchmark {
+
+    @Param({"1000000"})
+    private int pendingEvents;
+
+    @Param({"1000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionProjector transactionProjector;
+
+    private TransactionEventRepository transactionEventRepository;
+
+    private TransactionRepository transactionRepository;
+
+    private AccountRepository accountRepository;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // One partition, so the pass projects the whole backlog
+        context = BenchmarkApplication.start("--transaction.projector.partitions=1");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        transactionProjector = context.getBean(TransactionProjector.class);
+        transactionEventRepository = context.getBean(TransactionEventRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        accountRepository = context.getBean(AccountRepository.class);
+
+        List<Object[]> accounts = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+    }
+
+    @Setup(Level.Iteration)
+    public void seedPendingEvents() {
+        transactionEventRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> events = new ArrayList<>(10000);
+        for (int i = 0; i < pendingEvents; i++) {
+            events.add(new Object[]{"message" + i, "user" + (i % users), (long) (i / users + 1), "CREDIT", 100L, (long) (i / users + 1) * 100, "$", "PENDING", createdAt});
+            if (events.size() == 10000 || i == pendingEvents - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO TRANSACTION_EVENT (MESSAGE_ID, USER_ID, SEQUENCE, TYPE, AMOUNT, RUNNING_BALANCE, CURRENCY, STATUS, CREATED_AT) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", events);
+                events.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public void chunked() {
+        int projected;
+        do {
+            projected = transactionProjector.projectNextChunk(0);
+        } while (projected == transactionProjector.getChunkSize());
+    }
+
+    @Benchmark
+    public void perEvent() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<TransactionEvent> pendingTransactionEventList = transactionEventRepository.findByStatus(TransactionEventStatus.PENDING, Pageable.unpaged());
+            pendingTransactionEventList.forEach(transactionEvent -> {
+                transactionRepository.save(new Transaction(transactionEvent));
+                Account account = accountRepository.findByUserId(transactionEvent.getUserId());
+                account.setBalance(transactionEvent.getRunningBalance());
+                accountRepository.save(account);
+                transactionEvent.setStatus(TransactionEventStatus.PROCESSED);
+                transactionEventRepository.save(transactionEvent);
+            });
+        });
+    }
+}
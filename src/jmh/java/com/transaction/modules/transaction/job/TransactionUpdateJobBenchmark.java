@@ -0,0 +1,84 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Time of one full job pass, retry proxy and lock included, over pending backlogs of several sizes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransactionUpdateJobBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int pendingEvents;
+
+    @Param({"100"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionUpdateJob transactionUpdateJob;
+
+    private TransactionEventRepository transactionEventRepository;
+
+    private TransactionRepository transactionRepository;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // One partition, so the pass projects the whole backlog
+        context = BenchmarkApplication.start("--transaction.projector.partitions=1");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionUpdateJob = context.getBean(TransactionUpdateJob.class);
+        transactionEventRepository = context.getBean(TransactionEventRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+
+        List<Object[]> accounts = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+    }
+
+    @Setup(Level.Iteration)
+    public void seedPendingEvents() {
+        transactionEventRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> events = new ArrayList<>(10000);
+        for (int i = 0; i < pendingEvents; i++) {
+            events.add(new Object[]{"message" + i, "user" + (i % users), (long) (i / users + 1), "CREDIT", 100L, (long) (i / users + 1) * 100, "$", "PENDING", createdAt});
+            if (events.size() == 10000 || i == pendingEvents - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO TRANSACTION_EVENT (MESSAGE_ID, USER_ID, SEQUENCE, TYPE, AMOUNT, RUNNING_BALANCE, CURRENCY, STATUS, CREATED_AT) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", events);
+                events.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public void execute() {
+        transactionUpdateJob.execute(0);
+    }
+}
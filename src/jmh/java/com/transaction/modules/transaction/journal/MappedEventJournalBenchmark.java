@@ -0,0 +1,89 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost per event of appending single events and chunks of 500 events to the journal
+ * With force the mapped pages are flushed to disk on every append, without it they are left to the operating system
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedEventJournalBenchmark {
+
+    private static final int CHUNK = 500;
+
+    @Param({"true", "false"})
+    private boolean force;
+
+    private Path directory;
+
+    private MappedEventJournal eventJournal;
+
+    private long sequence;
+
+    private List<TransactionEvent> chunk;
+
+    @Setup(Level.Trial)
+    public void prepareChunk() {
+        chunk = new ArrayList<>(CHUNK);
+        for (int i = 0; i < CHUNK; i++) {
+            chunk.add(event());
+        }
+    }
+
+    // Each iteration starts with an empty journal to keep the disk usage bounded
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        eventJournal = new MappedEventJournal(directory, DataSize.ofMegabytes(64), force, 64);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteJournal() throws IOException {
+        eventJournal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void appendSingle() {
+        eventJournal.append(List.of(event()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public void appendChunk() {
+        eventJournal.append(chunk);
+    }
+
+    private TransactionEvent event() {
+        sequence++;
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setMessageId("message" + sequence);
+        transactionEvent.setUserId("user" + sequence % 100);
+        transactionEvent.setSequence(sequence);
+        transactionEvent.setType(TransactionType.CREDIT);
+        transactionEvent.setAmount(100);
+        transactionEvent.setRunningBalance(sequence * 100);
+        transactionEvent.setCurrency("$");
+        transactionEvent.setStatus(TransactionEventStatus.PENDING);
+        transactionEvent.setCreatedAt(LocalDateTime.now());
+        return transactionEvent;
+    }
+}
@@ -0,0 +1,158 @@
+package com.transaction.modules.transaction.lock;
+
+import com.transaction.modules.account.cache.AccountRegistry;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.cache.BalanceCache;
+import com.transaction.modules.transaction.cache.MessageIdRegistry;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.response.AuthorizationResponse;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.AuthorizationStrategy;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.job.ProjectorHandoff;
+import com.transaction.modules.transaction.job.ProjectorTrigger;
+import com.transaction.modules.transaction.journal.NoopEventJournal;
+import com.transaction.modules.transaction.metrics.TransactionMetrics;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.service.TransactionEventServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Authorization throughput of the service under the user lock for 1, 10 and 10k distinct users, with each authorization strategy
+ * The repositories, journal and projector are stubs, so the score is the service path with its caches and locks and not the database
+ * The stubs are plain proxies without any synchronization of their own, unlike mocks, so they do not serialize the threads themselves
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class UserLockRegistryBenchmark {
+
+    @Param({"1", "10", "10000"})
+    private int users;
+
+    @Param({"EVENT_SOURCED", "CONDITIONAL_UPDATE"})
+    private AuthorizationStrategy strategy;
+
+    private TransactionEventServiceImpl transactionEventService;
+
+    private String[] userIds;
+
+    // Message ids of one benchmark thread, unique across threads and iterations
+    @State(Scope.Thread)
+    public static class MessageIds {
+        private final String prefix = UUID.randomUUID() + "-";
+        private long next;
+
+        String next() {
+            return prefix + next++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Account account = new Account("user");
+        account.setBalance(Long.MAX_VALUE / 2);
+        // A funded latest event, as a user without events starts from 0 and every debit would be declined
+        TransactionEvent latestEvent = new TransactionEvent();
+        latestEvent.setRunningBalance(Long.MAX_VALUE / 2);
+        latestEvent.setSequence(1);
+        TransactionEventRepository transactionEventRepository = stub(TransactionEventRepository.class, Map.of(
+                "findFirstByUserIdOrderBySequenceDesc", latestEvent));
+        AccountRepository accountRepository = stub(AccountRepository.class, Map.of(
+                "findByUserId", account,
+                "existsById", true,
+                "debitIfCovered", 1,
+                "findUserBalance", new UserBalance(Long.MAX_VALUE / 2, 1)));
+
+        MessageIdRegistry messageIdRegistry = new MessageIdRegistry(10_000_000, 100_000);
+        ReflectionTestUtils.setField(messageIdRegistry, "transactionEventRepository", transactionEventRepository);
+        AccountRegistry accountRegistry = new AccountRegistry(100_000, Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(accountRegistry, "accountRepository", accountRepository);
+
+        transactionEventService = new TransactionEventServiceImpl();
+        ReflectionTestUtils.setField(transactionEventService, "transactionEventRepository", transactionEventRepository);
+        ReflectionTestUtils.setField(transactionEventService, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(transactionEventService, "projectorTrigger", new ProjectorTrigger() {
+            @Override
+            public void signal(String userId) {
+            }
+        });
+        // Not initialized, the handoff is disabled and returns right away
+        ReflectionTestUtils.setField(transactionEventService, "projectorHandoff", new ProjectorHandoff());
+        ReflectionTestUtils.setField(transactionEventService, "balanceCache", new BalanceCache(100_000));
+        ReflectionTestUtils.setField(transactionEventService, "userLockRegistry", new UserLockRegistry(1024));
+        ReflectionTestUtils.setField(transactionEventService, "messageIdRegistry", messageIdRegistry);
+        ReflectionTestUtils.setField(transactionEventService, "accountRegistry", accountRegistry);
+        ReflectionTestUtils.setField(transactionEventService, "eventJournal", new NoopEventJournal());
+        ReflectionTestUtils.setField(transactionEventService, "transactionMetrics", new TransactionMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(transactionEventService, "groupCommitEnabled", false);
+        ReflectionTestUtils.setField(transactionEventService, "authorizationStrategy", strategy);
+        ReflectionTestUtils.setField(transactionEventService, "transactionTemplate",
+                new TransactionTemplate(stub(PlatformTransactionManager.class, Map.of())));
+        ReflectionTestUtils.setField(transactionEventService, "taskExecutor", new SyncTaskExecutor());
+
+        userIds = new String[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = "user" + i;
+        }
+    }
+
+    @Benchmark
+    public AuthorizationResponse authorize(MessageIds messageIds) {
+        String messageId = messageIds.next();
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(userIds[ThreadLocalRandom.current().nextInt(users)]);
+        authorizationRequest.setMessageId(messageId);
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("USD");
+        amount.setDebitOrCredit(TransactionType.DEBIT);
+        authorizationRequest.setTransactionAmount(amount);
+        return transactionEventService.authorize(authorizationRequest, messageId);
+    }
+
+    /**
+     * Returns a stub answering the named methods with the given results and every other method with an empty or zero result.
+     */
+    private static <T> T stub(Class<T> type, Map<String, Object> results) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (results.containsKey(method.getName())) {
+                return results.get(method.getName());
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == Optional.class) {
+                return Optional.empty();
+            }
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType == long.class) {
+                return 0L;
+            }
+            return null;
+        }));
+    }
+}
@@ -0,0 +1,73 @@
+package com.transaction.modules.transaction.metrics;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.service.TransactionEventService;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Overhead of the hot path instrumentation next to the cost of the load it measures
+ * The timer publishes percentiles and a histogram to a Prometheus registry as in the application
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionMetricsBenchmark {
+
+    private static final String USER_ID = "2226e2f9-ih09-46a8-958f-d659880asdfD";
+
+    private TransactionMetrics transactionMetrics;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionEventService transactionEventService;
+
+    private long messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionMetrics = new TransactionMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        // One commit per request, the cheapest load path
+        context = BenchmarkApplication.start("--transaction.group-commit.enabled=false");
+        transactionEventService = context.getBean(TransactionEventService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object timedNoop() {
+        return transactionMetrics.recordLoad(() -> USER_ID);
+    }
+
+    @Benchmark
+    public void counter() {
+        transactionMetrics.approved();
+    }
+
+    // The instrumented load, to put the timer and counter overhead in proportion
+    @Benchmark
+    public Object load() {
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(TransactionType.CREDIT);
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(USER_ID);
+        loadRequest.setMessageId("message" + ++messages);
+        loadRequest.setTransactionAmount(amount);
+        return transactionEventService.load(loadRequest, loadRequest.getMessageId());
+    }
+}
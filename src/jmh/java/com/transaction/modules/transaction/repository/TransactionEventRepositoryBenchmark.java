@@ -0,0 +1,61 @@
+package com.transaction.modules.transaction.repository;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Latency of the latest event lookup of one user as the user's history grows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransactionEventRepositoryBenchmark {
+
+    private static final String USER_ID = "user";
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int historySize;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionEventRepository transactionEventRepository;
+
+    @Setup(Level.Trial)
+    public void seedHistory() {
+        context = BenchmarkApplication.start();
+        transactionEventRepository = context.getBean(TransactionEventRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> events = new ArrayList<>(10000);
+        for (int i = 1; i <= historySize; i++) {
+            events.add(new Object[]{"message" + i, USER_ID, (long) i, "CREDIT", 100L, i * 100L, "$", "PROCESSED", createdAt});
+            if (events.size() == 10000 || i == historySize) {
+                jdbcTemplate.batchUpdate("INSERT INTO TRANSACTION_EVENT (MESSAGE_ID, USER_ID, SEQUENCE, TYPE, AMOUNT, RUNNING_BALANCE, CURRENCY, STATUS, CREATED_AT) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", events);
+                events.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionEvent findLatestEvent() {
+        return transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(USER_ID);
+    }
+}
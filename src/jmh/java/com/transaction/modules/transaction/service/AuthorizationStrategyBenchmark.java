@@ -0,0 +1,91 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.enums.AuthorizationStrategy;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Latency of an authorization decided from the user's latest event and by the conditional debit of the account
+ * Each operation is one round in which every client sends one authorization and waits for it,
+ * all clients authorize against one hot account or each against its own account
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AuthorizationStrategyBenchmark {
+
+    @Param({"EVENT_SOURCED", "CONDITIONAL_UPDATE"})
+    private AuthorizationStrategy strategy;
+
+    @Param({"1", "64"})
+    private int accounts;
+
+    @Param({"64"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionEventService transactionEventService;
+
+    private ExecutorService executorService;
+
+    private long round;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start("--transaction.authorization.strategy=" + strategy);
+        transactionEventService = context.getBean(TransactionEventService.class);
+        // Balances that no run can use up, so that every authorization is approved
+        List<Object[]> rows = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            rows.add(new Object[]{"user" + i, Long.MAX_VALUE / 2});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", rows);
+        executorService = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        executorService.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public void authorize() {
+        round++;
+        CompletableFuture<?>[] clients = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            AuthorizationRequest authorizationRequest = authorizationRequest("user" + (i % accounts), "message" + round + "-" + i);
+            clients[i] = CompletableFuture.runAsync(() -> transactionEventService.authorize(authorizationRequest, authorizationRequest.getMessageId()),
+                    executorService);
+        }
+        CompletableFuture.allOf(clients).join();
+    }
+
+    private static AuthorizationRequest authorizationRequest(String userId, String messageId) {
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(TransactionType.DEBIT);
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(userId);
+        authorizationRequest.setMessageId(messageId);
+        authorizationRequest.setTransactionAmount(amount);
+        return authorizationRequest;
+    }
+}
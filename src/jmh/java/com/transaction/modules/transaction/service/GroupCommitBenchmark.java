@@ -0,0 +1,85 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Latency of a load at increasing concurrency, with group commit and with one commit per request
+ * Each operation is one round in which every client sends one load of its own user and waits for it,
+ * so the score is the request latency at that concurrency and the throughput is concurrency / score
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GroupCommitBenchmark {
+
+    @Param({"true", "false"})
+    private boolean groupCommit;
+
+    @Param({"1", "4", "16", "64", "256"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionEventService transactionEventService;
+
+    private ExecutorService executorService;
+
+    private long round;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start("--transaction.group-commit.enabled=" + groupCommit);
+        transactionEventService = context.getBean(TransactionEventService.class);
+        List<Object[]> accounts = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+        executorService = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        executorService.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public void load() {
+        round++;
+        CompletableFuture<?>[] clients = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            LoadRequest loadRequest = loadRequest("user" + i, "message" + round + "-" + i);
+            clients[i] = CompletableFuture.runAsync(() -> transactionEventService.load(loadRequest, loadRequest.getMessageId()), executorService);
+        }
+        CompletableFuture.allOf(clients).join();
+    }
+
+    private static LoadRequest loadRequest(String userId, String messageId) {
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(TransactionType.CREDIT);
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(userId);
+        loadRequest.setMessageId(messageId);
+        loadRequest.setTransactionAmount(amount);
+        return loadRequest;
+    }
+}
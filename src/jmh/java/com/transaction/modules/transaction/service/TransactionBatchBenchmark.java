@@ -0,0 +1,90 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.BatchItemRequest;
+import com.transaction.modules.transaction.controller.request.BatchRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Throughput of 10k loads sent as single calls and as the items of one batch
+ * Items are spread over 100 users, the score is the time per item
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransactionBatchBenchmark {
+
+    private static final int ITEMS = 10000;
+
+    private static final int USERS = 100;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionEventService transactionEventService;
+
+    private long invocation;
+
+    private List<BatchItemRequest> items;
+
+    @Setup(Level.Trial)
+    public void seedAccounts() {
+        context = BenchmarkApplication.start();
+        transactionEventService = context.getBean(TransactionEventService.class);
+        List<Object[]> accounts = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            accounts.add(new Object[]{"user" + i, 0L});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareItems() {
+        invocation++;
+        items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            Amount amount = new Amount();
+            amount.setAmount("1.00");
+            amount.setCurrency("$");
+            amount.setDebitOrCredit(TransactionType.CREDIT);
+            BatchItemRequest item = new BatchItemRequest();
+            item.setUserId("user" + i % USERS);
+            item.setMessageId("message" + invocation + "-" + i);
+            item.setTransactionAmount(amount);
+            items.add(item);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void singleCalls() {
+        for (BatchItemRequest item : items) {
+            LoadRequest loadRequest = item.toLoadRequest();
+            transactionEventService.load(loadRequest, loadRequest.getMessageId());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public Object batch() {
+        BatchRequest batchRequest = new BatchRequest();
+        batchRequest.setItems(items);
+        return transactionEventService.batch(batchRequest);
+    }
+}
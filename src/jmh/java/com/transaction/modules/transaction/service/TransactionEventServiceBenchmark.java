@@ -0,0 +1,101 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.cache.BalanceCache;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Balance lookups and event creation of the service, with the balance served from the cache and loaded from the event table
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionEventServiceBenchmark {
+
+    private static final String USER_ID = "2226e2f9-ih09-46a8-958f-d659880asdfD";
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionEventServiceImpl transactionEventService;
+
+    private BalanceCache balanceCache;
+
+    private LoadRequest loadRequest;
+
+    private AuthorizationRequest authorizationRequest;
+
+    private UserBalance userBalance;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start();
+        transactionEventService = context.getBean(TransactionEventServiceImpl.class);
+        balanceCache = context.getBean(BalanceCache.class);
+
+        loadRequest = new LoadRequest();
+        loadRequest.setUserId(USER_ID);
+        loadRequest.setMessageId("load");
+        loadRequest.setTransactionAmount(amount(TransactionType.CREDIT));
+        authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(USER_ID);
+        authorizationRequest.setMessageId("authorization");
+        authorizationRequest.setTransactionAmount(amount(TransactionType.DEBIT));
+
+        // A user with some history, so the uncached lookup reads the latest of several events
+        for (int i = 0; i < 100; i++) {
+            LoadRequest history = new LoadRequest();
+            history.setUserId(USER_ID);
+            history.setMessageId("history" + i);
+            history.setTransactionAmount(amount(TransactionType.CREDIT));
+            transactionEventService.load(history, history.getMessageId());
+        }
+        userBalance = transactionEventService.findLatestBalance(USER_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public long findCurrentBalanceCached() {
+        return transactionEventService.findCurrentBalance(USER_ID);
+    }
+
+    @Benchmark
+    public long findCurrentBalanceUncached() {
+        balanceCache.invalidate(USER_ID);
+        return transactionEventService.findCurrentBalance(USER_ID);
+    }
+
+    @Benchmark
+    public TransactionEvent addCreditAmount() {
+        return transactionEventService.addCreditAmount(loadRequest);
+    }
+
+    @Benchmark
+    public TransactionEvent deductDebitAmount() {
+        return transactionEventService.deductDebitAmount(authorizationRequest, 100, userBalance, TransactionEventStatus.PENDING);
+    }
+
+    private static Amount amount(TransactionType type) {
+        Amount amount = new Amount();
+        amount.setAmount("1.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(type);
+        return amount;
+    }
+}
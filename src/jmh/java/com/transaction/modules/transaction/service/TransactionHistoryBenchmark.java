@@ -0,0 +1,66 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.BenchmarkApplication;
+import com.transaction.modules.transaction.controller.response.TransactionHistoryResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One page of the history of a user with a million transactions, read at the newest, a middle and the oldest cursor
+ * With keyset pagination the three scores should be the same
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransactionHistoryBenchmark {
+
+    private static final String USER_ID = "user0";
+
+    @Param({"1000000"})
+    private int transactions;
+
+    @Param({"newest", "middle", "oldest"})
+    private String depth;
+
+    @Param({"50"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionHistoryService transactionHistoryService;
+
+    private Long cursor;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start();
+        transactionHistoryService = context.getBean(TransactionHistoryService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, 0)", USER_ID);
+        jdbcTemplate.update("INSERT INTO TRANSACTION (ID, USER_ID, TYPE, AMOUNT, CURRENCY, CREATED_AT) "
+                + "SELECT X, '" + USER_ID + "', 'CREDIT', 100, '$', CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + transactions + ")");
+
+        cursor = switch (depth) {
+            case "newest" -> null;
+            case "middle" -> (long) transactions / 2;
+            default -> (long) pageSize + 1;
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionHistoryResponse page() {
+        return transactionHistoryService.findHistory(USER_ID, cursor, pageSize, null, null, null);
+    }
+}
@@ -0,0 +1,70 @@
+package com.transaction.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Fixed point minor units compared with the previous Double path
+ * parseDouble and accumulateDouble replay how amounts were parsed and balances were summed before
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"100", "1234.56"})
+    private String amount;
+
+    private long units;
+
+    private double value;
+
+    @Setup
+    public void setUp() {
+        units = Money.parse(amount);
+        value = Double.parseDouble(amount);
+    }
+
+    @Benchmark
+    public long parseMinorUnits() {
+        return Money.parse(amount);
+    }
+
+    @Benchmark
+    public double parseDouble() {
+        // The amount was parsed twice in authorize and once more in the event
+        return Double.parseDouble(amount) + Double.parseDouble(amount) + Double.valueOf(amount);
+    }
+
+    @Benchmark
+    public long accumulateMinorUnits() {
+        long balance = 0;
+        for (int i = 0; i < 1000; i++) {
+            balance += units;
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public Double accumulateDouble() {
+        Double balance = 0.0;
+        for (int i = 0; i < 1000; i++) {
+            balance += value;
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public String formatMinorUnits() {
+        return Money.format(units);
+    }
+
+    @Benchmark
+    public String formatDouble() {
+        return Double.valueOf(value).toString();
+    }
+}
@@ -3,11 +3,11 @@ package com.transaction;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.retry.annotation.EnableRetry;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableRetry
-@EnableAsync
+@EnableScheduling
 public class TransactionApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,97 @@
+package com.transaction.modules.account.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.transaction.modules.account.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cache of the user ids that have an account, to answer account existence checks without querying the database
+ * Unknown user ids are cached for a short time only, so an account created outside the application is found once they expire
+ * Accounts saved through the application are registered as soon as their transaction commits
+ */
+@Component
+public class AccountRegistry {
+
+    private final Cache<String, Boolean> existingAccounts;
+
+    private final Cache<String, Boolean> unknownAccounts;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    public AccountRegistry(@Value("${account.registry.maximum-size:100000}") long maximumSize,
+                           @Value("${account.registry.unknown-ttl:5s}") Duration unknownTtl) {
+        this.existingAccounts = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.unknownAccounts = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(unknownTtl.toNanos(), TimeUnit.NANOSECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Checks whether the user has an account, only querying the database for user ids not seen recently.
+     */
+    public boolean exists(String userId) {
+        if (existingAccounts.getIfPresent(userId) != null) {
+            return true;
+        }
+        if (unknownAccounts.getIfPresent(userId) != null) {
+            return false;
+        }
+        boolean exists = accountRepository.existsById(userId);
+        if (exists) {
+            existingAccounts.put(userId, Boolean.TRUE);
+        } else {
+            unknownAccounts.put(userId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    /**
+     * Registers a created account, replacing any cached unknown entry of the user.
+     */
+    public void register(String userId) {
+        unknownAccounts.invalidate(userId);
+        existingAccounts.put(userId, Boolean.TRUE);
+    }
+
+    /**
+     * Removes the user from the registry so that the next check reads the database.
+     */
+    public void invalidate(String userId) {
+        existingAccounts.invalidate(userId);
+        unknownAccounts.invalidate(userId);
+    }
+
+    /**
+     * Ratio of the existence checks answered without querying the database.
+     */
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+
+    public long getHitCount() {
+        return existingAccounts.stats().hitCount() + unknownAccounts.stats().hitCount();
+    }
+
+    // A check missing both caches queries the database
+    public long getMissCount() {
+        return unknownAccounts.stats().missCount();
+    }
+
+    public long size() {
+        return existingAccounts.size() + unknownAccounts.size();
+    }
+}
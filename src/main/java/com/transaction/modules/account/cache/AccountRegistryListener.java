@@ -0,0 +1,49 @@
+package com.transaction.modules.account.cache;
+
+import com.transaction.modules.account.entity.Account;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Keeps the account registry in line with the accounts saved and removed through JPA
+ * Changes are applied after the transaction commits so that a rolled back account is never registered
+ */
+@Component
+public class AccountRegistryListener {
+
+    // Lazy as Hibernate creates the listener while the repositories the registry depends on are still being created
+    @Lazy
+    @Autowired
+    private AccountRegistry accountRegistry;
+
+    @PostPersist
+    public void accountCreated(Account account) {
+        afterCommit(() -> accountRegistry.register(account.getUserId()));
+    }
+
+    @PostRemove
+    public void accountRemoved(Account account) {
+        afterCommit(() -> accountRegistry.invalidate(account.getUserId()));
+    }
+
+    /**
+     * Runs the action after the current transaction commits, or immediately if there is no transaction.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
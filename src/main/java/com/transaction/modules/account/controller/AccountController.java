@@ -0,0 +1,55 @@
+package com.transaction.modules.account.controller;
+
+import com.transaction.modules.account.controller.response.BalanceResponse;
+import com.transaction.modules.account.service.AccountService;
+import com.transaction.util.response.ErrorResponseModel;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/v1/account")
+public class AccountController {
+
+    @Autowired
+    private AccountService accountService;
+
+    /**
+     * Returns the balance with the sequence of the user's latest event as the ETag.
+     * A request whose If-None-Match matches the ETag is answered with 304 and no body, revalidated against the latest sequence before the balance is read.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = BalanceResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(implementation = ErrorResponseModel.class))),
+    })
+    @GetMapping("/{userId}/balance")
+    public ResponseEntity<?> balance(@PathVariable String userId, WebRequest webRequest) {
+        try {
+            Long sequence = accountService.findSequence(userId);
+            if (sequence != null && webRequest.checkNotModified(Long.toString(sequence))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(Long.toString(sequence))
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            BalanceResponse balanceResponse = accountService.findBalance(userId);
+            return ResponseEntity.ok()
+                    .eTag(Long.toString(balanceResponse.getSequence()))
+                    .cacheControl(CacheControl.noCache())
+                    .body(balanceResponse);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponseModel(400, e.getMessage()));
+        }
+    }
+}
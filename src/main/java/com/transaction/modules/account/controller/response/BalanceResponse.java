@@ -0,0 +1,25 @@
+package com.transaction.modules.account.controller.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BalanceResponse {
+    private String userId;
+
+    // Balance with two decimal places, e.g. "100.00"
+    private String balance;
+
+    private String currency;
+
+    // Sequence of the latest event reflected in the balance, also sent as the ETag
+    private long sequence;
+
+    public BalanceResponse(String userId, String balance, String currency, long sequence) {
+        setUserId(userId);
+        setBalance(balance);
+        setCurrency(currency);
+        setSequence(sequence);
+    }
+}
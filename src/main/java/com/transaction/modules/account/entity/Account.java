@@ -1,18 +1,23 @@
 package com.transaction.modules.account.entity;
 
+import com.transaction.modules.account.cache.AccountRegistryListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @Entity
+@EntityListeners(AccountRegistryListener.class)
 @Table
 public class Account {
     @Id
@@ -20,6 +25,26 @@ public class Account {
     @Setter(AccessLevel.NONE)
     private String userId;
 
+    // Balance in minor units
     @Column(name = "BALANCE")
-    private Double balance;
+    private long balance;
+
+    // Sequence of the latest event applied to the balance, by the projector or by a conditional update, 0 before the first event
+    @ColumnDefault("0")
+    @Column(name = "LAST_SEQUENCE")
+    private long lastSequence;
+
+    // Currency of the user's events, null before the first event
+    @Column(name = "CURRENCY")
+    private String currency;
+
+    // Incremented by every update, so that a read-modify-write of the account fails instead of overwriting a concurrent update
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "VERSION")
+    private Long version;
+
+    public Account(String userId) {
+        this.userId = userId;
+    }
 }
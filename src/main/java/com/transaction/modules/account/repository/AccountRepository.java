@@ -2,10 +2,33 @@ package com.transaction.modules.account.repository;
 
 
 import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.transaction.cache.UserBalance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, String> {
     Account findByUserId(String userId);
+
+    // Debits the account only while its balance covers the amount, no row is updated if it does not
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.lastSequence = a.lastSequence + 1, a.currency = :currency, "
+            + "a.version = a.version + 1 WHERE a.userId = :userId AND a.balance >= :amount")
+    int debitIfCovered(@Param("userId") String userId, @Param("amount") long amount, @Param("currency") String currency);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.lastSequence = a.lastSequence + 1, a.currency = :currency, "
+            + "a.version = a.version + 1 WHERE a.userId = :userId")
+    int credit(@Param("userId") String userId, @Param("amount") long amount, @Param("currency") String currency);
+
+    // Takes the next sequence for a declined event, which leaves the balance unchanged
+    @Modifying
+    @Query("UPDATE Account a SET a.lastSequence = a.lastSequence + 1, a.version = a.version + 1 WHERE a.userId = :userId")
+    int advanceSequence(@Param("userId") String userId);
+
+    @Query("SELECT new com.transaction.modules.transaction.cache.UserBalance(a.balance, a.lastSequence) FROM Account a WHERE a.userId = :userId")
+    UserBalance findUserBalance(@Param("userId") String userId);
 }
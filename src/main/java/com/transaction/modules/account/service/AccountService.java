@@ -0,0 +1,9 @@
+package com.transaction.modules.account.service;
+
+import com.transaction.modules.account.controller.response.BalanceResponse;
+
+public interface AccountService {
+    BalanceResponse findBalance(String userId);
+
+    Long findSequence(String userId);
+}
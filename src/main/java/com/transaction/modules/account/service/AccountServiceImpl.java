@@ -0,0 +1,68 @@
+package com.transaction.modules.account.service;
+
+import com.transaction.modules.account.controller.response.BalanceResponse;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.cache.BalanceCache;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class AccountServiceImpl implements AccountService {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    /**
+     * Finds the balance of the user at its latest event.
+     * The projected account is read by its primary key, and the latest balance is taken instead when it reflects later events that are not projected yet.
+     * The latest balance is the cached one, or the one of the user's latest event once the user has been evicted, so the sequence never goes back to the projection.
+     * The cache is only read here and never filled, as the write path relies on it holding the latest event.
+     */
+    @Override
+    public BalanceResponse findBalance(String userId) {
+        Account account = accountRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found for user id " + userId));
+        long balance = account.getBalance();
+        long sequence = account.getLastSequence();
+
+        UserBalance latestBalance = findLatestBalance(userId);
+        if (latestBalance != null && latestBalance.getSequence() > sequence) {
+            balance = latestBalance.getBalance();
+            sequence = latestBalance.getSequence();
+        }
+        return new BalanceResponse(userId, Money.format(balance), account.getCurrency(), sequence);
+    }
+
+    /**
+     * Finds the sequence of the user's latest event, to revalidate a balance without reading it.
+     * The cached sequence is taken when the user is cached, otherwise the latest sequence of the event table, null if the user has no events.
+     */
+    @Override
+    public Long findSequence(String userId) {
+        UserBalance cachedBalance = balanceCache.get(userId);
+        if (cachedBalance != null) {
+            return cachedBalance.getSequence();
+        }
+        return transactionEventRepository.findLatestSequence(userId);
+    }
+
+    private UserBalance findLatestBalance(String userId) {
+        UserBalance cachedBalance = balanceCache.get(userId);
+        if (cachedBalance != null) {
+            return cachedBalance;
+        }
+        TransactionEvent latestEvent = transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId);
+        return latestEvent != null ? new UserBalance(latestEvent.getRunningBalance(), latestEvent.getSequence()) : null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.transaction.modules.snapshot.controller;
+
+import com.transaction.modules.snapshot.controller.response.AccountRebuildResponse;
+import com.transaction.modules.snapshot.service.BalanceSnapshotService;
+import com.transaction.util.response.ErrorResponseModel;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+public class SnapshotAdminController {
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = AccountRebuildResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = ErrorResponseModel.class))),
+    })
+    @PutMapping("/account/rebuild")
+    public ResponseEntity<?> rebuildAccounts() {
+        try {
+            long rebuiltAccounts = balanceSnapshotService.rebuildAccounts();
+            return ResponseEntity.ok(new AccountRebuildResponse(rebuiltAccounts));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorResponseModel(500, e.getMessage()));
+        }
+    }
+}
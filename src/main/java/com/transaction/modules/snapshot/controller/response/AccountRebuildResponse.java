@@ -0,0 +1,15 @@
+package com.transaction.modules.snapshot.controller.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class AccountRebuildResponse {
+
+    private long rebuiltAccounts;
+
+    public AccountRebuildResponse(long rebuiltAccounts) {
+        setRebuiltAccounts(rebuiltAccounts);
+    }
+}
@@ -0,0 +1,42 @@
+package com.transaction.modules.snapshot.entity;
+
+import com.transaction.modules.transaction.cache.UserBalance;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/*
+ * Latest snapshot of a user's balance, rebuilding the user's state only replays the events after its sequence
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table
+public class BalanceSnapshot {
+    @Id
+    private String userId;
+
+    // Balance in minor units after applying the user's events up to the sequence
+    private long balance;
+
+    // Sequence of the last event applied to the balance
+    @Column(nullable = false)
+    private long sequence;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public BalanceSnapshot(String userId, UserBalance userBalance) {
+        setUserId(userId);
+        setBalance(userBalance.getBalance());
+        setSequence(userBalance.getSequence());
+        setCreatedAt(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,67 @@
+package com.transaction.modules.snapshot.job;
+
+import com.transaction.modules.snapshot.service.BalanceSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Takes balance snapshots of the users whose events were projected
+ * A user is snapshotted once the events since the last snapshot reach the configured count, and at the latest after the configured interval
+ */
+@Component
+public class BalanceSnapshotJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceSnapshotJob.class);
+
+    private final Map<String, Long> eventsSinceSnapshot = new ConcurrentHashMap<>();
+
+    private final Set<String> dueUsers = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Value("${transaction.snapshot.every-events:1000}")
+    private long everyEvents;
+
+    /**
+     * Counts the projected events of the user and marks the user as due once the count is reached.
+     */
+    public void recordEvents(String userId, long events) {
+        if (eventsSinceSnapshot.merge(userId, events, Long::sum) >= everyEvents) {
+            dueUsers.add(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.snapshot.check-interval:PT1S}")
+    public void snapshotDueUsers() {
+        for (String userId : new ArrayList<>(dueUsers)) {
+            snapshot(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.snapshot.interval:PT5M}")
+    public void snapshotAllUsers() {
+        for (String userId : new ArrayList<>(eventsSinceSnapshot.keySet())) {
+            snapshot(userId);
+        }
+    }
+
+    private void snapshot(String userId) {
+        dueUsers.remove(userId);
+        eventsSinceSnapshot.remove(userId);
+        try {
+            balanceSnapshotService.snapshot(userId);
+        } catch (RuntimeException e) {
+            logger.error("Balance snapshot failed for user id {}", userId, e);
+        }
+    }
+}
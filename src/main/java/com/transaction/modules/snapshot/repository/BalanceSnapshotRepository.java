@@ -0,0 +1,9 @@
+package com.transaction.modules.snapshot.repository;
+
+import com.transaction.modules.snapshot.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, String> {
+}
@@ -0,0 +1,14 @@
+package com.transaction.modules.snapshot.service;
+
+import com.transaction.modules.snapshot.entity.BalanceSnapshot;
+import com.transaction.modules.transaction.cache.UserBalance;
+
+public interface BalanceSnapshotService {
+
+    UserBalance rebuild(String userId);
+
+    BalanceSnapshot snapshot(String userId);
+
+    long rebuildAccounts();
+
+}
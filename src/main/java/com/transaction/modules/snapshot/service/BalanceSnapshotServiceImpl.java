@@ -0,0 +1,133 @@
+package com.transaction.modules.snapshot.service;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.snapshot.entity.BalanceSnapshot;
+import com.transaction.modules.snapshot.repository.BalanceSnapshotRepository;
+import com.transaction.modules.transaction.archive.EventArchive;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.EventTail;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class BalanceSnapshotServiceImpl implements BalanceSnapshotService {
+
+    private static final int ACCOUNT_PAGE_SIZE = 500;
+
+    private static final int MAX_PAGE_ATTEMPTS = 3;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EventArchive eventArchive;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Rebuilds the balance of the user from the latest snapshot and the events after it.
+     * Users without a snapshot are rebuilt from their first event, archived events are folded in before the ones in the table.
+     */
+    @Override
+    public UserBalance rebuild(String userId) {
+        BalanceSnapshot balanceSnapshot = balanceSnapshotRepository.findById(userId).orElse(null);
+        long balance;
+        long sequence;
+        if (balanceSnapshot != null) {
+            balance = balanceSnapshot.getBalance();
+            sequence = balanceSnapshot.getSequence();
+        } else {
+            TransactionEvent firstEvent = eventArchive.findFirstEvent(userId);
+            if (firstEvent == null) {
+                firstEvent = transactionEventRepository.findFirstByUserIdOrderBySequenceAsc(userId);
+            }
+            if (firstEvent == null) {
+                Account account = accountRepository.findByUserId(userId);
+                return new UserBalance(account != null ? account.getBalance() : 0, 0);
+            }
+            // The balance the user had before the first event
+            balance = firstEvent.getRunningBalance() - balanceChange(firstEvent);
+            sequence = firstEvent.getSequence() - 1;
+        }
+        // The table is read first, an event archived in between is then still found in the archive
+        EventTail eventTail = transactionEventRepository.summarizeTail(userId, sequence);
+        EventTail archivedTail = eventArchive.summarizeTail(userId, sequence, eventTail.getEvents() > 0 ? eventTail.getFirstSequence() : Long.MAX_VALUE);
+        long lastSequence = eventTail.getEvents() > 0 ? eventTail.getLastSequence() : archivedTail.getLastSequence();
+        return new UserBalance(balance + archivedTail.getBalanceChange() + eventTail.getBalanceChange(), lastSequence);
+    }
+
+    /**
+     * Records the current balance of the user as the user's latest snapshot.
+     */
+    @Override
+    public BalanceSnapshot snapshot(String userId) {
+        return balanceSnapshotRepository.save(new BalanceSnapshot(userId, rebuild(userId)));
+    }
+
+    /**
+     * Rebuilds the balance of every account from its snapshot and tail and returns the number of accounts rebuilt.
+     * Accounts are rebuilt a page at a time, each page in its own transaction.
+     */
+    @Override
+    public long rebuildAccounts() {
+        long rebuiltAccounts = 0;
+        Pageable pageable = PageRequest.of(0, ACCOUNT_PAGE_SIZE, Sort.by("userId"));
+        while (true) {
+            Page<Account> accounts = rebuildPage(pageable);
+            rebuiltAccounts += accounts.getNumberOfElements();
+            if (!accounts.hasNext()) {
+                return rebuiltAccounts;
+            }
+            pageable = accounts.nextPageable();
+        }
+    }
+
+    /**
+     * Rebuilds a page of accounts in one transaction, again if an account of the page was updated while it was rebuilt.
+     */
+    private Page<Account> rebuildPage(Pageable pageable) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Page<Account> page = accountRepository.findAll(pageable);
+                    page.forEach(account -> {
+                        UserBalance userBalance = rebuild(account.getUserId());
+                        account.setBalance(userBalance.getBalance());
+                        account.setLastSequence(userBalance.getSequence());
+                    });
+                    accountRepository.saveAll(page);
+                    return page;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_PAGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long balanceChange(TransactionEvent transactionEvent) {
+        if (transactionEvent.getStatus() == TransactionEventStatus.FAILED) {
+            return 0;
+        }
+        return transactionEvent.getType() == TransactionType.CREDIT ? transactionEvent.getAmount() : -transactionEvent.getAmount();
+    }
+}
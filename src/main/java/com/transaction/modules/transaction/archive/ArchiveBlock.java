@@ -0,0 +1,249 @@
+package com.transaction.modules.transaction.archive;
+
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/*
+ * Events and transactions of one user archived by one retention pass, or merged from several blocks of the user
+ * Stored as [int length][int CRC32C][header][deflated payload], the length and the checksum covering the header and the payload
+ * The header is not compressed and is kept in the index, so a block is only read and inflated when its ranges match a read
+ */
+@Getter
+final class ArchiveBlock {
+
+    static final int PREFIX_SIZE = 8;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private static final TransactionEventStatus[] STATUSES = TransactionEventStatus.values();
+
+    private final int segmentNumber;
+
+    private final long position;
+
+    // Size of the block, prefix included
+    private final int length;
+
+    private final int eventCount;
+
+    private final long firstSequence;
+
+    private final long lastSequence;
+
+    private final int transactionCount;
+
+    private final long minTransactionId;
+
+    private final long maxTransactionId;
+
+    private ArchiveBlock(int segmentNumber, long position, int length, DataInputStream header) throws IOException {
+        this.segmentNumber = segmentNumber;
+        this.position = position;
+        this.length = length;
+        this.eventCount = header.readInt();
+        this.firstSequence = header.readLong();
+        this.lastSequence = header.readLong();
+        this.transactionCount = header.readInt();
+        this.minTransactionId = header.readLong();
+        this.maxTransactionId = header.readLong();
+    }
+
+    int getRecordCount() {
+        return eventCount + transactionCount;
+    }
+
+    /**
+     * Returns true if the ranges of this block contain the ranges of the other block.
+     * A user's events and transactions are archived oldest first, so a block merged from adjacent blocks holds everything within its ranges
+     * and makes every block it covers redundant.
+     */
+    boolean covers(ArchiveBlock other) {
+        boolean eventsCovered = other.eventCount == 0
+                || eventCount > 0 && firstSequence <= other.firstSequence && other.lastSequence <= lastSequence;
+        boolean transactionsCovered = other.transactionCount == 0
+                || transactionCount > 0 && minTransactionId <= other.minTransactionId && other.maxTransactionId <= maxTransactionId;
+        return eventsCovered && transactionsCovered;
+    }
+
+    /**
+     * Encodes the events, in sequence order, and the transactions, in id order, of the user into a block.
+     */
+    static byte[] encode(String userId, List<TransactionEvent> transactionEvents, List<Transaction> transactions) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(bytes);
+            header.writeLong(0);
+            header.writeUTF(userId);
+            header.writeInt(transactionEvents.size());
+            header.writeLong(transactionEvents.isEmpty() ? 0 : transactionEvents.get(0).getSequence());
+            header.writeLong(transactionEvents.isEmpty() ? 0 : transactionEvents.get(transactionEvents.size() - 1).getSequence());
+            header.writeInt(transactions.size());
+            header.writeLong(transactions.isEmpty() ? 0 : transactions.get(0).getId());
+            header.writeLong(transactions.isEmpty() ? 0 : transactions.get(transactions.size() - 1).getId());
+
+            try (DataOutputStream payload = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                for (TransactionEvent transactionEvent : transactionEvents) {
+                    payload.writeUTF(transactionEvent.getMessageId());
+                    payload.writeLong(transactionEvent.getSequence());
+                    payload.writeByte(transactionEvent.getType().ordinal());
+                    payload.writeLong(transactionEvent.getAmount());
+                    payload.writeLong(transactionEvent.getRunningBalance());
+                    payload.writeUTF(transactionEvent.getCurrency());
+                    payload.writeByte(transactionEvent.getStatus().ordinal());
+                    writeDateTime(payload, transactionEvent.getCreatedAt());
+                }
+                for (Transaction transaction : transactions) {
+                    payload.writeLong(transaction.getId());
+                    payload.writeLong(transaction.getSequence());
+                    payload.writeByte(transaction.getType().ordinal());
+                    payload.writeLong(transaction.getAmount());
+                    payload.writeUTF(transaction.getCurrency());
+                    writeDateTime(payload, transaction.getCreatedAt());
+                }
+            }
+
+            byte[] block = bytes.toByteArray();
+            ByteBuffer.wrap(block)
+                    .putInt(0, block.length - PREFIX_SIZE)
+                    .putInt(Integer.BYTES, crc(block, PREFIX_SIZE, block.length - PREFIX_SIZE));
+            return block;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the size of the block starting with the prefix, or -1 if the prefix cannot start a block of the remaining size.
+     */
+    static int length(ByteBuffer prefix, long remaining) {
+        int length = prefix.getInt(0);
+        return length <= 0 || length > remaining - PREFIX_SIZE ? -1 : PREFIX_SIZE + length;
+    }
+
+    /**
+     * Returns true if the checksum of the block matches its content.
+     */
+    static boolean isValid(byte[] block) {
+        return ByteBuffer.wrap(block).getInt(Integer.BYTES) == crc(block, PREFIX_SIZE, block.length - PREFIX_SIZE);
+    }
+
+    static String readUserId(byte[] block) {
+        try {
+            return header(block).readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the header of a validated block read at the position of the segment.
+     */
+    static ArchiveBlock read(int segmentNumber, long position, byte[] block) {
+        try {
+            DataInputStream header = header(block);
+            header.readUTF();
+            return new ArchiveBlock(segmentNumber, position, block.length, header);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inflates the events of the block, in sequence order.
+     */
+    static List<TransactionEvent> readEvents(byte[] block) {
+        try (DataInputStream payload = payload(block)) {
+            ArchiveBlock archiveBlock = read(0, 0, block);
+            String userId = readUserId(block);
+            List<TransactionEvent> transactionEvents = new ArrayList<>(archiveBlock.getEventCount());
+            for (int i = 0; i < archiveBlock.getEventCount(); i++) {
+                TransactionEvent transactionEvent = new TransactionEvent();
+                transactionEvent.setUserId(userId);
+                transactionEvent.setMessageId(payload.readUTF());
+                transactionEvent.setSequence(payload.readLong());
+                transactionEvent.setType(TYPES[payload.readByte()]);
+                transactionEvent.setAmount(payload.readLong());
+                transactionEvent.setRunningBalance(payload.readLong());
+                transactionEvent.setCurrency(payload.readUTF());
+                transactionEvent.setStatus(STATUSES[payload.readByte()]);
+                transactionEvent.setCreatedAt(readDateTime(payload));
+                transactionEvents.add(transactionEvent);
+            }
+            return transactionEvents;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inflates the transactions of the block, in id order.
+     */
+    static List<Transaction> readTransactions(byte[] block) {
+        try (DataInputStream payload = payload(block)) {
+            ArchiveBlock archiveBlock = read(0, 0, block);
+            String userId = readUserId(block);
+            for (int i = 0; i < archiveBlock.getEventCount(); i++) {
+                payload.readUTF();
+                payload.skipNBytes(Long.BYTES + 1 + 2 * Long.BYTES);
+                payload.readUTF();
+                payload.skipNBytes(1 + Long.BYTES + Integer.BYTES);
+            }
+            List<Transaction> transactions = new ArrayList<>(archiveBlock.getTransactionCount());
+            for (int i = 0; i < archiveBlock.getTransactionCount(); i++) {
+                long id = payload.readLong();
+                long sequence = payload.readLong();
+                TransactionType type = TYPES[payload.readByte()];
+                long amount = payload.readLong();
+                String currency = payload.readUTF();
+                transactions.add(new Transaction(id, userId, sequence, type, amount, currency, readDateTime(payload)));
+            }
+            return transactions;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DataInputStream header(byte[] block) {
+        return new DataInputStream(new ByteArrayInputStream(block, PREFIX_SIZE, block.length - PREFIX_SIZE));
+    }
+
+    private static DataInputStream payload(byte[] block) throws IOException {
+        DataInputStream header = header(block);
+        int headerSize = 2 + header.readUnsignedShort() + 2 * Integer.BYTES + 4 * Long.BYTES;
+        int offset = PREFIX_SIZE + headerSize;
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(block, offset, block.length - offset)));
+    }
+
+    private static void writeDateTime(DataOutputStream output, LocalDateTime dateTime) throws IOException {
+        output.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        output.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream input) throws IOException {
+        return LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(bytes, offset, length);
+        return (int) crc32c.getValue();
+    }
+}
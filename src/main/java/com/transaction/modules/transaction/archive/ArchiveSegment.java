@@ -0,0 +1,71 @@
+package com.transaction.modules.transaction.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Append-only archive file, blocks are only ever added at the end and read with positional reads
+ */
+final class ArchiveSegment implements AutoCloseable {
+
+    private final int number;
+
+    private final FileChannel fileChannel;
+
+    private volatile long size;
+
+    ArchiveSegment(Path path, int number) throws IOException {
+        this.number = number;
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = fileChannel.size();
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Writes the bytes at the end of the segment and forces them to disk, returns the position they were written at.
+     */
+    long append(ByteBuffer bytes) throws IOException {
+        long position = size;
+        long offset = position;
+        while (bytes.hasRemaining()) {
+            offset += fileChannel.write(bytes, offset);
+        }
+        fileChannel.force(false);
+        size = offset;
+        return position;
+    }
+
+    byte[] read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Archive segment " + number + " ends inside the block at position " + position);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Cuts the segment at the position, dropping a torn block left by a crash during an append.
+     */
+    void truncate(long position) throws IOException {
+        fileChannel.truncate(position);
+        fileChannel.force(true);
+        size = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,30 @@
+package com.transaction.modules.transaction.archive;
+
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.EventTail;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Cold storage of the events and transactions moved out of the tables by the retention job
+ * Rows may be archived twice if deleting them from the table failed, reads return every event sequence and transaction id once
+ */
+public interface EventArchive {
+
+    void append(List<TransactionEvent> transactionEvents, List<Transaction> transactions);
+
+    List<Transaction> readTransactions(String userId, long floor, long cursor, Set<TransactionType> types, LocalDateTime from, LocalDateTime to, int limit);
+
+    EventTail summarizeTail(String userId, long afterSequence, long beforeSequence);
+
+    TransactionEvent findFirstEvent(String userId);
+
+    long lastSequence(String userId);
+
+    long lastTransactionSequence(String userId);
+
+}
@@ -0,0 +1,50 @@
+package com.transaction.modules.transaction.archive;
+
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.EventTail;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Archive used when retention is disabled, every row stays in the tables
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.retention.enabled", havingValue = "false", matchIfMissing = true)
+public class NoopEventArchive implements EventArchive {
+
+    @Override
+    public void append(List<TransactionEvent> transactionEvents, List<Transaction> transactions) {
+        throw new UnsupportedOperationException("Retention is disabled.");
+    }
+
+    @Override
+    public List<Transaction> readTransactions(String userId, long floor, long cursor, Set<TransactionType> types, LocalDateTime from, LocalDateTime to, int limit) {
+        return List.of();
+    }
+
+    @Override
+    public EventTail summarizeTail(String userId, long afterSequence, long beforeSequence) {
+        return new EventTail(0L, 0L, 0L, afterSequence);
+    }
+
+    @Override
+    public TransactionEvent findFirstEvent(String userId) {
+        return null;
+    }
+
+    @Override
+    public long lastSequence(String userId) {
+        return 0;
+    }
+
+    @Override
+    public long lastTransactionSequence(String userId) {
+        return 0;
+    }
+}
@@ -0,0 +1,347 @@
+package com.transaction.modules.transaction.archive;
+
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.EventTail;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Archive written to append-only segment files, every pass appends one compressed block per user
+ * The index keeps the header of every block per user in memory, the events and transactions themselves are only on disk
+ * A user's newest block is merged with the one before it while it holds as many records, like the carries of a binary counter,
+ * so a user has a logarithmic number of blocks however many passes archived it. Merged blocks stay on disk and are skipped by the index
+ * On startup the segments are scanned and a torn block at the end of the last segment is cut off
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.retention.enabled", havingValue = "true")
+public class SegmentEventArchive implements EventArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentEventArchive.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("archive-(\\d+)\\.seg");
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final Map<Integer, ArchiveSegment> segments = new ConcurrentHashMap<>();
+
+    // Blocks of every user in the order they were appended, without the blocks merged into a later one
+    // Lists are replaced and never changed so reads need no lock
+    private final Map<String, List<ArchiveBlock>> userIndex = new ConcurrentHashMap<>();
+
+    private final Lock lock = new ReentrantLock();
+
+    private ArchiveSegment currentSegment;
+
+    public SegmentEventArchive(@Value("${transaction.retention.directory:archive}") Path directory,
+                               @Value("${transaction.retention.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize.toBytes();
+        Files.createDirectories(directory);
+        open();
+    }
+
+    /**
+     * Appends a block per user with the user's events and transactions to the current segment and indexes the blocks once they are on disk,
+     * then merges the newest blocks of each of the users.
+     * A new segment is started once the current one has reached the segment size.
+     */
+    @Override
+    public void append(List<TransactionEvent> transactionEvents, List<Transaction> transactions) {
+        Map<String, List<TransactionEvent>> userEvents = transactionEvents.stream()
+                .sorted(Comparator.comparingLong(TransactionEvent::getSequence))
+                .collect(Collectors.groupingBy(TransactionEvent::getUserId, TreeMap::new, Collectors.toList()));
+        Map<String, List<Transaction>> userTransactions = transactions.stream()
+                .sorted(Comparator.comparingLong(Transaction::getId))
+                .collect(Collectors.groupingBy(Transaction::getUserId, TreeMap::new, Collectors.toList()));
+        List<String> userIds = Stream.concat(userEvents.keySet().stream(), userTransactions.keySet().stream()).distinct().toList();
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> blocks = new ArrayList<>(userIds.size());
+        int size = 0;
+        for (String userId : userIds) {
+            byte[] block = ArchiveBlock.encode(userId, userEvents.getOrDefault(userId, List.of()), userTransactions.getOrDefault(userId, List.of()));
+            blocks.add(block);
+            size += block.length;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        blocks.forEach(bytes::put);
+        bytes.flip();
+
+        lock.lock();
+        try {
+            if (currentSegment.getSize() >= segmentSize) {
+                currentSegment = addSegment(currentSegment.getNumber() + 1);
+            }
+            long position = currentSegment.append(bytes);
+            for (int i = 0; i < blocks.size(); i++) {
+                index(userIds.get(i), ArchiveBlock.read(currentSegment.getNumber(), position, blocks.get(i)));
+                position += blocks.get(i).length;
+            }
+            for (String userId : userIds) {
+                compact(userId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to the limit of the user's archived transactions with an id between the floor and the cursor (both exclusive), newest first.
+     * Transactions are created from (inclusive) to (exclusive), a null from or to leaves that end of the range open.
+     * Blocks are read from the highest ids down and reading stops once no remaining block can hold a newer transaction than the ones found.
+     */
+    @Override
+    public List<Transaction> readTransactions(String userId, long floor, long cursor, Set<TransactionType> types, LocalDateTime from, LocalDateTime to, int limit) {
+        List<ArchiveBlock> blocks = userIndex.getOrDefault(userId, List.of()).stream()
+                .filter(block -> block.getTransactionCount() > 0 && block.getMaxTransactionId() > floor && block.getMinTransactionId() < cursor)
+                .sorted(Comparator.comparingLong(ArchiveBlock::getMaxTransactionId).reversed())
+                .toList();
+        TreeMap<Long, Transaction> found = new TreeMap<>();
+        for (ArchiveBlock block : blocks) {
+            if (found.size() >= limit && block.getMaxTransactionId() < found.firstKey()) {
+                break;
+            }
+            for (Transaction transaction : ArchiveBlock.readTransactions(readBlock(block))) {
+                if (transaction.getId() > floor && transaction.getId() < cursor && types.contains(transaction.getType())
+                        && (from == null || !transaction.getCreatedAt().isBefore(from)) && (to == null || transaction.getCreatedAt().isBefore(to))) {
+                    found.put(transaction.getId(), transaction);
+                }
+            }
+            while (found.size() > limit) {
+                found.pollFirstEntry();
+            }
+        }
+        return new ArrayList<>(found.descendingMap().values());
+    }
+
+    /**
+     * Folds the user's archived events after and before the sequences (both exclusive), in sequence order.
+     */
+    @Override
+    public EventTail summarizeTail(String userId, long afterSequence, long beforeSequence) {
+        List<ArchiveBlock> blocks = userIndex.getOrDefault(userId, List.of()).stream()
+                .filter(block -> block.getEventCount() > 0 && block.getLastSequence() > afterSequence && block.getFirstSequence() < beforeSequence)
+                .sorted(Comparator.comparingLong(ArchiveBlock::getFirstSequence))
+                .toList();
+        long events = 0;
+        long balanceChange = 0;
+        long firstSequence = 0;
+        long lastSequence = afterSequence;
+        for (ArchiveBlock block : blocks) {
+            for (TransactionEvent transactionEvent : ArchiveBlock.readEvents(readBlock(block))) {
+                long sequence = transactionEvent.getSequence();
+                // Events archived twice are folded once
+                if (sequence <= lastSequence || sequence >= beforeSequence) {
+                    continue;
+                }
+                events++;
+                balanceChange += balanceChange(transactionEvent);
+                firstSequence = firstSequence == 0 ? sequence : firstSequence;
+                lastSequence = sequence;
+            }
+        }
+        return new EventTail(events, balanceChange, firstSequence, lastSequence);
+    }
+
+    /**
+     * Finds the first archived event of the user, or null if none of the user's events are archived.
+     */
+    @Override
+    public TransactionEvent findFirstEvent(String userId) {
+        return userIndex.getOrDefault(userId, List.of()).stream()
+                .filter(block -> block.getEventCount() > 0)
+                .min(Comparator.comparingLong(ArchiveBlock::getFirstSequence))
+                .map(block -> ArchiveBlock.readEvents(readBlock(block)).get(0))
+                .orElse(null);
+    }
+
+    /**
+     * Returns the sequence of the user's last archived event, 0 if none are archived.
+     */
+    @Override
+    public long lastSequence(String userId) {
+        return userIndex.getOrDefault(userId, List.of()).stream().mapToLong(ArchiveBlock::getLastSequence).max().orElse(0);
+    }
+
+    /**
+     * Returns the event sequence of the user's last archived transaction, 0 if none are archived.
+     * Transactions are projected in sequence order, so it is the sequence of the transaction with the highest id.
+     */
+    @Override
+    public long lastTransactionSequence(String userId) {
+        return userIndex.getOrDefault(userId, List.of()).stream()
+                .filter(block -> block.getTransactionCount() > 0)
+                .max(Comparator.comparingLong(ArchiveBlock::getMaxTransactionId))
+                .map(block -> ArchiveBlock.readTransactions(readBlock(block)))
+                .map(transactions -> transactions.get(transactions.size() - 1).getSequence())
+                .orElse(0L);
+    }
+
+    /**
+     * Returns the number of the user's blocks in the index.
+     */
+    int blockCount(String userId) {
+        return userIndex.getOrDefault(userId, List.of()).size();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            for (ArchiveSegment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens the existing segments and indexes their blocks, cutting a segment at its first torn or corrupt block.
+     */
+    private void open() throws IOException {
+        List<Integer> numbers;
+        try (Stream<Path> files = Files.list(directory)) {
+            numbers = files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+        for (int number : numbers) {
+            ArchiveSegment segment = new ArchiveSegment(segmentPath(number), number);
+            segments.put(number, segment);
+            scan(segment);
+            currentSegment = segment;
+        }
+        if (currentSegment == null) {
+            currentSegment = addSegment(0);
+        }
+    }
+
+    private void scan(ArchiveSegment segment) throws IOException {
+        long position = 0;
+        while (position < segment.getSize()) {
+            int length = segment.getSize() - position < ArchiveBlock.PREFIX_SIZE ? -1
+                    : ArchiveBlock.length(ByteBuffer.wrap(segment.read(position, ArchiveBlock.PREFIX_SIZE)), segment.getSize() - position);
+            byte[] block = length > 0 ? segment.read(position, length) : null;
+            if (block == null || !ArchiveBlock.isValid(block)) {
+                logger.warn("Truncating archive segment {} at position {} after a torn or corrupt block", segment.getNumber(), position);
+                segment.truncate(position);
+                return;
+            }
+            index(ArchiveBlock.readUserId(block), ArchiveBlock.read(segment.getNumber(), position, block));
+            position += length;
+        }
+    }
+
+    /**
+     * Merges the user's two newest blocks into one while the newest holds at least as many records as the one before it.
+     * Every record is rewritten once per doubling of the user's archive, and the index keeps a logarithmic number of blocks per user.
+     */
+    private void compact(String userId) throws IOException {
+        while (true) {
+            List<ArchiveBlock> blocks = userIndex.get(userId);
+            if (blocks.size() < 2) {
+                return;
+            }
+            ArchiveBlock previous = blocks.get(blocks.size() - 2);
+            ArchiveBlock newest = blocks.get(blocks.size() - 1);
+            if (newest.getRecordCount() < previous.getRecordCount()) {
+                return;
+            }
+            TreeMap<Long, TransactionEvent> events = new TreeMap<>();
+            TreeMap<Long, Transaction> transactions = new TreeMap<>();
+            for (ArchiveBlock block : List.of(previous, newest)) {
+                byte[] bytes = readBlock(block);
+                ArchiveBlock.readEvents(bytes).forEach(transactionEvent -> events.put(transactionEvent.getSequence(), transactionEvent));
+                ArchiveBlock.readTransactions(bytes).forEach(transaction -> transactions.put(transaction.getId(), transaction));
+            }
+            byte[] merged = ArchiveBlock.encode(userId, new ArrayList<>(events.values()), new ArrayList<>(transactions.values()));
+            if (currentSegment.getSize() >= segmentSize) {
+                currentSegment = addSegment(currentSegment.getNumber() + 1);
+            }
+            long position = currentSegment.append(ByteBuffer.wrap(merged));
+            index(userId, ArchiveBlock.read(currentSegment.getNumber(), position, merged));
+        }
+    }
+
+    /**
+     * Adds the block to the user's blocks and drops the earlier blocks it covers, the blocks merged into it.
+     * Indexing the segments in order on startup drops the merged blocks the same way.
+     */
+    private void index(String userId, ArchiveBlock block) {
+        userIndex.compute(userId, (key, blocks) -> {
+            List<ArchiveBlock> updated = new ArrayList<>(blocks == null ? 1 : blocks.size() + 1);
+            if (blocks != null) {
+                blocks.stream().filter(indexed -> !block.covers(indexed)).forEach(updated::add);
+            }
+            updated.add(block);
+            return List.copyOf(updated);
+        });
+    }
+
+    private byte[] readBlock(ArchiveBlock block) {
+        try {
+            byte[] bytes = segments.get(block.getSegmentNumber()).read(block.getPosition(), block.getLength());
+            if (!ArchiveBlock.isValid(bytes)) {
+                throw new IllegalStateException("Archive segment " + block.getSegmentNumber() + " is corrupt at position " + block.getPosition());
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ArchiveSegment addSegment(int number) throws IOException {
+        ArchiveSegment segment = new ArchiveSegment(segmentPath(number), number);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve("archive-" + number + ".seg");
+    }
+
+    private long balanceChange(TransactionEvent transactionEvent) {
+        if (transactionEvent.getStatus() == TransactionEventStatus.FAILED) {
+            return 0;
+        }
+        return transactionEvent.getType() == TransactionType.CREDIT ? transactionEvent.getAmount() : -transactionEvent.getAmount();
+    }
+}
@@ -0,0 +1,66 @@
+package com.transaction.modules.transaction.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Write-through cache of the latest running balance and event sequence per user
+ * Bounded in size, least recently used users are evicted and reloaded from the event log on the next access
+ */
+@Component
+public class BalanceCache {
+
+    private final Cache<String, UserBalance> balances;
+
+    public BalanceCache(@Value("${transaction.balance-cache.maximum-size:100000}") long maximumSize) {
+        this.balances = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached balance of the user or null if the user is not cached.
+     */
+    public UserBalance get(String userId) {
+        return balances.getIfPresent(userId);
+    }
+
+    /**
+     * Stores the balance of the user after the event carrying it has been saved.
+     */
+    public void put(String userId, UserBalance userBalance) {
+        balances.put(userId, userBalance);
+    }
+
+    /**
+     * Replaces the cached balance of the user if the given one has a later sequence.
+     * Used when events of the same user are saved concurrently and may finish out of order.
+     * A user that is not cached is left to be reloaded, as the balance could have been evicted after a later one was saved.
+     */
+    public void advance(String userId, UserBalance userBalance) {
+        balances.asMap().computeIfPresent(userId,
+                (key, cached) -> userBalance.getSequence() > cached.getSequence() ? userBalance : cached);
+    }
+
+    /**
+     * Removes the user from the cache so that the next access reloads it from the event log.
+     */
+    public void invalidate(String userId) {
+        balances.invalidate(userId);
+    }
+
+    public long getHitCount() {
+        return balances.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return balances.stats().missCount();
+    }
+
+    public long size() {
+        return balances.size();
+    }
+}
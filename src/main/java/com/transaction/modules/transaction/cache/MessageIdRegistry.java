@@ -0,0 +1,122 @@
+package com.transaction.modules.transaction.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.journal.JournalRecovery;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/*
+ * Registry of the message ids already used, to answer client retries with the original event
+ * A bloom filter answers for message ids that are definitely new without querying the database
+ * and the events of recent message ids are kept in a bounded cache
+ * It is seeded before the web server accepts requests, so a retry is never missed by the bloom filter
+ */
+@Component
+public class MessageIdRegistry implements SmartLifecycle {
+
+    private final BloomFilter<CharSequence> messageIds;
+
+    private final Cache<String, TransactionEvent> recentEvents;
+
+    private final AtomicLong skippedLookups = new AtomicLong();
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean running;
+
+    public MessageIdRegistry(@Value("${transaction.message-id-registry.expected-message-ids:10000000}") long expectedMessageIds,
+                             @Value("${transaction.message-id-registry.maximum-size:100000}") long maximumSize) {
+        this.messageIds = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedMessageIds, 0.01);
+        this.recentEvents = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void start() {
+        seed();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Runs right after the journal recovery, so the restored message ids are seeded too, and before the web server starts.
+     */
+    @Override
+    public int getPhase() {
+        return JournalRecovery.PHASE + 1;
+    }
+
+    /**
+     * Loads the message ids already in the event table into the bloom filter.
+     */
+    public void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> existingMessageIds = transactionEventRepository.streamAllMessageIds()) {
+                existingMessageIds.forEach(messageIds::put);
+            }
+        });
+    }
+
+    /**
+     * Finds the event saved for the message id, only querying the database if the message id might have been used.
+     */
+    public Optional<TransactionEvent> find(String messageId) {
+        if (!messageIds.mightContain(messageId)) {
+            skippedLookups.incrementAndGet();
+            return Optional.empty();
+        }
+        TransactionEvent transactionEvent = recentEvents.getIfPresent(messageId);
+        if (transactionEvent != null) {
+            return Optional.of(transactionEvent);
+        }
+        return transactionEventRepository.findById(messageId);
+    }
+
+    /**
+     * Records the message id of an event once it has been committed.
+     */
+    public void record(TransactionEvent transactionEvent) {
+        messageIds.put(transactionEvent.getMessageId());
+        recentEvents.put(transactionEvent.getMessageId(), transactionEvent);
+    }
+
+    public long getSkippedLookups() {
+        return skippedLookups.get();
+    }
+
+    public long getHitCount() {
+        return recentEvents.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return recentEvents.stats().missCount();
+    }
+}
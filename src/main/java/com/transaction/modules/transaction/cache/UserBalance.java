@@ -0,0 +1,16 @@
+package com.transaction.modules.transaction.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Running balance of a user together with the sequence of the event that produced it
+ */
+@Getter
+@AllArgsConstructor
+public class UserBalance {
+    // Balance in minor units
+    private final long balance;
+
+    private final long sequence;
+}
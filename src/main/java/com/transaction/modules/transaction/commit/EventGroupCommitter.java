@@ -0,0 +1,228 @@
+package com.transaction.modules.transaction.commit;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.job.ProjectorHandoff;
+import com.transaction.modules.transaction.journal.EventJournal;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Group commit of the events appended by concurrent requests
+ * A single committer thread saves the queued events of all callers in one database transaction,
+ * flushing when the window is full or the oldest event has waited the maximum wait
+ * Callers are blocked until the transaction holding their event has committed, at most for the commit timeout
+ * A caller that stops waiting, timed out or interrupted, withdraws its event if it is still queued. An event already taken into a group
+ * may still commit after its caller failed, the caller drops the user's cached state and a retry with the same message id
+ * is answered with the event if it did commit
+ */
+@Component
+public class EventGroupCommitter {
+
+    private final BlockingQueue<PendingEvent> queue = new LinkedBlockingQueue<>();
+
+    private final AtomicLong groups = new AtomicLong();
+
+    private final AtomicLong committedEvents = new AtomicLong();
+
+    private final int windowSize;
+
+    private final long maxWaitNanos;
+
+    private final long commitTimeoutNanos;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private ProjectorHandoff projectorHandoff;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean running;
+
+    private Thread committer;
+
+    public EventGroupCommitter(@Value("${transaction.group-commit.window-size:256}") int windowSize,
+                               @Value("${transaction.group-commit.max-wait:1ms}") Duration maxWait,
+                               @Value("${transaction.group-commit.commit-timeout:10s}") Duration commitTimeout) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Group commit window size must be at least 1.");
+        }
+        this.windowSize = windowSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.commitTimeoutNanos = commitTimeout.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        committer = new Thread(this::run, "event-group-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        committer.interrupt();
+        committer.join();
+        List<PendingEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        failStopped(remaining);
+    }
+
+    /**
+     * Queues the event for the next group and waits until it has been committed.
+     * The exception of a failed save is rethrown to the caller.
+     */
+    public void commit(TransactionEvent transactionEvent) {
+        if (!running) {
+            throw new IllegalStateException("Group committer is stopped.");
+        }
+        PendingEvent pendingEvent = new PendingEvent(transactionEvent);
+        queue.add(pendingEvent);
+        // Stopped in between, the event is either withdrawn here or failed by the drain of stop()
+        if (!running && queue.remove(pendingEvent)) {
+            throw new IllegalStateException("Group committer is stopped.");
+        }
+        try {
+            pendingEvent.result.get(commitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw withdraw(pendingEvent, "Interrupted while waiting for the group commit", e);
+        } catch (TimeoutException e) {
+            throw withdraw(pendingEvent, "Timed out waiting for the group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public long getGroups() {
+        return groups.get();
+    }
+
+    public long getCommittedEvents() {
+        return committedEvents.get();
+    }
+
+    /**
+     * Builds the exception of a caller that stopped waiting, withdrawing its event if no group has taken it yet.
+     */
+    private IllegalStateException withdraw(PendingEvent pendingEvent, String reason, Exception cause) {
+        if (queue.remove(pendingEvent)) {
+            return new IllegalStateException(reason + ", the event was not committed.", cause);
+        }
+        return new IllegalStateException(reason + ", the event may still be committed.", cause);
+    }
+
+    private void run() {
+        while (running) {
+            List<PendingEvent> group = new ArrayList<>(windowSize);
+            try {
+                collect(group);
+            } catch (InterruptedException e) {
+                // Stopped while collecting, the events taken from the queue are failed like the ones drained by stop()
+                failStopped(group);
+                return;
+            }
+            if (!group.isEmpty()) {
+                flush(group);
+            }
+        }
+    }
+
+    /**
+     * Waits for a first event, then collects events into the group until the window is full or the maximum wait has passed.
+     */
+    private void collect(List<PendingEvent> group) throws InterruptedException {
+        PendingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+        queue.drainTo(group, windowSize - group.size());
+
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (group.size() < windowSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+            queue.drainTo(group, windowSize - group.size());
+        }
+    }
+
+    private static void failStopped(List<PendingEvent> pendingEvents) {
+        pendingEvents.forEach(pendingEvent -> pendingEvent.result.completeExceptionally(new IllegalStateException("Group committer is stopped.")));
+    }
+
+    /**
+     * Saves the group in one transaction, journals it and hands it off to the projector once committed, and releases its callers.
+     * If the group fails, its events are saved one by one so that only the failing event is rejected.
+     */
+    private void flush(List<PendingEvent> group) {
+        List<TransactionEvent> transactionEvents = new ArrayList<>(group.size());
+        group.forEach(pendingEvent -> transactionEvents.add(pendingEvent.transactionEvent));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                transactionEventRepository.saveAll(transactionEvents);
+                // Journaled and handed off before the callers are released, so each user's events are in sequence order,
+                // and only after the commit, so a failed group leaves nothing in the journal when its events are saved one by one
+                projectorHandoff.handOffAfterCommit(transactionEvents);
+                eventJournal.appendAfterCommit(transactionEvents);
+            });
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e);
+                return;
+            }
+            group.forEach(pendingEvent -> {
+                pendingEvent.transactionEvent.markNew();
+                flush(List.of(pendingEvent));
+            });
+            return;
+        }
+        groups.incrementAndGet();
+        committedEvents.addAndGet(group.size());
+        group.forEach(pendingEvent -> pendingEvent.result.complete(null));
+    }
+
+    private static final class PendingEvent {
+
+        private final TransactionEvent transactionEvent;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private PendingEvent(TransactionEvent transactionEvent) {
+            this.transactionEvent = transactionEvent;
+        }
+    }
+}
@@ -1,21 +1,37 @@
 package com.transaction.modules.transaction.controller;
 
 import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.BatchRequest;
 import com.transaction.modules.transaction.controller.request.LoadRequest;
 import com.transaction.modules.transaction.controller.response.AuthorizationResponse;
+import com.transaction.modules.transaction.controller.response.BatchResponse;
 import com.transaction.modules.transaction.controller.response.LoadResponse;
+import com.transaction.modules.transaction.controller.response.TransactionHistoryResponse;
+import com.transaction.modules.transaction.enums.TransactionExportFormat;
+import com.transaction.modules.transaction.enums.TransactionType;
 import com.transaction.modules.transaction.service.TransactionEventService;
+import com.transaction.modules.transaction.service.TransactionExportService;
+import com.transaction.modules.transaction.service.TransactionHistoryService;
+import com.transaction.modules.transaction.service.TransactionStreamService;
 import com.transaction.util.response.ErrorResponseModel;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/v1/transaction")
 public class TransactionController {
@@ -23,6 +39,15 @@ public class TransactionController {
     @Autowired
     private TransactionEventService transactionEventService;
 
+    @Autowired
+    private TransactionStreamService transactionStreamService;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = LoadResponse.class))),
             @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(implementation = ErrorResponseModel.class))),
@@ -50,5 +75,75 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponseModel(400, e.getMessage()));
         }
     }
-}
 
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = BatchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(implementation = ErrorResponseModel.class))),
+    })
+    @PutMapping("/batch")
+    public ResponseEntity<?> batch(@Valid @RequestBody BatchRequest batchRequest) {
+        try {
+            BatchResponse batchResponse = transactionEventService.batch(batchRequest);
+            return ResponseEntity.ok(batchResponse);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponseModel(400, e.getMessage()));
+        }
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, one BatchItemResponse per line", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)),
+    })
+    @PutMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void stream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        transactionStreamService.ingest(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Returns a page of the user's transactions, newest first. The next page is requested with the nextCursor of the previous one.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = TransactionHistoryResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(implementation = ErrorResponseModel.class))),
+    })
+    @GetMapping("/history/{userId}")
+    public ResponseEntity<?> history(@PathVariable String userId,
+                                     @RequestParam(required = false) Long cursor,
+                                     @RequestParam(required = false) Integer size,
+                                     @RequestParam(required = false) TransactionType type,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            TransactionHistoryResponse transactionHistoryResponse = transactionHistoryService.findHistory(userId, cursor, size, type, from, to);
+            return ResponseEntity.ok(transactionHistoryResponse);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponseModel(400, e.getMessage()));
+        }
+    }
+
+    /**
+     * Streams the transactions of the user, or of every user, as CSV or NDJSON. The filter is checked before the first row is written.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, one transaction per line", content = {
+                    @Content(mediaType = "text/csv"), @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(implementation = ErrorResponseModel.class))),
+    })
+    @GetMapping("/export")
+    public ResponseEntity<?> export(@RequestParam(defaultValue = "CSV") TransactionExportFormat format,
+                                    @RequestParam(required = false) String userId,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    HttpServletResponse response) throws IOException {
+        try {
+            transactionExportService.validate(userId, from, to);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponseModel(400, e.getMessage()));
+        }
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + format.getFileExtension() + "\"");
+        transactionExportService.export(format, userId, from, to, response.getOutputStream());
+        // The rows are already written to the response
+        return null;
+    }
+}
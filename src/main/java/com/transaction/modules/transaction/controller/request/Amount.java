@@ -2,6 +2,7 @@ package com.transaction.modules.transaction.controller.request;
 
 import com.transaction.modules.transaction.entity.TransactionEvent;
 import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.util.Money;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -23,7 +24,7 @@ public class Amount {
     private TransactionType debitOrCredit;
 
     public Amount(TransactionEvent transactionEvent) {
-        setAmount(transactionEvent.getRunningBalance().toString());
+        setAmount(Money.format(transactionEvent.getRunningBalance()));
         setCurrency(transactionEvent.getCurrency());
         setDebitOrCredit(transactionEvent.getType());
     }
@@ -10,7 +10,7 @@ import lombok.Setter;
 @Setter
 @Getter
 @NoArgsConstructor
-public class AuthorizationRequest {
+public class AuthorizationRequest implements TransactionRequest {
 
     @NotEmpty(message = "User Id cannot be empty.")
     private String userId;
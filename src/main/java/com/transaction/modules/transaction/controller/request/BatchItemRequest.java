@@ -0,0 +1,43 @@
+package com.transaction.modules.transaction.controller.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * Item of a batch, applied as a load for CREDIT and as an authorization for DEBIT
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class BatchItemRequest implements TransactionRequest {
+
+    @NotEmpty(message = "User Id cannot be empty.")
+    private String userId;
+
+    @NotEmpty(message = "Message Id cannot be empty.")
+    private String messageId;
+
+    @Valid
+    @NotNull(message = "Transaction amount is required.")
+    private Amount transactionAmount;
+
+    public LoadRequest toLoadRequest() {
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(userId);
+        loadRequest.setMessageId(messageId);
+        loadRequest.setTransactionAmount(transactionAmount);
+        return loadRequest;
+    }
+
+    public AuthorizationRequest toAuthorizationRequest() {
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(userId);
+        authorizationRequest.setMessageId(messageId);
+        authorizationRequest.setTransactionAmount(transactionAmount);
+        return authorizationRequest;
+    }
+}
@@ -0,0 +1,19 @@
+package com.transaction.modules.transaction.controller.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@NoArgsConstructor
+public class BatchRequest {
+
+    @Valid
+    @NotEmpty(message = "Items cannot be empty.")
+    private List<BatchItemRequest> items;
+}
@@ -11,7 +11,7 @@ import lombok.Setter;
 @Setter
 @Getter
 @NoArgsConstructor
-public class LoadRequest {
+public class LoadRequest implements TransactionRequest {
 
     @NotEmpty(message = "User Id cannot be empty.")
     private String userId;
@@ -0,0 +1,13 @@
+package com.transaction.modules.transaction.controller.request;
+
+/*
+ * Fields shared by the load and authorization requests
+ */
+public interface TransactionRequest {
+
+    String getUserId();
+
+    String getMessageId();
+
+    Amount getTransactionAmount();
+}
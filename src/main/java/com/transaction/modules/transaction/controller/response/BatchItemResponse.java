@@ -0,0 +1,51 @@
+package com.transaction.modules.transaction.controller.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.TransactionRequest;
+import com.transaction.modules.transaction.enums.AuthorizationStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Result of one batch item, with the same code and message as the single endpoints would return
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResponse {
+
+    private String userId;
+
+    private String messageId;
+
+    private Integer code;
+
+    private AuthorizationStatus responseCode;
+
+    private Amount balance;
+
+    private String message;
+
+    public BatchItemResponse(LoadResponse loadResponse) {
+        setUserId(loadResponse.getUserId());
+        setMessageId(loadResponse.getMessageId());
+        setCode(200);
+        setBalance(loadResponse.getBalance());
+    }
+
+    public BatchItemResponse(AuthorizationResponse authorizationResponse) {
+        setUserId(authorizationResponse.getUserId());
+        setMessageId(authorizationResponse.getMessageId());
+        setCode(200);
+        setResponseCode(authorizationResponse.getResponseCode());
+        setBalance(authorizationResponse.getBalance());
+    }
+
+    public BatchItemResponse(TransactionRequest transactionRequest, String message) {
+        setUserId(transactionRequest.getUserId());
+        setMessageId(transactionRequest.getMessageId());
+        setCode(400);
+        setMessage(message);
+    }
+}
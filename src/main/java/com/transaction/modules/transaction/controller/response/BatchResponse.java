@@ -0,0 +1,18 @@
+package com.transaction.modules.transaction.controller.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchResponse {
+
+    // Results in the order of the request items
+    private List<BatchItemResponse> results;
+
+    public BatchResponse(List<BatchItemResponse> results) {
+        setResults(results);
+    }
+}
@@ -0,0 +1,24 @@
+package com.transaction.modules.transaction.controller.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class TransactionHistoryResponse {
+    private String userId;
+
+    // Newest first
+    private List<TransactionResponse> transactions;
+
+    // Cursor of the next page, null on the last page
+    private Long nextCursor;
+
+    public TransactionHistoryResponse(String userId, List<TransactionResponse> transactions, Long nextCursor) {
+        setUserId(userId);
+        setTransactions(transactions);
+        setNextCursor(nextCursor);
+    }
+}
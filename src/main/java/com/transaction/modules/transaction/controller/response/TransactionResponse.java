@@ -0,0 +1,32 @@
+package com.transaction.modules.transaction.controller.response;
+
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.util.Money;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class TransactionResponse {
+    private long id;
+
+    private TransactionType type;
+
+    // Amount with two decimal places, e.g. "100.00"
+    private String amount;
+
+    private String currency;
+
+    private LocalDateTime createdAt;
+
+    public TransactionResponse(Transaction transaction) {
+        setId(transaction.getId());
+        setType(transaction.getType());
+        setAmount(Money.format(transaction.getAmount()));
+        setCurrency(transaction.getCurrency());
+        setCreatedAt(transaction.getCreatedAt());
+    }
+}
@@ -6,6 +6,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 
 import java.time.LocalDateTime;
@@ -14,19 +15,29 @@ import java.time.LocalDateTime;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table
+@Table(indexes = {
+        // Serves the keyset pagination of a user's history, newest first
+        @Index(name = "IDX_TRANSACTION_USER_ID", columnList = "userId, id DESC")
+})
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence so that inserts can be batched, identity columns disable JDBC insert batching
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "TRANSACTION_SEQ", allocationSize = 50)
     @Setter(AccessLevel.NONE)
     private Long id;
 
     private String userId;
 
+    // Sequence of the event the transaction was projected from
+    @ColumnDefault("0")
+    private long sequence;
+
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
-    private Double amount;
+    // Amount in minor units
+    private long amount;
 
     private String currency;
 
@@ -37,9 +48,21 @@ public class Transaction {
 
     public Transaction(TransactionEvent transactionEvent) {
         setUserId(transactionEvent.getUserId());
+        setSequence(transactionEvent.getSequence());
         setType(transactionEvent.getType());
         setAmount(transactionEvent.getAmount());
         setCurrency(transactionEvent.getCurrency());
         setCreatedAt(LocalDateTime.now());
     }
+
+    // A transaction read back from the archive, keeping the id it had in the table
+    public Transaction(long id, String userId, long sequence, TransactionType type, long amount, String currency, LocalDateTime createdAt) {
+        this.id = id;
+        setUserId(userId);
+        setSequence(sequence);
+        setType(type);
+        setAmount(amount);
+        setCurrency(currency);
+        setCreatedAt(createdAt);
+    }
 }
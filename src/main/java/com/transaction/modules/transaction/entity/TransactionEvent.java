@@ -1,36 +1,52 @@
 package com.transaction.modules.transaction.entity;
 
+import com.google.common.hash.Hashing;
 import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
 import com.transaction.modules.transaction.controller.request.LoadRequest;
 import com.transaction.modules.transaction.enums.TransactionEventStatus;
 import com.transaction.modules.transaction.enums.TransactionType;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.checkerframework.common.aliasing.qual.Unique;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
 @Getter
 @Setter
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "IDX_TRANSACTION_EVENT_USER_SEQUENCE", columnList = "userId, sequence", unique = true),
+        @Index(name = "IDX_TRANSACTION_EVENT_STATUS_SEQUENCE", columnList = "status, sequence")
+})
 @NoArgsConstructor
-public class TransactionEvent {
+public class TransactionEvent implements Persistable<String> {
     @Id
     @Unique
     private String messageId;
 
     private String userId;
 
+    // Non-negative hash of the user id, the events of a user are projected by partition userHash % transaction.projector.partitions
+    @ColumnDefault("0")
+    private int userHash;
+
+    // Gap free position of the event in the user's history, assigned when the event is appended
+    @Column(nullable = false)
+    private long sequence;
+
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
-    private Double amount;
+    // Amounts and balances are in minor units
+    private long amount;
 
-    private Double runningBalance;
+    private long runningBalance;
 
     private String currency;
 
@@ -41,27 +57,66 @@ public class TransactionEvent {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // New events are inserted directly, a reused message id fails on the primary key instead of overwriting the earlier event
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
 
-    public TransactionEvent(LoadRequest loadRequest, Double balance) {
+    public TransactionEvent(LoadRequest loadRequest, long amount, long balance, long sequence) {
         setMessageId(loadRequest.getMessageId());
         setUserId(loadRequest.getUserId());
+        setSequence(sequence);
         setType(loadRequest.getTransactionAmount().getDebitOrCredit());
-        setAmount(Double.valueOf(loadRequest.getTransactionAmount().getAmount()));
+        setAmount(amount);
         setRunningBalance(balance);
         setCurrency(loadRequest.getTransactionAmount().getCurrency());
         setStatus(TransactionEventStatus.PENDING);
         setCreatedAt(LocalDateTime.now());
     }
 
-    public TransactionEvent(AuthorizationRequest authorizationRequest, Double balance, TransactionEventStatus transactionEventStatus) {
+    public TransactionEvent(AuthorizationRequest authorizationRequest, long amount, long balance, long sequence, TransactionEventStatus transactionEventStatus) {
         setMessageId(authorizationRequest.getMessageId());
         setUserId(authorizationRequest.getUserId());
+        setSequence(sequence);
         setType(authorizationRequest.getTransactionAmount().getDebitOrCredit());
-        setAmount(Double.valueOf(authorizationRequest.getTransactionAmount().getAmount()));
+        setAmount(amount);
         setRunningBalance(balance);
         setCurrency(authorizationRequest.getTransactionAmount().getCurrency());
         setStatus(transactionEventStatus);
         setCreatedAt(LocalDateTime.now());
     }
-}
 
+    @Override
+    public String getId() {
+        return messageId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    /**
+     * Returns the non-negative hash of the user id the projector partitions are derived from.
+     */
+    public static int hashUserId(String userId) {
+        return Hashing.murmur3_32_fixed().hashUnencodedChars(userId).asInt() & Integer.MAX_VALUE;
+    }
+
+    @PrePersist
+    void hashUserId() {
+        userHash = hashUserId(userId);
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+    // An insert that was rolled back leaves the event new, so saving it again inserts it instead of merging it
+    public void markNew() {
+        persisted = false;
+    }
+}
@@ -0,0 +1,6 @@
+package com.transaction.modules.transaction.enums;
+
+public enum AuthorizationStrategy {
+    EVENT_SOURCED, // The balance is checked against the user's latest event, the account is updated by the projector
+    CONDITIONAL_UPDATE // The account is debited by a statement that only updates it while its balance covers the amount
+}
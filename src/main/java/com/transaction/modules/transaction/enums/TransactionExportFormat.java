@@ -0,0 +1,18 @@
+package com.transaction.modules.transaction.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum TransactionExportFormat {
+    CSV("text/csv", "csv"), // Header line followed by one line per transaction
+    NDJSON("application/x-ndjson", "ndjson"); // One JSON object per line
+
+    private final String contentType;
+
+    private final String fileExtension;
+
+    TransactionExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+}
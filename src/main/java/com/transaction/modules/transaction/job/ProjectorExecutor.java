@@ -0,0 +1,119 @@
+package com.transaction.modules.transaction.job;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded executor of the projector passes, separate from the executor of the web tier
+ * The single flight trigger never has more passes outstanding than partitions, which bounds the work queued here,
+ * and with a queue capacity of at least the partitions, checked by the trigger on startup, no pass is ever rejected
+ * A submission beyond the queue capacity would still be rejected and counted rather than run by the caller, which may hold a user's lock
+ * With spring.threads.virtual.enabled the workers are virtual threads, the pool size still bounds the passes running at once
+ * On shutdown queued passes are drained up to the await termination time
+ * It is not an Executor bean on purpose, which would make Spring Boot back off from creating the application task executor
+ */
+@Component
+public class ProjectorExecutor {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    private final int queueCapacity;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder totalLatencyNanos = new LongAdder();
+
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public ProjectorExecutor(@Value("${transaction.projector.executor.core-size:1}") int coreSize,
+                             @Value("${transaction.projector.executor.max-size:2}") int maxSize,
+                             @Value("${transaction.projector.executor.queue-capacity:16}") int queueCapacity,
+                             @Value("${transaction.projector.executor.await-termination:30s}") Duration awaitTermination,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.queueCapacity = queueCapacity;
+        executor.setThreadNamePrefix("projector-");
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("projector-").getVirtualThreadFactory());
+        }
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler((task, threadPoolExecutor) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("Projector executor queue is full");
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(awaitTermination.toMillis());
+    }
+
+    @PostConstruct
+    public void initialize() {
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs the task on the projector pool and records its latency from submission to completion.
+     */
+    public void execute(Runnable task) {
+        long submitted = System.nanoTime();
+        executor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                long latency = System.nanoTime() - submitted;
+                completed.increment();
+                totalLatencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            }
+        });
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueueSize();
+    }
+
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public Duration getAverageLatency() {
+        long count = completed.sum();
+        return Duration.ofNanos(count == 0 ? 0 : totalLatencyNanos.sum() / count);
+    }
+
+    public Duration getMaxLatency() {
+        return Duration.ofNanos(maxLatencyNanos.get());
+    }
+}
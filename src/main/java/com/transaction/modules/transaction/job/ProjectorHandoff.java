@@ -0,0 +1,146 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * In-memory handoff of committed pending events to the projector partitions, one bounded ring buffer per partition
+ * Events are handed off by the thread that committed them while it still holds the user's lock, so each user's events are queued in sequence order
+ * A partition scans the event table instead when it starts, when an event could not be queued because its buffer was full, or after a failed pass,
+ * the events left in its buffer are committed and dropped, as the scan finds them as well
+ */
+@Component
+public class ProjectorHandoff {
+
+    private static final int SCAN_NOT_REQUESTED = 0;
+
+    private static final int SCAN_REQUESTED = 1;
+
+    @Getter
+    @Value("${transaction.projector.handoff.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transaction.projector.handoff.capacity:8192}")
+    private int capacity;
+
+    @Value("${transaction.projector.partitions:1}")
+    private int partitions;
+
+    private List<ArrayBlockingQueue<TransactionEvent>> buffers;
+
+    private AtomicIntegerArray scanRequests;
+
+    private final LongAdder handedOff = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        buffers = new ArrayList<>(partitions);
+        scanRequests = new AtomicIntegerArray(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            buffers.add(new ArrayBlockingQueue<>(capacity));
+            // Events left pending by the previous run are only found by a scan
+            scanRequests.set(partition, SCAN_REQUESTED);
+        }
+    }
+
+    /**
+     * Hands the pending events off to their partitions once the current transaction has committed, or right away without a transaction.
+     * Events of a rolled back transaction are never handed off.
+     */
+    public void handOffAfterCommit(List<TransactionEvent> transactionEvents) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    handOff(transactionEvents);
+                }
+            });
+        } else {
+            handOff(transactionEvents);
+        }
+    }
+
+    /**
+     * Takes up to the limit of the partition's handed off events, in the order they were committed.
+     */
+    public List<TransactionEvent> take(int partition, int limit) {
+        List<TransactionEvent> transactionEvents = new ArrayList<>(Math.min(limit, capacity));
+        if (enabled) {
+            buffers.get(partition).drainTo(transactionEvents, limit);
+        }
+        return transactionEvents;
+    }
+
+    /**
+     * Returns true if the partition has to scan the event table, and if so drops the events in its buffer.
+     * Always true without handoff, where every pass scans the table.
+     */
+    public boolean takeScanRequest(int partition) {
+        if (!enabled) {
+            return true;
+        }
+        if (scanRequests.getAndSet(partition, SCAN_NOT_REQUESTED) == SCAN_NOT_REQUESTED) {
+            return false;
+        }
+        // Cleared after the request is taken and before the scan, so an event dropped here was committed before the scan reads the table
+        dropped.add(buffers.get(partition).size());
+        buffers.get(partition).clear();
+        return true;
+    }
+
+    public void requestScan(int partition) {
+        scanRequests.set(partition, SCAN_REQUESTED);
+    }
+
+    public void requestScan() {
+        for (int partition = 0; partition < partitions; partition++) {
+            requestScan(partition);
+        }
+    }
+
+    public long getHandedOffCount() {
+        return handedOff.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getBuffered() {
+        return buffers.stream().mapToInt(ArrayBlockingQueue::size).sum();
+    }
+
+    /*
+     * A full buffer requests a scan before later events of the same user can be queued behind the one that did not fit
+     */
+    private void handOff(List<TransactionEvent> transactionEvents) {
+        for (TransactionEvent transactionEvent : transactionEvents) {
+            if (transactionEvent.getStatus() != TransactionEventStatus.PENDING) {
+                continue;
+            }
+            int partition = TransactionEvent.hashUserId(transactionEvent.getUserId()) % partitions;
+            if (buffers.get(partition).offer(transactionEvent)) {
+                handedOff.increment();
+            } else {
+                requestScan(partition);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/*
+ * Background sweeper that signals the projector while pending events are left behind
+ * With the handoff, events are only left behind by a lost handoff, so a scan is requested once pending events are older than the grace period
+ * Polls at the minimum interval while there is a backlog and backs off up to the maximum interval when there is none
+ */
+@Component
+public class ProjectorSweeper implements SchedulingConfigurer {
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private ProjectorTrigger projectorTrigger;
+
+    @Autowired
+    private ProjectorHandoff projectorHandoff;
+
+    @Value("${transaction.projector.sweeper.min-interval:100ms}")
+    private Duration minInterval;
+
+    @Value("${transaction.projector.sweeper.max-interval:30s}")
+    private Duration maxInterval;
+
+    @Value("${transaction.projector.sweeper.grace-period:5s}")
+    private Duration gracePeriod;
+
+    @Getter
+    private volatile Duration interval;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addTriggerTask(this::sweep, this::nextExecution);
+    }
+
+    /**
+     * Signals a scan of every partition if pending events are left behind and adapts the polling interval.
+     * Without the handoff any pending event is left behind, as is every pending event found by the first sweep after a start.
+     */
+    public void sweep() {
+        LocalDateTime oldest = transactionEventRepository.findOldestCreatedAt(TransactionEventStatus.PENDING);
+        boolean leftBehind = oldest != null
+                && (!projectorHandoff.isEnabled() || interval == null || oldest.isBefore(LocalDateTime.now().minus(gracePeriod)));
+        if (leftBehind) {
+            projectorHandoff.requestScan();
+            projectorTrigger.signal();
+            interval = minInterval;
+        } else {
+            Duration current = interval == null ? minInterval : interval;
+            Duration doubled = current.multipliedBy(2);
+            interval = doubled.compareTo(maxInterval) > 0 ? maxInterval : doubled;
+        }
+    }
+
+    private Instant nextExecution(TriggerContext triggerContext) {
+        Instant lastCompletion = triggerContext.lastCompletion();
+        Duration delay = interval == null ? minInterval : interval;
+        return (lastCompletion == null ? Instant.now() : lastCompletion).plus(delay);
+    }
+}
@@ -0,0 +1,114 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * Single flight trigger of the projector partitions
+ * Any number of signals to a partition are merged into at most one running pass of the partition plus one pass requested after it
+ * So at most one pass per partition is ever queued on the projector executor, which must be able to queue them all
+ * A rejected pass would otherwise be run by the caller, which signals under the user lock and would hold it for the whole pass
+ */
+@Component
+public class ProjectorTrigger {
+
+    private static final int IDLE = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int RERUN_REQUESTED = 2;
+
+    @Value("${transaction.projector.partitions:1}")
+    private int partitions;
+
+    private AtomicIntegerArray states;
+
+    @Autowired
+    private TransactionUpdateJob transactionUpdateJob;
+
+    @Autowired
+    private ProjectorExecutor projectorExecutor;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectorTrigger.class);
+
+    @PostConstruct
+    public void initialize() {
+        if (projectorExecutor.getQueueCapacity() < partitions) {
+            throw new IllegalStateException("Projector executor queue capacity must be at least the number of projector partitions.");
+        }
+        states = new AtomicIntegerArray(partitions);
+    }
+
+    /**
+     * Requests a pass of every partition, for events of any number of users.
+     */
+    public void signal() {
+        for (int partition = 0; partition < partitions; partition++) {
+            signalPartition(partition);
+        }
+    }
+
+    /**
+     * Requests a pass of the partition projecting the user's events.
+     */
+    public void signal(String userId) {
+        signalPartition(TransactionEvent.hashUserId(userId) % partitions);
+    }
+
+    /**
+     * Requests a pass of the partition, starting one in background if none is running.
+     */
+    private void signalPartition(int partition) {
+        while (true) {
+            int current = states.get(partition);
+            if (current == RERUN_REQUESTED) {
+                return;
+            }
+            int next = current == IDLE ? RUNNING : RERUN_REQUESTED;
+            if (states.compareAndSet(partition, current, next)) {
+                if (current == IDLE) {
+                    start(partition);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Submits a pass of the partition, a rejected pass leaves the partition idle for the next signal or the sweeper.
+     */
+    private void start(int partition) {
+        try {
+            projectorExecutor.execute(() -> drain(partition));
+        } catch (TaskRejectedException e) {
+            states.set(partition, IDLE);
+            logger.error(e.getMessage());
+        }
+    }
+
+    /*
+     * Runs passes of the partition until no signal to it arrived during the last one
+     * Failed passes are left to the sweeper once the retries of the job are exhausted
+     */
+    private void drain(int partition) {
+        while (true) {
+            try {
+                transactionUpdateJob.execute(partition);
+            } catch (RuntimeException e) {
+                logger.error(e.getMessage());
+            }
+            if (states.compareAndSet(partition, RUNNING, IDLE)) {
+                return;
+            }
+            states.set(partition, RUNNING);
+        }
+    }
+}
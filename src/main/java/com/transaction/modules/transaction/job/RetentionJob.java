@@ -0,0 +1,134 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.transaction.archive.EventArchive;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Moves the transactions and events created before the retention horizon out of the tables into the archive
+ * A user's latest event and its transaction stay in the table, and an event is only archived after the transaction projected from it,
+ * so the archived events of a user are always the start of the user's history and a restart restoring the events after the archived ones from the journal projects exactly the transactions that are not archived
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.retention.enabled", havingValue = "true")
+public class RetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionJob.class);
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EventArchive eventArchive;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.retention.horizon:P7D}")
+    private Duration horizon;
+
+    @Value("${transaction.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Archives the transactions and then the events older than the horizon and returns the number of rows archived.
+     * Every chunk is appended to the archive before it is deleted from the table in the same database transaction.
+     */
+    @Scheduled(fixedDelayString = "${transaction.retention.interval:PT1M}")
+    public long archive() {
+        lock.lock();
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(horizon);
+            long transactions = 0;
+            int archived;
+            do {
+                archived = archiveTransactions(cutoff);
+                transactions += archived;
+            } while (archived == chunkSize);
+
+            long[] events = {0};
+            String userId = "";
+            long sequence = 0;
+            List<TransactionEvent> candidates;
+            do {
+                candidates = archiveEvents(cutoff, userId, sequence, events);
+                if (!candidates.isEmpty()) {
+                    userId = candidates.get(candidates.size() - 1).getUserId();
+                    sequence = candidates.get(candidates.size() - 1).getSequence();
+                }
+            } while (candidates.size() == chunkSize);
+
+            if (transactions + events[0] > 0) {
+                logger.info("Archived {} transactions and {} transaction events created before {}", transactions, events[0], cutoff);
+            }
+            return transactions + events[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int archiveTransactions(LocalDateTime cutoff) {
+        return transactionTemplate.execute(status -> {
+            List<Transaction> transactions = transactionRepository.findArchivable(cutoff, PageRequest.of(0, chunkSize));
+            if (!transactions.isEmpty()) {
+                eventArchive.append(List.of(), transactions);
+                transactionRepository.deleteByIds(transactions.stream().map(Transaction::getId).toList());
+            }
+            return transactions.size();
+        });
+    }
+
+    /**
+     * Archives the next chunk of candidate events after the (userId, sequence) position, adds the number archived to the count and returns the candidates.
+     * Only the user's events before the first transaction still in the table are archived, so the archived events stay the start of the history.
+     */
+    private List<TransactionEvent> archiveEvents(LocalDateTime cutoff, String userId, long sequence, long[] archived) {
+        return transactionTemplate.execute(status -> {
+            List<TransactionEvent> candidates = transactionEventRepository.findArchivable(userId, sequence, cutoff, PageRequest.of(0, chunkSize));
+            Map<String, Long> firstTransactionSequences = new HashMap<>();
+            List<TransactionEvent> archivable = new ArrayList<>(candidates.size());
+            for (TransactionEvent transactionEvent : candidates) {
+                long firstTransactionSequence = firstTransactionSequences.computeIfAbsent(transactionEvent.getUserId(), this::firstTransactionSequence);
+                if (transactionEvent.getSequence() < firstTransactionSequence) {
+                    archivable.add(transactionEvent);
+                }
+            }
+            if (!archivable.isEmpty()) {
+                eventArchive.append(archivable, List.of());
+                transactionEventRepository.deleteByMessageIds(archivable.stream().map(TransactionEvent::getMessageId).toList());
+            }
+            archived[0] += archivable.size();
+            return candidates;
+        });
+    }
+
+    private long firstTransactionSequence(String userId) {
+        Long sequence = transactionRepository.findFirstSequence(userId);
+        return sequence != null ? sequence : Long.MAX_VALUE;
+    }
+}
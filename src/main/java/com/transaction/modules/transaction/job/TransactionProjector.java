@@ -0,0 +1,140 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.snapshot.job.BalanceSnapshotJob;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.metrics.TransactionMetrics;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class TransactionProjector {
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @Autowired
+    private TransactionMetrics transactionMetrics;
+
+    @Getter
+    @Value("${transaction.projector.chunk-size:500}")
+    private int chunkSize;
+
+    @Getter
+    @Value("${transaction.projector.partitions:1}")
+    private int partitions;
+
+    /**
+     * Projects the next chunk of pending events of the partition into transactions and account balances and returns the number of events projected.
+     * Events are taken in sequence order, which keeps the events of each user in order through the (status, sequence) index.
+     * All events of a user hash to the same partition, so partitions project disjoint users and accounts and can run in parallel.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int projectNextChunk(int partition) {
+        List<TransactionEvent> pendingTransactionEventList = transactionEventRepository.findByStatusInPartition(
+                TransactionEventStatus.PENDING, partition, partitions, PageRequest.of(0, chunkSize));
+        if (pendingTransactionEventList.isEmpty()) {
+            return 0;
+        }
+
+        pendingTransactionEventList.forEach(transactionEvent -> transactionEvent.setStatus(TransactionEventStatus.PROCESSED));
+        project(pendingTransactionEventList);
+        transactionEventRepository.saveAll(pendingTransactionEventList);
+        return pendingTransactionEventList.size();
+    }
+
+    /**
+     * Projects events handed off after their commit without reading them back from the event table.
+     * The events are marked as projected only while still pending, if a scan has projected any of them already
+     * nothing is applied and false is returned.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean projectHandedOff(List<TransactionEvent> handedOffEvents) {
+        List<String> messageIds = handedOffEvents.stream().map(TransactionEvent::getMessageId).toList();
+        if (transactionEventRepository.markProcessed(messageIds) != handedOffEvents.size()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        project(handedOffEvents);
+        return true;
+    }
+
+    /**
+     * Projects the handed off events that are still pending, reading them back by message id.
+     * A scan projects a prefix of each user's pending events, so the events left are the latest ones of each user and stay in order.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int projectStillPending(List<TransactionEvent> handedOffEvents) {
+        Map<String, TransactionEvent> storedEvents = new HashMap<>();
+        transactionEventRepository.findAllById(handedOffEvents.stream().map(TransactionEvent::getMessageId).toList())
+                .forEach(transactionEvent -> storedEvents.put(transactionEvent.getMessageId(), transactionEvent));
+        List<TransactionEvent> pendingTransactionEventList = handedOffEvents.stream()
+                .map(transactionEvent -> storedEvents.get(transactionEvent.getMessageId()))
+                .filter(transactionEvent -> transactionEvent != null && transactionEvent.getStatus() == TransactionEventStatus.PENDING)
+                .toList();
+        if (pendingTransactionEventList.isEmpty()) {
+            return 0;
+        }
+
+        pendingTransactionEventList.forEach(transactionEvent -> transactionEvent.setStatus(TransactionEventStatus.PROCESSED));
+        project(pendingTransactionEventList);
+        transactionEventRepository.saveAll(pendingTransactionEventList);
+        return pendingTransactionEventList.size();
+    }
+
+    /*
+     * Writes of the events are batched and only the final balance, sequence and currency of each account is applied
+     */
+    private void project(List<TransactionEvent> transactionEvents) {
+        List<Transaction> transactionList = new ArrayList<>(transactionEvents.size());
+        Map<String, TransactionEvent> latestEvents = new HashMap<>();
+        Map<String, Long> eventCounts = new HashMap<>();
+        transactionEvents.forEach(transactionEvent -> {
+            transactionList.add(new Transaction(transactionEvent));
+            latestEvents.put(transactionEvent.getUserId(), transactionEvent);
+            eventCounts.merge(transactionEvent.getUserId(), 1L, Long::sum);
+        });
+        transactionRepository.saveAll(transactionList);
+
+        // Accounts already holding the events, updated by a conditional update or a rebuild, are left as they are
+        // An account updated after it was read fails the version check and the chunk is rolled back and retried
+        List<Account> accountList = accountRepository.findAllById(latestEvents.keySet()).stream()
+                .filter(account -> latestEvents.get(account.getUserId()).getSequence() > account.getLastSequence())
+                .toList();
+        accountList.forEach(account -> {
+            TransactionEvent latestEvent = latestEvents.get(account.getUserId());
+            account.setBalance(latestEvent.getRunningBalance());
+            account.setLastSequence(latestEvent.getSequence());
+            account.setCurrency(latestEvent.getCurrency());
+        });
+        accountRepository.saveAll(accountList);
+
+        // Counts the projected events towards the next balance snapshot of each user
+        eventCounts.forEach(balanceSnapshotJob::recordEvents);
+        transactionMetrics.projected(transactionEvents.size());
+    }
+}
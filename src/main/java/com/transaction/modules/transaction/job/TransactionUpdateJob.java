@@ -1,60 +1,73 @@
 package com.transaction.modules.transaction.job;
 
-import com.transaction.modules.account.entity.Account;
-import com.transaction.modules.account.repository.AccountRepository;
-import com.transaction.modules.transaction.entity.Transaction;
 import com.transaction.modules.transaction.entity.TransactionEvent;
-import com.transaction.modules.transaction.enums.TransactionEventStatus;
-import com.transaction.modules.transaction.repository.TransactionEventRepository;
-import com.transaction.modules.transaction.repository.TransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class TransactionUpdateJob {
 
     @Autowired
-    private TransactionEventRepository transactionEventRepository;
+    private TransactionProjector transactionProjector;
 
     @Autowired
-    private TransactionRepository transactionRepository;
-
-    @Autowired
-    private AccountRepository accountRepository;
+    private ProjectorHandoff projectorHandoff;
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionUpdateJob.class);
 
+    // A lock per partition instead of synchronized, so a virtual thread waiting on JDBC inside the pass does not pin its carrier thread
+    private final Map<Integer, Lock> locks = new ConcurrentHashMap<>();
+
     /*
-     * Creates a separate thread to run in background
-     * Transactional for data consistency
+     * Runs in background on the thread started by the projector trigger for the partition
+     * Events handed off to the partition are projected chunk by chunk, each chunk in its own transaction
+     * The pending events of the partition are scanned from the event table instead if the handoff requested a scan
+     * Passes of different partitions run in parallel, passes of the same partition one after the other
      */
-    @Async
     @Retryable(retryFor = {RuntimeException.class}, maxAttempts = 2, backoff = @Backoff(delay = 2000))
-    @Transactional(rollbackFor = Exception.class)
-    public synchronized void execute() {
+    public void execute(int partition) {
+        Lock lock = locks.computeIfAbsent(partition, key -> new ReentrantLock());
+        lock.lock();
         try {
-
-            List<TransactionEvent> pendingTransactionEventList = transactionEventRepository.findByStatus(TransactionEventStatus.PENDING);
-            pendingTransactionEventList.forEach(transactionEvent -> {
-                Transaction transaction = new Transaction(transactionEvent);
-                transactionRepository.save(transaction);
-                Account account = accountRepository.findByUserId(transactionEvent.getUserId());
-                account.setBalance(transactionEvent.getRunningBalance());
-                accountRepository.save(account);
-                transactionEvent.setStatus(TransactionEventStatus.PROCESSED);
-                transactionEventRepository.save(transactionEvent);
-            });
+            while (true) {
+                // Taken before the scan request, so an event that did not fit into the buffer is scanned before later events are projected
+                List<TransactionEvent> handedOffEvents = projectorHandoff.take(partition, transactionProjector.getChunkSize());
+                if (projectorHandoff.takeScanRequest(partition)) {
+                    scan(partition);
+                    return;
+                }
+                if (handedOffEvents.isEmpty()) {
+                    return;
+                }
+                // Events also projected by the last scan are skipped by reading the taken events back, instead of scanning again
+                if (!transactionProjector.projectHandedOff(handedOffEvents)) {
+                    transactionProjector.projectStillPending(handedOffEvents);
+                }
+            }
         } catch (Exception e) {
+            // Events taken from the buffer by the failed pass are only found again by a scan
+            projectorHandoff.requestScan(partition);
             logger.error(e.getMessage());
             throw e;
+        } finally {
+            lock.unlock();
         }
     }
+
+    private void scan(int partition) {
+        int projected;
+        do {
+            projected = transactionProjector.projectNextChunk(partition);
+        } while (projected == transactionProjector.getChunkSize());
+    }
 }
\ No newline at end of file
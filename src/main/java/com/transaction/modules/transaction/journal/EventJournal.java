@@ -0,0 +1,23 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * Durable append-only log of the transaction events, kept next to the event table
+ */
+public interface EventJournal {
+
+    void append(List<TransactionEvent> transactionEvents);
+
+    void appendAfterCommit(List<TransactionEvent> transactionEvents);
+
+    void replay(Consumer<TransactionEvent> consumer);
+
+    List<TransactionEvent> readUserEvents(String userId, long fromSequence);
+
+    long getFailedAppends();
+
+}
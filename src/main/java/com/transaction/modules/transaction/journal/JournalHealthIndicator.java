@@ -0,0 +1,27 @@
+package com.transaction.modules.transaction.journal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/*
+ * Health of the event journal, reported as the journal component of the actuator health endpoint
+ * A committed event that could not be journaled was acknowledged to its client without being durable,
+ * so the service is reported DOWN from the first failed append until it is restarted and the journal recovered
+ */
+@Component
+public class JournalHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Override
+    public Health health() {
+        long failedAppends = eventJournal.getFailedAppends();
+        if (failedAppends > 0) {
+            return Health.down().withDetail("failedAppends", failedAppends).build();
+        }
+        return Health.up().build();
+    }
+}
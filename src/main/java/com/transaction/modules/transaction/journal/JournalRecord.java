@@ -0,0 +1,133 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/*
+ * Binary layout of a journal record, written and read in place in the mapped segment
+ * [int payload length][int CRC32C of the payload][payload], a payload length of 0 marks the end of the segment
+ */
+final class JournalRecord {
+
+    static final int HEADER_SIZE = 8;
+
+    private static final int FIXED_PAYLOAD_SIZE = 4 * Long.BYTES + 2 + 3 * Short.BYTES;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private static final TransactionEventStatus[] STATUSES = TransactionEventStatus.values();
+
+    private JournalRecord() {
+    }
+
+    /**
+     * Returns the size of the record of the event, header included.
+     */
+    static int size(TransactionEvent transactionEvent) {
+        return HEADER_SIZE + FIXED_PAYLOAD_SIZE
+                + utf8Length(transactionEvent.getMessageId())
+                + utf8Length(transactionEvent.getUserId())
+                + utf8Length(transactionEvent.getCurrency());
+    }
+
+    /**
+     * Writes the record of the event at the position of the buffer and returns its size.
+     */
+    static int write(ByteBuffer buffer, int position, TransactionEvent transactionEvent) {
+        int payloadPosition = position + HEADER_SIZE;
+        int offset = payloadPosition;
+        buffer.putLong(offset, transactionEvent.getSequence());
+        buffer.putLong(offset += Long.BYTES, transactionEvent.getAmount());
+        buffer.putLong(offset += Long.BYTES, transactionEvent.getRunningBalance());
+        buffer.putLong(offset += Long.BYTES, transactionEvent.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.put(offset += Long.BYTES, (byte) transactionEvent.getType().ordinal());
+        buffer.put(offset += 1, (byte) transactionEvent.getStatus().ordinal());
+        offset = putString(buffer, offset + 1, transactionEvent.getMessageId());
+        offset = putString(buffer, offset, transactionEvent.getUserId());
+        offset = putString(buffer, offset, transactionEvent.getCurrency());
+
+        int payloadLength = offset - payloadPosition;
+        buffer.putInt(position + Integer.BYTES, crc(buffer, payloadPosition, payloadLength));
+        // The length is written last, a record is only visible to recovery once it is complete
+        buffer.putInt(position, payloadLength);
+        return HEADER_SIZE + payloadLength;
+    }
+
+    /**
+     * Returns the payload length of the record at the position, 0 at the end of the segment and -1 if the record is torn or corrupt.
+     */
+    static int validate(ByteBuffer buffer, int position) {
+        if (position + HEADER_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        int payloadLength = buffer.getInt(position);
+        if (payloadLength == 0) {
+            return 0;
+        }
+        if (payloadLength < FIXED_PAYLOAD_SIZE || position + HEADER_SIZE + payloadLength > buffer.capacity()) {
+            return -1;
+        }
+        return crc(buffer, position + HEADER_SIZE, payloadLength) == buffer.getInt(position + Integer.BYTES) ? payloadLength : -1;
+    }
+
+    /**
+     * Returns the user id of a validated record without decoding the rest of it.
+     */
+    static String readUserId(ByteBuffer buffer, int position) {
+        int offset = position + HEADER_SIZE + 4 * Long.BYTES + 2;
+        offset += Short.BYTES + buffer.getShort(offset);
+        return getString(buffer, offset);
+    }
+
+    /**
+     * Decodes a validated record into an event.
+     */
+    static TransactionEvent read(ByteBuffer buffer, int position) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        int offset = position + HEADER_SIZE;
+        transactionEvent.setSequence(buffer.getLong(offset));
+        transactionEvent.setAmount(buffer.getLong(offset += Long.BYTES));
+        transactionEvent.setRunningBalance(buffer.getLong(offset += Long.BYTES));
+        transactionEvent.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(offset += Long.BYTES)), ZoneOffset.UTC));
+        transactionEvent.setType(TYPES[buffer.get(offset += Long.BYTES)]);
+        transactionEvent.setStatus(STATUSES[buffer.get(offset += 1)]);
+        offset += 1;
+        transactionEvent.setMessageId(getString(buffer, offset));
+        offset += Short.BYTES + buffer.getShort(offset);
+        transactionEvent.setUserId(getString(buffer, offset));
+        offset += Short.BYTES + buffer.getShort(offset);
+        transactionEvent.setCurrency(getString(buffer, offset));
+        return transactionEvent;
+    }
+
+    private static int crc(ByteBuffer buffer, int position, int length) {
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(buffer.slice(position, length));
+        return (int) crc32c.getValue();
+    }
+
+    private static int putString(ByteBuffer buffer, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort(offset, (short) bytes.length);
+        buffer.put(offset + Short.BYTES, bytes);
+        return offset + Short.BYTES + bytes.length;
+    }
+
+    private static String getString(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset)];
+        buffer.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,141 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.snapshot.service.BalanceSnapshotService;
+import com.transaction.modules.transaction.archive.EventArchive;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.AuthorizationStrategy;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Restores the event table from the journal on startup, before the web server accepts requests
+ * Only the events of a user past the latest one in the event table are restored, so recovery over a table that already holds some or all of them restores the rest
+ * Events are journaled once their database transaction has committed, so the journal holds no event the table rejected and the restored events are pending and the projector rebuilds the transactions and account balances from them
+ * Events already in the archive are skipped and events whose transactions are archived are restored as processed, so no transaction is projected twice
+ * With conditional update authorization the account is the balance of record, so the accounts are rebuilt from the restored events before any request
+ */
+@Component
+public class JournalRecovery implements SmartLifecycle {
+
+    // Started before the web server, whose lifecycle starts 1024 phases before the graceful shutdown
+    public static final int PHASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalRecovery.class);
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private EventArchive eventArchive;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Value("${transaction.authorization.strategy:EVENT_SOURCED}")
+    private AuthorizationStrategy authorizationStrategy;
+
+    @Value("${transaction.journal.recovery-chunk-size:500}")
+    private int chunkSize;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        recover();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Runs before the web server starts and before the message id registry is seeded, so it is seeded with the restored events.
+     */
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Replays the journal into the event table and returns the number of events restored.
+     * An event is restored if its sequence is past the user's latest event in the table and in the archive.
+     */
+    public long recover() {
+        Set<String> messageIds = new HashSet<>();
+        Map<String, long[]> storedSequences = new HashMap<>();
+        List<TransactionEvent> chunk = new ArrayList<>(chunkSize);
+        long[] restored = {0};
+        eventJournal.replay(transactionEvent -> {
+            // A message id is only restored once
+            if (!messageIds.add(transactionEvent.getMessageId())) {
+                return;
+            }
+            long[] stored = storedSequences.computeIfAbsent(transactionEvent.getUserId(), this::storedSequences);
+            if (transactionEvent.getSequence() <= stored[0]) {
+                return;
+            }
+            if (transactionEvent.getSequence() <= stored[1]) {
+                transactionEvent.setStatus(TransactionEventStatus.PROCESSED);
+            }
+            chunk.add(transactionEvent);
+            if (chunk.size() == chunkSize) {
+                restored[0] += save(chunk);
+            }
+        });
+        restored[0] += save(chunk);
+
+        if (restored[0] > 0) {
+            logger.info("Restored {} transaction events from the journal", restored[0]);
+            if (authorizationStrategy == AuthorizationStrategy.CONDITIONAL_UPDATE) {
+                balanceSnapshotService.rebuildAccounts();
+            }
+        }
+        return restored[0];
+    }
+
+    /**
+     * Finds the latest sequence of the user already stored, in the event table or the archive, and the latest archived transaction.
+     */
+    private long[] storedSequences(String userId) {
+        TransactionEvent latestEvent = transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId);
+        long latestSequence = Math.max(latestEvent != null ? latestEvent.getSequence() : 0, eventArchive.lastSequence(userId));
+        return new long[]{latestSequence, eventArchive.lastTransactionSequence(userId)};
+    }
+
+    private int save(List<TransactionEvent> chunk) {
+        int size = chunk.size();
+        if (size > 0) {
+            transactionTemplate.executeWithoutResult(status -> transactionEventRepository.saveAll(chunk));
+            chunk.clear();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,73 @@
+package com.transaction.modules.transaction.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Fixed size journal file mapped into memory, records are appended at the write position
+ */
+final class JournalSegment implements AutoCloseable {
+
+    private final int number;
+
+    private final Path path;
+
+    private final FileChannel fileChannel;
+
+    private final MappedByteBuffer buffer;
+
+    private int writePosition;
+
+    JournalSegment(Path path, int number, int size) throws IOException {
+        this.number = number;
+        this.path = path;
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, fileChannel.size()));
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    void setWritePosition(int writePosition) {
+        this.writePosition = writePosition;
+    }
+
+    int remaining() {
+        return buffer.capacity() - writePosition;
+    }
+
+    /**
+     * Clears everything from the position on, so records behind a torn one are not read back after a later restart.
+     */
+    void truncate(int position) {
+        buffer.put(position, new byte[buffer.capacity() - position]);
+        writePosition = position;
+        buffer.force();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,310 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+ * Event journal written to memory mapped segment files, records are encoded in place in the mapped buffer
+ * A sparse index per user maps every few sequences to the position of the event, to read a user's history without scanning the whole journal
+ * On startup the segments are scanned and the journal is cut at the first torn or corrupt record
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.journal.enabled", havingValue = "true")
+public class MappedEventJournal implements EventJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedEventJournal.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final boolean forceOnAppend;
+
+    private final int indexInterval;
+
+    private final List<JournalSegment> segments = new ArrayList<>();
+
+    private final Map<String, NavigableMap<Long, Long>> userIndex = new HashMap<>();
+
+    private final LongAdder failedAppends = new LongAdder();
+
+    // Appends force the mapped pages to disk, a lock does not pin the carrier of a virtual thread while they do
+    private final Lock lock = new ReentrantLock();
+
+    public MappedEventJournal(@Value("${transaction.journal.directory:journal}") Path directory,
+                              @Value("${transaction.journal.segment-size:64MB}") DataSize segmentSize,
+                              @Value("${transaction.journal.force-on-append:true}") boolean forceOnAppend,
+                              @Value("${transaction.journal.index-interval:64}") int indexInterval) throws IOException {
+        if (segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal segment size cannot be larger than 2GB.");
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.forceOnAppend = forceOnAppend;
+        this.indexInterval = indexInterval;
+        Files.createDirectories(directory);
+        open();
+    }
+
+    /**
+     * Appends the events to the journal, forcing them to disk before returning if configured to.
+     */
+    @Override
+    public void append(List<TransactionEvent> transactionEvents) {
+        lock.lock();
+        try {
+            JournalSegment segment = currentSegment();
+            for (TransactionEvent transactionEvent : transactionEvents) {
+                int recordSize = JournalRecord.size(transactionEvent);
+                if (recordSize > segmentSize) {
+                    throw new IllegalArgumentException("Transaction event is larger than the journal segment.");
+                }
+                if (recordSize > segment.remaining()) {
+                    if (forceOnAppend) {
+                        segment.force();
+                    }
+                    segment = addSegment(segment.getNumber() + 1);
+                }
+                int position = segment.getWritePosition();
+                segment.setWritePosition(position + JournalRecord.write(segment.getBuffer(), position, transactionEvent));
+                index(transactionEvent.getUserId(), transactionEvent.getSequence(), segment.getNumber(), position);
+            }
+            if (forceOnAppend) {
+                segment.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the events once the current transaction has committed, or right away without a transaction.
+     * Events of a rolled back transaction are never journaled. A failed write cannot undo the commit, so it is logged and counted instead of thrown,
+     * and the count takes the journal health, and with it the service, down.
+     */
+    @Override
+    public void appendAfterCommit(List<TransactionEvent> transactionEvents) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendCommitted(transactionEvents);
+                }
+            });
+        } else {
+            appendCommitted(transactionEvents);
+        }
+    }
+
+    /**
+     * Passes every event of the journal to the consumer in the order they were appended.
+     */
+    @Override
+    public void replay(Consumer<TransactionEvent> consumer) {
+        lock.lock();
+        try {
+            for (JournalSegment segment : segments) {
+                ByteBuffer buffer = segment.getBuffer();
+                for (int position = 0; position < segment.getWritePosition(); ) {
+                    consumer.accept(JournalRecord.read(buffer, position));
+                    position += JournalRecord.HEADER_SIZE + buffer.getInt(position);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the events of the user from the sequence on, starting at the closest indexed position before it.
+     */
+    @Override
+    public List<TransactionEvent> readUserEvents(String userId, long fromSequence) {
+        lock.lock();
+        try {
+            NavigableMap<Long, Long> positions = userIndex.get(userId);
+            List<TransactionEvent> transactionEvents = new ArrayList<>();
+            if (positions == null) {
+                return transactionEvents;
+            }
+            Map.Entry<Long, Long> start = positions.floorEntry(fromSequence);
+            long globalPosition = start != null ? start.getValue() : positions.firstEntry().getValue();
+            long lastPosition = positions.lastEntry().getValue();
+
+            for (int s = segmentNumber(globalPosition) - segments.get(0).getNumber(); s < segments.size(); s++) {
+                JournalSegment segment = segments.get(s);
+                ByteBuffer buffer = segment.getBuffer();
+                int position = segment.getNumber() == segmentNumber(globalPosition) ? segmentPosition(globalPosition) : 0;
+                while (position < segment.getWritePosition()) {
+                    if (userId.equals(JournalRecord.readUserId(buffer, position))) {
+                        TransactionEvent transactionEvent = JournalRecord.read(buffer, position);
+                        if (transactionEvent.getSequence() >= fromSequence) {
+                            transactionEvents.add(transactionEvent);
+                        }
+                    }
+                    if (globalPosition(segment.getNumber(), position) >= lastPosition) {
+                        return transactionEvents;
+                    }
+                    position += JournalRecord.HEADER_SIZE + buffer.getInt(position);
+                }
+            }
+            return transactionEvents;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts the committed events that could not be journaled, a recovery from the journal would miss them.
+     */
+    @Override
+    public long getFailedAppends() {
+        return failedAppends.sum();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            for (JournalSegment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendCommitted(List<TransactionEvent> transactionEvents) {
+        try {
+            append(transactionEvents);
+        } catch (RuntimeException e) {
+            failedAppends.add(transactionEvents.size());
+            logger.error("Could not journal {} committed transaction events", transactionEvents.size(), e);
+        }
+    }
+
+    /**
+     * Maps the existing segments, validating their records and cutting the journal at the first invalid one.
+     */
+    private void open() throws IOException {
+        List<Integer> numbers;
+        try (Stream<Path> files = Files.list(directory)) {
+            numbers = files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+
+        boolean truncated = false;
+        for (int number : numbers) {
+            if (truncated) {
+                logger.warn("Deleting journal segment {} written after a torn record", number);
+                Files.delete(segmentPath(number));
+                continue;
+            }
+            JournalSegment segment = new JournalSegment(segmentPath(number), number, segmentSize);
+            segments.add(segment);
+            truncated = !scan(segment);
+        }
+        if (segments.isEmpty()) {
+            addSegment(0);
+        }
+    }
+
+    /**
+     * Indexes the records of a segment and sets its write position after the last valid record.
+     * Returns false if the segment ended with a torn or corrupt record.
+     */
+    private boolean scan(JournalSegment segment) {
+        ByteBuffer buffer = segment.getBuffer();
+        int position = 0;
+        while (true) {
+            int payloadLength = JournalRecord.validate(buffer, position);
+            if (payloadLength == 0) {
+                segment.setWritePosition(position);
+                return true;
+            }
+            if (payloadLength < 0) {
+                logger.warn("Truncating journal segment {} at position {} after a torn or corrupt record", segment.getNumber(), position);
+                segment.truncate(position);
+                return false;
+            }
+            TransactionEvent transactionEvent = JournalRecord.read(buffer, position);
+            index(transactionEvent.getUserId(), transactionEvent.getSequence(), segment.getNumber(), position);
+            position += JournalRecord.HEADER_SIZE + payloadLength;
+        }
+    }
+
+    /**
+     * Indexes the first sequence of the user, every index interval sequence and always the latest one.
+     */
+    private void index(String userId, long sequence, int segmentNumber, int position) {
+        NavigableMap<Long, Long> positions = userIndex.computeIfAbsent(userId, key -> new TreeMap<>());
+        Map.Entry<Long, Long> last = positions.lastEntry();
+        if (positions.size() > 1 && last.getKey() % indexInterval != 0) {
+            positions.remove(last.getKey());
+        }
+        positions.put(sequence, globalPosition(segmentNumber, position));
+    }
+
+    private JournalSegment currentSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private JournalSegment addSegment(int number) {
+        try {
+            JournalSegment segment = new JournalSegment(segmentPath(number), number, segmentSize);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve("journal-" + number + ".log");
+    }
+
+    private static long globalPosition(int segmentNumber, int position) {
+        return ((long) segmentNumber << 32) | position;
+    }
+
+    private static int segmentNumber(long globalPosition) {
+        return (int) (globalPosition >>> 32);
+    }
+
+    private static int segmentPosition(long globalPosition) {
+        return (int) globalPosition;
+    }
+}
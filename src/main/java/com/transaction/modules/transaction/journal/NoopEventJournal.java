@@ -0,0 +1,38 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * Journal used when the journal is disabled, events are only kept in the event table
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.journal.enabled", havingValue = "false", matchIfMissing = true)
+public class NoopEventJournal implements EventJournal {
+
+    @Override
+    public void append(List<TransactionEvent> transactionEvents) {
+    }
+
+    @Override
+    public void appendAfterCommit(List<TransactionEvent> transactionEvents) {
+    }
+
+    @Override
+    public void replay(Consumer<TransactionEvent> consumer) {
+    }
+
+    @Override
+    public List<TransactionEvent> readUserEvents(String userId, long fromSequence) {
+        return List.of();
+    }
+
+    @Override
+    public long getFailedAppends() {
+        return 0;
+    }
+}
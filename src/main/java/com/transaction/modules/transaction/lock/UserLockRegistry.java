@@ -0,0 +1,35 @@
+package com.transaction.modules.transaction.lock;
+
+import com.google.common.util.concurrent.Striped;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/*
+ * Serializes the work of a single user with a fixed set of striped locks
+ * Different users run in parallel unless they hash to the same stripe
+ */
+@Component
+public class UserLockRegistry {
+
+    private final Striped<Lock> locks;
+
+    public UserLockRegistry(@Value("${transaction.user-lock.stripes:1024}") int stripes) {
+        this.locks = Striped.lock(stripes);
+    }
+
+    /**
+     * Runs the action while holding the lock of the given user.
+     */
+    public <T> T execute(String userId, Supplier<T> action) {
+        Lock lock = locks.get(userId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
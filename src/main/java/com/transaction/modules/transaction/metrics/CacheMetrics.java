@@ -0,0 +1,57 @@
+package com.transaction.modules.transaction.metrics;
+
+import com.transaction.modules.account.cache.AccountRegistry;
+import com.transaction.modules.transaction.cache.BalanceCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/*
+ * Hits, misses and sizes of the balance cache and of the account registry
+ * Published with the cache.gets and cache.size names of the Micrometer cache binders, tagged with the cache
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private AccountRegistry accountRegistry;
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        bindGets("balances", balanceCache, BalanceCache::getHitCount, BalanceCache::getMissCount, meterRegistry);
+        Gauge.builder("cache.size", balanceCache, BalanceCache::size)
+                .description("Users with a cached balance")
+                .tag("cache", "balances")
+                .register(meterRegistry);
+
+        bindGets("accounts", accountRegistry, AccountRegistry::getHitCount, AccountRegistry::getMissCount, meterRegistry);
+        Gauge.builder("cache.size", accountRegistry, AccountRegistry::size)
+                .description("User ids cached as existing or unknown accounts")
+                .tag("cache", "accounts")
+                .register(meterRegistry);
+        Gauge.builder("account.registry.hit.ratio", accountRegistry, AccountRegistry::getHitRatio)
+                .description("Ratio of the account existence checks answered without querying the database")
+                .register(meterRegistry);
+    }
+
+    private static <T> void bindGets(String cache, T source, ToDoubleFunction<T> hits, ToDoubleFunction<T> misses, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("cache.gets", source, hits)
+                .description("Cache lookups, answered from the cache or read from the database")
+                .tag("cache", cache)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", source, misses)
+                .description("Cache lookups, answered from the cache or read from the database")
+                .tag("cache", cache)
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.transaction.modules.transaction.metrics;
+
+import com.transaction.modules.transaction.journal.EventJournal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/*
+ * Meters of the event journal
+ * A committed event that could not be journaled is logged by the journal and reported DOWN by its health indicator, the counter makes the loss visible over time
+ */
+@Component
+public class JournalMetrics implements MeterBinder {
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("transaction.journal.failed.appends", eventJournal, EventJournal::getFailedAppends)
+                .description("Committed events that could not be journaled")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,171 @@
+package com.transaction.modules.transaction.metrics;
+
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.job.ProjectorExecutor;
+import com.transaction.modules.transaction.job.ProjectorHandoff;
+import com.transaction.modules.transaction.repository.PartitionBacklog;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Gauges of the projector lag, of the projector handoff and of the projector executor
+ * The pending count and the age of the oldest pending event, in total and per projector partition, are read from the event table in one grouped query
+ * The result is reused by the scrapes within the refresh interval, the ages keep growing from the creation times it read
+ */
+@Component
+public class ProjectorMetrics implements MeterBinder {
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private ProjectorExecutor projectorExecutor;
+
+    @Autowired
+    private ProjectorHandoff projectorHandoff;
+
+    @Value("${transaction.projector.partitions:1}")
+    private int partitions;
+
+    @Value("${transaction.projector.metrics.refresh-interval:5s}")
+    private Duration refreshInterval;
+
+    private final Lock refreshLock = new ReentrantLock();
+
+    private volatile Backlog backlog;
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("transaction.projector.pending", this, ProjectorMetrics::pendingEvents)
+                .description("Events waiting to be projected")
+                .register(meterRegistry);
+        TimeGauge.builder("transaction.projector.oldest.pending.age", this, TimeUnit.MILLISECONDS, ProjectorMetrics::oldestPendingAgeMillis)
+                .description("Age of the oldest event waiting to be projected")
+                .register(meterRegistry);
+        for (int partition = 0; partition < partitions; partition++) {
+            int projectorPartition = partition;
+            Gauge.builder("transaction.projector.partition.pending", this, metrics -> metrics.pendingEvents(projectorPartition))
+                    .description("Events waiting to be projected by the partition")
+                    .tag("partition", String.valueOf(partition))
+                    .register(meterRegistry);
+            TimeGauge.builder("transaction.projector.partition.oldest.pending.age", this, TimeUnit.MILLISECONDS,
+                            metrics -> metrics.oldestPendingAgeMillis(projectorPartition))
+                    .description("Age of the oldest event waiting to be projected by the partition")
+                    .tag("partition", String.valueOf(partition))
+                    .register(meterRegistry);
+        }
+
+        FunctionCounter.builder("transaction.projector.handoff.events", projectorHandoff, ProjectorHandoff::getHandedOffCount)
+                .description("Events handed off to the projector after their commit")
+                .register(meterRegistry);
+        FunctionCounter.builder("transaction.projector.handoff.dropped", projectorHandoff, ProjectorHandoff::getDroppedCount)
+                .description("Handed off events dropped for a scan of the event table")
+                .register(meterRegistry);
+        Gauge.builder("transaction.projector.handoff.buffered", projectorHandoff, ProjectorHandoff::getBuffered)
+                .description("Handed off events waiting to be projected")
+                .register(meterRegistry);
+
+        Gauge.builder("transaction.projector.executor.queued", projectorExecutor, ProjectorExecutor::getQueueDepth)
+                .description("Projector passes waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("transaction.projector.executor.active", projectorExecutor, ProjectorExecutor::getActiveWorkers)
+                .description("Projector workers running a pass")
+                .register(meterRegistry);
+        FunctionCounter.builder("transaction.projector.executor.rejected", projectorExecutor, ProjectorExecutor::getRejectedCount)
+                .description("Projector passes rejected by a full executor")
+                .register(meterRegistry);
+        FunctionCounter.builder("transaction.projector.executor.completed", projectorExecutor, ProjectorExecutor::getCompletedCount)
+                .description("Projector passes completed")
+                .register(meterRegistry);
+        TimeGauge.builder("transaction.projector.executor.latency.average", projectorExecutor, TimeUnit.MILLISECONDS,
+                        executor -> executor.getAverageLatency().toMillis())
+                .description("Average time from submission to completion of a projector pass")
+                .register(meterRegistry);
+        TimeGauge.builder("transaction.projector.executor.latency.max", projectorExecutor, TimeUnit.MILLISECONDS,
+                        executor -> executor.getMaxLatency().toMillis())
+                .description("Longest time from submission to completion of a projector pass")
+                .register(meterRegistry);
+    }
+
+    private double pendingEvents() {
+        long pending = 0;
+        for (long events : backlog().events) {
+            pending += events;
+        }
+        return pending;
+    }
+
+    private double oldestPendingAgeMillis() {
+        LocalDateTime oldest = null;
+        for (LocalDateTime createdAt : backlog().oldestCreatedAt) {
+            if (createdAt != null && (oldest == null || createdAt.isBefore(oldest))) {
+                oldest = createdAt;
+            }
+        }
+        return ageMillis(oldest);
+    }
+
+    private double pendingEvents(int partition) {
+        return backlog().events[partition];
+    }
+
+    private double oldestPendingAgeMillis(int partition) {
+        return ageMillis(backlog().oldestCreatedAt[partition]);
+    }
+
+    /**
+     * Returns the pending events per partition, read again once the last read is older than the refresh interval.
+     */
+    private Backlog backlog() {
+        Backlog current = backlog;
+        if (current != null && System.nanoTime() - current.readAt < refreshInterval.toNanos()) {
+            return current;
+        }
+        refreshLock.lock();
+        try {
+            current = backlog;
+            if (current == null || System.nanoTime() - current.readAt >= refreshInterval.toNanos()) {
+                current = new Backlog(partitions);
+                for (PartitionBacklog partitionBacklog : transactionEventRepository.summarizeByPartition(TransactionEventStatus.PENDING, partitions)) {
+                    current.events[partitionBacklog.getPartition()] = partitionBacklog.getEvents();
+                    current.oldestCreatedAt[partitionBacklog.getPartition()] = partitionBacklog.getOldestCreatedAt();
+                }
+                backlog = current;
+            }
+            return current;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private static double ageMillis(LocalDateTime oldest) {
+        return oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis();
+    }
+
+    private static final class Backlog {
+
+        private final long readAt = System.nanoTime();
+
+        private final long[] events;
+
+        private final LocalDateTime[] oldestCreatedAt;
+
+        private Backlog(int partitions) {
+            this.events = new long[partitions];
+            this.oldestCreatedAt = new LocalDateTime[partitions];
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.transaction.modules.transaction.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/*
+ * Meters of the transaction hot path
+ * Load and authorize latencies are published as p50/p99/p999 and as a histogram for aggregation across instances
+ */
+@Component
+public class TransactionMetrics {
+
+    private final Timer loadTimer;
+
+    private final Timer authorizeTimer;
+
+    private final Counter approvedAuthorizations;
+
+    private final Counter declinedAuthorizations;
+
+    private final Counter projectedEvents;
+
+    public TransactionMetrics(MeterRegistry meterRegistry) {
+        this.loadTimer = requestTimer("load", meterRegistry);
+        this.authorizeTimer = requestTimer("authorize", meterRegistry);
+        this.approvedAuthorizations = Counter.builder("transaction.authorizations")
+                .description("Authorizations decided")
+                .tag("status", "approved")
+                .register(meterRegistry);
+        this.declinedAuthorizations = Counter.builder("transaction.authorizations")
+                .description("Authorizations decided")
+                .tag("status", "declined")
+                .register(meterRegistry);
+        this.projectedEvents = Counter.builder("transaction.projector.events")
+                .description("Events projected into transactions and account balances")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Times a load, lock wait included.
+     */
+    public <T> T recordLoad(Supplier<T> load) {
+        return loadTimer.record(load);
+    }
+
+    /**
+     * Times an authorization, lock wait included.
+     */
+    public <T> T recordAuthorize(Supplier<T> authorize) {
+        return authorizeTimer.record(authorize);
+    }
+
+    public void approved() {
+        approvedAuthorizations.increment();
+    }
+
+    public void declined() {
+        declinedAuthorizations.increment();
+    }
+
+    public void projected(int events) {
+        projectedEvents.increment(events);
+    }
+
+    private static Timer requestTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder("transaction.requests")
+                .description("Latency of load and authorize requests")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,27 @@
+package com.transaction.modules.transaction.repository;
+
+import lombok.Getter;
+
+/*
+ * Summary of the events of a user after a given sequence
+ */
+@Getter
+public class EventTail {
+
+    private final long events;
+
+    // Net balance change in minor units, failed events do not change the balance
+    private final long balanceChange;
+
+    // Sequence of the first event, 0 without events
+    private final long firstSequence;
+
+    private final long lastSequence;
+
+    public EventTail(Long events, Long balanceChange, Long firstSequence, Long lastSequence) {
+        this.events = events;
+        this.balanceChange = balanceChange;
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+    }
+}
@@ -0,0 +1,25 @@
+package com.transaction.modules.transaction.repository;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/*
+ * Events with a status in one projector partition
+ */
+@Getter
+public class PartitionBacklog {
+
+    private final int partition;
+
+    private final long events;
+
+    // Creation time of the oldest event
+    private final LocalDateTime oldestCreatedAt;
+
+    public PartitionBacklog(Integer partition, Long events, LocalDateTime oldestCreatedAt) {
+        this.partition = partition;
+        this.events = events;
+        this.oldestCreatedAt = oldestCreatedAt;
+    }
+}
@@ -2,20 +2,77 @@ package com.transaction.modules.transaction.repository;
 
 import com.transaction.modules.transaction.entity.TransactionEvent;
 import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionEventRepository extends JpaRepository<TransactionEvent, String> {
 
-    List<TransactionEvent> findByStatus(TransactionEventStatus status);
+    List<TransactionEvent> findByStatus(TransactionEventStatus status, Pageable pageable);
 
-    // To obtain the updated balance from the transaction event table
-    @Query("SELECT runningBalance FROM TransactionEvent WHERE userId = :userId ORDER BY createdAt DESC LIMIT 1")
-    Double getLatestRunningBalanceByUserId(@Param("userId") String userId);
+    long countByStatus(TransactionEventStatus status);
 
+    // Creation time of the oldest event with the status, to measure how far the projector lags behind
+    @Query("SELECT MIN(e.createdAt) FROM TransactionEvent e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") TransactionEventStatus status);
+
+    // Events with the status in the projector partition, in sequence order
+    // Only the status prefix of the (status, sequence) index applies, the partition is filtered per row as no index serves MOD(userHash, partitions)
+    @Query("SELECT e FROM TransactionEvent e WHERE e.status = :status AND MOD(e.userHash, :partitions) = :partition ORDER BY e.sequence")
+    List<TransactionEvent> findByStatusInPartition(@Param("status") TransactionEventStatus status, @Param("partition") int partition,
+                                                   @Param("partitions") int partitions, Pageable pageable);
+
+    // Count and oldest creation time of the events with the status per projector partition, in one read of the status range of the index
+    // The partition is computed in a derived table, as a database cannot group by an expression holding a parameter
+    @Query("SELECT new com.transaction.modules.transaction.repository.PartitionBacklog(p.userPartition, COUNT(*), MIN(p.createdAt)) "
+            + "FROM (SELECT MOD(e.userHash, :partitions) AS userPartition, e.createdAt AS createdAt FROM TransactionEvent e WHERE e.status = :status) p "
+            + "GROUP BY p.userPartition")
+    List<PartitionBacklog> summarizeByPartition(@Param("status") TransactionEventStatus status, @Param("partitions") int partitions);
+
+    // Marks the handed off events as projected, the count is short of the ids if a scan has projected any of them already
+    @Modifying
+    @Query("UPDATE TransactionEvent e SET e.status = com.transaction.modules.transaction.enums.TransactionEventStatus.PROCESSED "
+            + "WHERE e.messageId IN :messageIds AND e.status = com.transaction.modules.transaction.enums.TransactionEventStatus.PENDING")
+    int markProcessed(@Param("messageIds") Collection<String> messageIds);
+
+    // To obtain the latest event of the user, served by the (userId, sequence) index
+    TransactionEvent findFirstByUserIdOrderBySequenceDesc(String userId);
+
+    TransactionEvent findFirstByUserIdOrderBySequenceAsc(String userId);
+
+    // Sequence of the user's latest event without reading the event itself, null if the user has no events
+    @Query("SELECT MAX(e.sequence) FROM TransactionEvent e WHERE e.userId = :userId")
+    Long findLatestSequence(@Param("userId") String userId);
+
+    // Folds the user's events after the sequence in the database, served by the (userId, sequence) index
+    @Query("SELECT new com.transaction.modules.transaction.repository.EventTail(COUNT(e), "
+            + "COALESCE(SUM(CASE WHEN e.status = com.transaction.modules.transaction.enums.TransactionEventStatus.FAILED THEN 0 "
+            + "WHEN e.type = com.transaction.modules.transaction.enums.TransactionType.CREDIT THEN e.amount ELSE -e.amount END), 0), "
+            + "COALESCE(MIN(e.sequence), 0), COALESCE(MAX(e.sequence), :sequence)) "
+            + "FROM TransactionEvent e WHERE e.userId = :userId AND e.sequence > :sequence")
+    EventTail summarizeTail(@Param("userId") String userId, @Param("sequence") long sequence);
+
+    @Query("SELECT messageId FROM TransactionEvent")
+    Stream<String> streamAllMessageIds();
+
+    // Projected or declined events created before the horizon, after the (userId, sequence) position and in the order of that index
+    // The latest event of every user is left in the table, so the user's balance and sequence can still be read from it
+    @Query("SELECT e FROM TransactionEvent e WHERE (e.userId > :userId OR (e.userId = :userId AND e.sequence > :sequence)) "
+            + "AND e.createdAt < :horizon AND e.status <> com.transaction.modules.transaction.enums.TransactionEventStatus.PENDING "
+            + "AND e.sequence < (SELECT MAX(l.sequence) FROM TransactionEvent l WHERE l.userId = e.userId) ORDER BY e.userId, e.sequence")
+    List<TransactionEvent> findArchivable(@Param("userId") String userId, @Param("sequence") long sequence,
+                                          @Param("horizon") LocalDateTime horizon, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TransactionEvent e WHERE e.messageId IN :messageIds")
+    int deleteByMessageIds(@Param("messageIds") Collection<String> messageIds);
 }
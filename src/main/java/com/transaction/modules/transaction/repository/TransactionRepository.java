@@ -1,12 +1,57 @@
 package com.transaction.modules.transaction.repository;
 
 import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.enums.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
     List<Transaction> findByUserId(String userId);
+
+    // The user's transactions before the cursor id, newest first, seeked through the (userId, id DESC) index so the cost does not depend on the page depth
+    // The order names userId as well, the database only reads the index in order when the order matches all of its columns
+    // A null from or to leaves that end of the date range open, the range is checked on the rows read from the index either way
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.id < :cursor AND t.type IN :types "
+            + "AND (:from IS NULL OR t.createdAt >= :from) AND (:to IS NULL OR t.createdAt < :to) ORDER BY t.userId, t.id DESC")
+    List<Transaction> findHistory(@Param("userId") String userId, @Param("cursor") long cursor, @Param("types") Collection<TransactionType> types,
+                                  @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    // Every transaction in the range in id order, the primary key already has that order so the database streams the rows without sorting them
+    // Read only, the loaded entities keep no snapshot for dirty checking
+    // A null from or to leaves that end of the date range open, as in the history query
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Transaction t WHERE (:from IS NULL OR t.createdAt >= :from) AND (:to IS NULL OR t.createdAt < :to) ORDER BY t.id")
+    Stream<Transaction> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // The user's transactions in the range newest first, in the order of the (userId, id DESC) index for the same reason
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId "
+            + "AND (:from IS NULL OR t.createdAt >= :from) AND (:to IS NULL OR t.createdAt < :to) ORDER BY t.userId, t.id DESC")
+    Stream<Transaction> streamForExport(@Param("userId") String userId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Transactions created before the horizon in id order, which is the order they were projected in, except the one of the user's latest event
+    @Query("SELECT t FROM Transaction t WHERE t.createdAt < :horizon "
+            + "AND t.sequence < (SELECT MAX(e.sequence) FROM TransactionEvent e WHERE e.userId = t.userId) ORDER BY t.id")
+    List<Transaction> findArchivable(@Param("horizon") LocalDateTime horizon, Pageable pageable);
+
+    // Event sequence of the user's first transaction in the table, null without transactions
+    @Query("SELECT MIN(t.sequence) FROM Transaction t WHERE t.userId = :userId")
+    Long findFirstSequence(@Param("userId") String userId);
+
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
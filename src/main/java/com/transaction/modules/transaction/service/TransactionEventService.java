@@ -2,8 +2,10 @@ package com.transaction.modules.transaction.service;
 
 
 import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.BatchRequest;
 import com.transaction.modules.transaction.controller.request.LoadRequest;
 import com.transaction.modules.transaction.controller.response.AuthorizationResponse;
+import com.transaction.modules.transaction.controller.response.BatchResponse;
 import com.transaction.modules.transaction.controller.response.LoadResponse;
 
 public interface TransactionEventService {
@@ -12,4 +14,6 @@ public interface TransactionEventService {
 
     AuthorizationResponse authorize(AuthorizationRequest authorizationRequest, String messageId);
 
+    BatchResponse batch(BatchRequest batchRequest);
+
 }
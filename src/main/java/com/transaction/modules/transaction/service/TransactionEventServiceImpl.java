@@ -1,22 +1,54 @@
 package com.transaction.modules.transaction.service;
 
+import com.google.common.collect.Lists;
+import com.transaction.modules.account.cache.AccountRegistry;
 import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.cache.BalanceCache;
+import com.transaction.modules.transaction.cache.MessageIdRegistry;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.commit.EventGroupCommitter;
 import com.transaction.modules.transaction.controller.request.Amount;
 import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.BatchItemRequest;
+import com.transaction.modules.transaction.controller.request.BatchRequest;
 import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.controller.request.TransactionRequest;
 import com.transaction.modules.transaction.controller.response.AuthorizationResponse;
+import com.transaction.modules.transaction.controller.response.BatchItemResponse;
+import com.transaction.modules.transaction.controller.response.BatchResponse;
 import com.transaction.modules.transaction.controller.response.LoadResponse;
 import com.transaction.modules.transaction.entity.TransactionEvent;
 import com.transaction.modules.transaction.enums.AuthorizationStatus;
+import com.transaction.modules.transaction.enums.AuthorizationStrategy;
 import com.transaction.modules.transaction.enums.TransactionEventStatus;
 import com.transaction.modules.transaction.enums.TransactionType;
-import com.transaction.modules.transaction.job.TransactionUpdateJob;
+import com.transaction.modules.transaction.job.ProjectorHandoff;
+import com.transaction.modules.transaction.job.ProjectorTrigger;
+import com.transaction.modules.transaction.journal.EventJournal;
+import com.transaction.modules.transaction.lock.UserLockRegistry;
+import com.transaction.modules.transaction.metrics.TransactionMetrics;
 import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public class TransactionEventServiceImpl implements TransactionEventService {
@@ -28,97 +60,440 @@ public class TransactionEventServiceImpl implements TransactionEventService {
     private AccountRepository accountRepository;
 
     @Autowired
-    private TransactionUpdateJob transactionUpdateJob;
+    private ProjectorTrigger projectorTrigger;
+
+    @Autowired
+    private ProjectorHandoff projectorHandoff;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private UserLockRegistry userLockRegistry;
+
+    @Autowired
+    private MessageIdRegistry messageIdRegistry;
+
+    @Autowired
+    private AccountRegistry accountRegistry;
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private EventGroupCommitter eventGroupCommitter;
+
+    @Autowired
+    private TransactionMetrics transactionMetrics;
+
+    @Value("${transaction.group-commit.enabled:true}")
+    private boolean groupCommitEnabled;
+
+    @Value("${transaction.authorization.strategy:EVENT_SOURCED}")
+    private AuthorizationStrategy authorizationStrategy;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Value("${transaction.batch.chunk-size:500}")
+    private int batchChunkSize;
 
     /**
      * Adds credit amount to the user's balance based on the provided load request.
      */
     public TransactionEvent addCreditAmount(LoadRequest loadRequest) {
-        Double balance = this.findCurrentBalance(loadRequest.getUserId());
-        balance += Double.parseDouble(loadRequest.getTransactionAmount().getAmount());
-        return new TransactionEvent(loadRequest, balance);
+        long amount = Money.parse(loadRequest.getTransactionAmount().getAmount());
+        UserBalance latestBalance = this.findLatestBalance(loadRequest.getUserId());
+        long balance = Math.addExact(latestBalance.getBalance(), amount);
+        return new TransactionEvent(loadRequest, amount, balance, latestBalance.getSequence() + 1);
     }
 
     /**
      * Deducts debit amount from the user's balance for authorization request with the given balance and transaction event status.
      */
     public TransactionEvent deductDebitAmount
-    (AuthorizationRequest authorizationRequest, Double balance, TransactionEventStatus transactionEventStatus) {
+    (AuthorizationRequest authorizationRequest, long amount, UserBalance latestBalance, TransactionEventStatus transactionEventStatus) {
+        long balance = latestBalance.getBalance();
         if (transactionEventStatus == TransactionEventStatus.PENDING) {
-            balance -= Double.parseDouble(authorizationRequest.getTransactionAmount().getAmount());
+            balance -= amount;
+        }
+        return new TransactionEvent(authorizationRequest, amount, balance, latestBalance.getSequence() + 1, transactionEventStatus);
+    }
+
+    /**
+     * Finds the current balance in minor units of the user identified by the provided user ID.
+     */
+    public long findCurrentBalance(String userId) {
+        return findLatestBalance(userId).getBalance();
+    }
+
+    /**
+     * Finds the balance and the sequence of the latest event of the user.
+     * It is served from the cache and only loaded from the database on a cache miss.
+     */
+    public UserBalance findLatestBalance(String userId) {
+        UserBalance userBalance = balanceCache.get(userId);
+        if (userBalance == null) {
+            userBalance = loadLatestBalance(userId);
+            balanceCache.put(userId, userBalance);
         }
-        return new TransactionEvent(authorizationRequest, balance, transactionEventStatus);
+        return userBalance;
     }
 
     /**
-     * Finds the current balance of the user identified by the provided user ID.
+     * Loads the balance from the latest transaction event, a user without events starts from 0.
      */
-    public Double findCurrentBalance(String userId) {
-        Double balance = transactionEventRepository.getLatestRunningBalanceByUserId(userId);
-        if (balance == null) {
-            balance = 0.0;
+    private UserBalance loadLatestBalance(String userId) {
+        TransactionEvent latestEvent = transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId);
+        if (latestEvent != null) {
+            return new UserBalance(latestEvent.getRunningBalance(), latestEvent.getSequence());
         }
-        return balance;
+        return new UserBalance(0, 0);
+    }
+
+    /**
+     * Saves the event, hands it off to the projector, writes it to the journal and advances the cached balance and sequence of the user.
+     * With group commit the event is committed together with the events of concurrent requests.
+     * If the save fails, or the wait for the group is interrupted after the group committed, the cached state of the user is dropped.
+     */
+    private void appendEvent(TransactionEvent transactionEvent) {
+        try {
+            if (groupCommitEnabled) {
+                eventGroupCommitter.commit(transactionEvent);
+            } else {
+                transactionEventRepository.save(transactionEvent);
+                projectorHandoff.handOffAfterCommit(List.of(transactionEvent));
+                eventJournal.appendAfterCommit(List.of(transactionEvent));
+            }
+        } catch (RuntimeException e) {
+            balanceCache.invalidate(transactionEvent.getUserId());
+            throw e;
+        }
+        advance(transactionEvent);
+    }
+
+    /**
+     * Records the message id of the event and advances the cached balance and sequence of the user.
+     */
+    private void advance(TransactionEvent transactionEvent) {
+        messageIdRegistry.record(transactionEvent);
+        cacheBalance(transactionEvent);
+    }
+
+    private void cacheBalance(TransactionEvent transactionEvent) {
+        balanceCache.put(transactionEvent.getUserId(), new UserBalance(transactionEvent.getRunningBalance(), transactionEvent.getSequence()));
+    }
+
+    /**
+     * Records the message id of an event saved by a conditional update and advances the cached balance and sequence of the user.
+     * The account row is the balance of record here, so the cache is only advanced, never moved back to an older sequence.
+     */
+    private void advanceConditional(TransactionEvent transactionEvent) {
+        messageIdRegistry.record(transactionEvent);
+        balanceCache.advance(transactionEvent.getUserId(), new UserBalance(transactionEvent.getRunningBalance(), transactionEvent.getSequence()));
+    }
+
+    /**
+     * Credits the account and saves the event in one database transaction, the event takes the balance and sequence of the updated account.
+     * The cached balance and sequence of the user are advanced once the event is saved.
+     */
+    private TransactionEvent creditAccount(LoadRequest loadRequest, long amount) {
+        TransactionEvent transactionEvent = transactionTemplate.execute(status -> {
+            String userId = loadRequest.getUserId();
+            if (accountRepository.credit(userId, amount, loadRequest.getTransactionAmount().getCurrency()) == 0) {
+                throw new IllegalArgumentException("User not found for user id " + userId);
+            }
+            UserBalance userBalance = accountRepository.findUserBalance(userId);
+            return saveEvent(new TransactionEvent(loadRequest, amount, userBalance.getBalance(), userBalance.getSequence()));
+        });
+        advanceConditional(transactionEvent);
+        return transactionEvent;
+    }
+
+    /**
+     * Debits the account in one conditional statement and saves the event in the same database transaction.
+     * The authorization is approved if the statement updated the account and declined if the balance did not cover the amount,
+     * a declined event still takes the next sequence of the account.
+     */
+    private TransactionEvent debitAccount(AuthorizationRequest authorizationRequest, long amount) {
+        TransactionEvent transactionEvent = transactionTemplate.execute(status -> {
+            String userId = authorizationRequest.getUserId();
+            boolean covered = accountRepository.debitIfCovered(userId, amount, authorizationRequest.getTransactionAmount().getCurrency()) == 1;
+            if (!covered) {
+                accountRepository.advanceSequence(userId);
+            }
+            UserBalance userBalance = accountRepository.findUserBalance(userId);
+            return saveEvent(new TransactionEvent(authorizationRequest, amount, userBalance.getBalance(), userBalance.getSequence(),
+                    covered ? TransactionEventStatus.PENDING : TransactionEventStatus.FAILED));
+        });
+        advanceConditional(transactionEvent);
+        return transactionEvent;
+    }
+
+    /**
+     * Saves the event in the current database transaction, hands it off to the projector and writes it to the journal after the commit.
+     */
+    private TransactionEvent saveEvent(TransactionEvent transactionEvent) {
+        transactionEventRepository.save(transactionEvent);
+        projectorHandoff.handOffAfterCommit(List.of(transactionEvent));
+        eventJournal.appendAfterCommit(List.of(transactionEvent));
+        return transactionEvent;
     }
 
     /**
      * Loads money into the account based on the provided load request
+     * Requests of the same user are serialized so that each one reads the balance written by the previous one
+     * A retry of an already processed request is answered with the original event
      * It will start a job separately to update the transaction and account balance to be run in background
      */
     @Override
     public LoadResponse load(LoadRequest loadRequest, String messageId) {
-        validateMessageId(loadRequest.getMessageId(), messageId);
-        validateTransactionType(loadRequest.getTransactionAmount().getDebitOrCredit(), TransactionType.CREDIT);
-        validateAccount(loadRequest.getUserId());
-
-        TransactionEvent transactionEvent = addCreditAmount(loadRequest);
-        transactionEventRepository.save(transactionEvent);
+        return transactionMetrics.recordLoad(() -> userLockRegistry.execute(loadRequest.getUserId(), () -> {
+            LoadResponse loadResponse = answerConcurrentDuplicate(messageId,
+                    () -> applyLoad(loadRequest, messageId, messageIdRegistry::find, this::appendEvent));
 
-        // Starts a separate thread to run in background
-        transactionUpdateJob.execute();
+            // Signals the projector partition of the user to run in background
+            projectorTrigger.signal(loadRequest.getUserId());
 
-        Amount amount = new Amount(transactionEvent);
-        return new LoadResponse(transactionEvent, amount);
+            return loadResponse;
+        }));
     }
 
     /**
      * Authorizes a transaction based on the provided authorization request and message ID.
+     * Requests of the same user are serialized so that concurrent authorizations cannot overdraw the account
+     * and their events are handed off, journaled and projected in sequence order, also with the conditional update
+     * A retry of an already processed request is answered with the outcome of the original event
      * It will start a job separately to update the transaction and account balance to be run in background
      */
     @Override
     public AuthorizationResponse authorize(AuthorizationRequest authorizationRequest, String messageId) {
-        validateMessageId(authorizationRequest.getMessageId(), messageId);
+        return transactionMetrics.recordAuthorize(() -> userLockRegistry.execute(authorizationRequest.getUserId(), () -> {
+            AuthorizationResponse authorizationResponse = answerConcurrentDuplicate(messageId,
+                    () -> applyAuthorization(authorizationRequest, messageId, messageIdRegistry::find, this::appendEvent));
+
+            // Signals the projector partition of the user to run in background
+            projectorTrigger.signal(authorizationRequest.getUserId());
+
+            return authorizationResponse;
+        }));
+    }
+
+    /**
+     * Applies a request, and applies it again if its message id was saved by a concurrent request in the meantime.
+     * Only requests of the same user are serialized, so a request of another user with the same message id can pass the message id check
+     * at the same time and fail on the primary key instead. Applied again, the request is answered as a retry or rejected as a duplicate.
+     */
+    private <T> T answerConcurrentDuplicate(String messageId, Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (DataIntegrityViolationException e) {
+            Optional<TransactionEvent> savedEvent = transactionEventRepository.findById(messageId);
+            if (savedEvent.isEmpty()) {
+                throw e;
+            }
+            messageIdRegistry.record(savedEvent.get());
+            return request.get();
+        }
+    }
+
+    /**
+     * Applies the items of a batch, items of different users in parallel and items of the same user in order.
+     * The events of each user are saved in chunks, with one database transaction per chunk.
+     * It will start a job separately to update the transaction and account balance to be run in background
+     */
+    @Override
+    public BatchResponse batch(BatchRequest batchRequest) {
+        List<BatchItemRequest> items = batchRequest.getItems();
+        BatchItemResponse[] results = new BatchItemResponse[items.size()];
+        Map<String, List<Integer>> itemsByUser = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            itemsByUser.computeIfAbsent(items.get(i).getUserId(), userId -> new ArrayList<>()).add(i);
+        }
+
+        List<CompletableFuture<Void>> userBatches = new ArrayList<>(itemsByUser.size());
+        itemsByUser.forEach((userId, userItems) -> userBatches.add(CompletableFuture.runAsync(() -> {
+            for (List<Integer> chunk : Lists.partition(userItems, batchChunkSize)) {
+                userLockRegistry.execute(userId, () -> applyChunk(userId, items, chunk, results));
+            }
+        }, taskExecutor)));
+        CompletableFuture.allOf(userBatches.toArray(CompletableFuture[]::new)).join();
+
+        // Signals every projector partition once for the whole batch
+        projectorTrigger.signal();
+
+        return new BatchResponse(Arrays.asList(results));
+    }
+
+    /**
+     * Applies a chunk of items of one user and saves their events in one database transaction.
+     * Staged events only advance the cached balance, their message ids are answered from the chunk until they are recorded after the commit.
+     * If an item cannot be applied or the save fails, the items of the chunk not yet committed are failed and the cached state of the user is dropped.
+     */
+    private Void applyChunk(String userId, List<BatchItemRequest> items, List<Integer> chunk, BatchItemResponse[] results) {
+        List<TransactionEvent> chunkEvents = new ArrayList<>(chunk.size());
+        Map<String, TransactionEvent> stagedEvents = new HashMap<>();
+        Function<String, Optional<TransactionEvent>> originalEvents = messageId -> stagedEvents.containsKey(messageId)
+                ? Optional.of(stagedEvents.get(messageId)) : messageIdRegistry.find(messageId);
+        Consumer<TransactionEvent> stageEvent = transactionEvent -> {
+            chunkEvents.add(transactionEvent);
+            stagedEvents.put(transactionEvent.getMessageId(), transactionEvent);
+            cacheBalance(transactionEvent);
+        };
+        try {
+            for (int index : chunk) {
+                results[index] = applyItem(items.get(index), originalEvents, stageEvent);
+            }
+            if (chunkEvents.isEmpty()) {
+                return null;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                transactionEventRepository.saveAll(chunkEvents);
+                projectorHandoff.handOffAfterCommit(chunkEvents);
+                eventJournal.appendAfterCommit(chunkEvents);
+            });
+            chunkEvents.forEach(messageIdRegistry::record);
+        } catch (RuntimeException e) {
+            balanceCache.invalidate(userId);
+            // Items committed on their own, by the conditional update or as a replay of an earlier request, keep their result
+            for (int index : chunk) {
+                BatchItemResponse result = results[index];
+                if (result == null || result.getCode() == 200 && stagedEvents.containsKey(result.getMessageId())) {
+                    results[index] = new BatchItemResponse(items.get(index), "Batch chunk could not be saved");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies one batch item as a load or an authorization depending on its type.
+     */
+    private BatchItemResponse applyItem(BatchItemRequest item, Function<String, Optional<TransactionEvent>> originalEvents,
+                                        Consumer<TransactionEvent> stageEvent) {
+        try {
+            if (item.getTransactionAmount().getDebitOrCredit() == TransactionType.CREDIT) {
+                return new BatchItemResponse(applyLoad(item.toLoadRequest(), item.getMessageId(), originalEvents, stageEvent));
+            }
+            return new BatchItemResponse(applyAuthorization(item.toAuthorizationRequest(), item.getMessageId(), originalEvents, stageEvent));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return new BatchItemResponse(item, e.getMessage());
+        }
+    }
+
+    /**
+     * Validates the load request and passes the credit event to the given appender.
+     * A retry is answered with the original event found by the given lookup.
+     */
+    private LoadResponse applyLoad(LoadRequest loadRequest, String messageId, Function<String, Optional<TransactionEvent>> originalEvents,
+                                   Consumer<TransactionEvent> eventAppender) {
+        Optional<TransactionEvent> originalEvent = findOriginalEvent(loadRequest, messageId, originalEvents);
+        if (originalEvent.isPresent()) {
+            return new LoadResponse(originalEvent.get(), new Amount(originalEvent.get()));
+        }
+        validateTransactionType(loadRequest.getTransactionAmount().getDebitOrCredit(), TransactionType.CREDIT);
+        validateAccount(loadRequest.getUserId());
+
+        TransactionEvent transactionEvent;
+        if (authorizationStrategy == AuthorizationStrategy.CONDITIONAL_UPDATE) {
+            transactionEvent = creditAccount(loadRequest, Money.parse(loadRequest.getTransactionAmount().getAmount()));
+        } else {
+            transactionEvent = addCreditAmount(loadRequest);
+            eventAppender.accept(transactionEvent);
+        }
+
+        Amount amount = new Amount(transactionEvent);
+        return new LoadResponse(transactionEvent, amount);
+    }
+
+    /**
+     * Validates the authorization request and passes the pending or failed debit event to the given appender.
+     * A retry is answered with the outcome of the original event found by the given lookup.
+     */
+    private AuthorizationResponse applyAuthorization(AuthorizationRequest authorizationRequest, String messageId,
+                                                     Function<String, Optional<TransactionEvent>> originalEvents,
+                                                     Consumer<TransactionEvent> eventAppender) {
+        Optional<TransactionEvent> originalEvent = findOriginalEvent(authorizationRequest, messageId, originalEvents);
+        if (originalEvent.isPresent()) {
+            return replayAuthorization(originalEvent.get());
+        }
         validateTransactionType(authorizationRequest.getTransactionAmount().getDebitOrCredit(), TransactionType.DEBIT);
         validateAccount(authorizationRequest.getUserId());
 
-        Double balance = findCurrentBalance(authorizationRequest.getUserId());
-        if (balance < Double.parseDouble(authorizationRequest.getTransactionAmount().getAmount())) {
-            TransactionEvent failedEvent = deductDebitAmount(authorizationRequest, balance, TransactionEventStatus.FAILED);
-            transactionEventRepository.save(failedEvent);
+        long debitAmount = Money.parse(authorizationRequest.getTransactionAmount().getAmount());
+        if (authorizationStrategy == AuthorizationStrategy.CONDITIONAL_UPDATE) {
+            return authorizeConditionally(authorizationRequest, debitAmount);
+        }
+        UserBalance latestBalance = findLatestBalance(authorizationRequest.getUserId());
+        if (latestBalance.getBalance() < debitAmount) {
+            TransactionEvent failedEvent = deductDebitAmount(authorizationRequest, debitAmount, latestBalance, TransactionEventStatus.FAILED);
+            eventAppender.accept(failedEvent);
+            transactionMetrics.declined();
             throw new IllegalArgumentException("Insufficient balance");
         }
 
-        TransactionEvent pendingEvent = deductDebitAmount(authorizationRequest, balance, TransactionEventStatus.PENDING);
-        transactionEventRepository.save(pendingEvent);
-
-        // Starts a separate thread to run in background
-        transactionUpdateJob.execute();
+        TransactionEvent pendingEvent = deductDebitAmount(authorizationRequest, debitAmount, latestBalance, TransactionEventStatus.PENDING);
+        eventAppender.accept(pendingEvent);
+        transactionMetrics.approved();
 
         Amount amount = new Amount(pendingEvent);
         return new AuthorizationResponse(pendingEvent, amount, AuthorizationStatus.APPROVED);
     }
 
     /**
-     * Validates the provided message ID against the provided message ID and checks for duplicate message IDs in the repository.
+     * Approves or declines the authorization from the outcome of the conditional debit of the account.
+     */
+    private AuthorizationResponse authorizeConditionally(AuthorizationRequest authorizationRequest, long debitAmount) {
+        TransactionEvent transactionEvent = debitAccount(authorizationRequest, debitAmount);
+        if (transactionEvent.getStatus() == TransactionEventStatus.FAILED) {
+            transactionMetrics.declined();
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+        transactionMetrics.approved();
+        return new AuthorizationResponse(transactionEvent, new Amount(transactionEvent), AuthorizationStatus.APPROVED);
+    }
+
+    /**
+     * Validates the provided message ID and finds the event already saved for it, if the request is a retry.
+     * A message ID reused for a different request is rejected as a duplicate.
+     * Retries of the same user are serialized by the user lock, so only the first one is processed.
      */
-    private void validateMessageId(String requestMessageId, String providedMessageId) {
+    private Optional<TransactionEvent> findOriginalEvent(TransactionRequest transactionRequest, String providedMessageId,
+                                                         Function<String, Optional<TransactionEvent>> originalEvents) {
+        String requestMessageId = transactionRequest.getMessageId();
         if (!Objects.equals(requestMessageId, providedMessageId)) {
             throw new IllegalArgumentException("Message ids are not matched");
         }
-        Optional<TransactionEvent> existingTransaction = transactionEventRepository.findById(requestMessageId);
-        if (existingTransaction.isPresent()) {
+        Optional<TransactionEvent> originalEvent = originalEvents.apply(requestMessageId);
+        if (originalEvent.isPresent() && !isSameRequest(originalEvent.get(), transactionRequest)) {
             throw new IllegalArgumentException("Duplicate message id " + requestMessageId);
         }
+        return originalEvent;
+    }
+
+    /**
+     * Checks whether the event was created from a request with the same user, type, currency and amount.
+     */
+    private boolean isSameRequest(TransactionEvent transactionEvent, TransactionRequest transactionRequest) {
+        Amount transactionAmount = transactionRequest.getTransactionAmount();
+        return Objects.equals(transactionEvent.getUserId(), transactionRequest.getUserId())
+                && transactionEvent.getType() == transactionAmount.getDebitOrCredit()
+                && Objects.equals(transactionEvent.getCurrency(), transactionAmount.getCurrency())
+                && transactionEvent.getAmount() == Money.parse(transactionAmount.getAmount());
+    }
+
+    /**
+     * Answers a retried authorization with the outcome of the original event.
+     */
+    private AuthorizationResponse replayAuthorization(TransactionEvent transactionEvent) {
+        if (transactionEvent.getStatus() == TransactionEventStatus.FAILED) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+        return new AuthorizationResponse(transactionEvent, new Amount(transactionEvent), AuthorizationStatus.APPROVED);
     }
 
     /**
@@ -132,10 +507,12 @@ public class TransactionEventServiceImpl implements TransactionEventService {
 
     /**
      * Validates the existence of the user account based on the provided user ID.
+     * Existence is answered by the account registry, which only queries the database for user ids not seen recently.
      */
     private void validateAccount(String userId) {
-        accountRepository.findById(userId).
-                orElseThrow(() -> new IllegalArgumentException("User not found for user id " + userId));
+        if (!accountRegistry.exists(userId)) {
+            throw new IllegalArgumentException("User not found for user id " + userId);
+        }
     }
 
 }
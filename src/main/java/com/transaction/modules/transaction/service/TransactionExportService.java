@@ -0,0 +1,15 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.modules.transaction.enums.TransactionExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface TransactionExportService {
+
+    void validate(String userId, LocalDateTime from, LocalDateTime to);
+
+    void export(TransactionExportFormat format, String userId, LocalDateTime from, LocalDateTime to, OutputStream output) throws IOException;
+
+}
@@ -0,0 +1,145 @@
+package com.transaction.modules.transaction.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.modules.account.cache.AccountRegistry;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.enums.TransactionExportFormat;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import com.transaction.util.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class TransactionExportServiceImpl implements TransactionExportService {
+
+    private static final String CSV_HEADER = "id,userId,type,amount,currency,createdAt";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRegistry accountRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Checks the filter of an export, so that an invalid one is rejected before anything is written.
+     */
+    @Override
+    public void validate(String userId, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("From must be before to");
+        }
+        if (userId != null && !accountRegistry.exists(userId)) {
+            throw new IllegalArgumentException("User not found for user id " + userId);
+        }
+    }
+
+    /**
+     * Writes the transactions of the user, or of every user when no user is given, created from (inclusive) to (exclusive).
+     * Rows are read from a forward only cursor and every entity is detached once written, so memory use does not depend on the number of rows.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void export(TransactionExportFormat format, String userId, LocalDateTime from, LocalDateTime to, OutputStream output) throws IOException {
+        validate(userId, from, to);
+        setLazyQueryExecution(true);
+        try (Stream<Transaction> transactions = userId != null
+                ? transactionRepository.streamForExport(userId, from, to)
+                : transactionRepository.streamForExport(from, to)) {
+            switch (format) {
+                case CSV -> writeCsv(transactions.iterator(), output);
+                case NDJSON -> writeNdjson(transactions.iterator(), output);
+            }
+        } finally {
+            setLazyQueryExecution(false);
+        }
+    }
+
+    /**
+     * H2 otherwise builds the whole result before returning the first row, keeping up to MAX_MEMORY_ROWS rows on the heap.
+     * Lazily executed queries produce the rows as the cursor advances. The setting belongs to the pooled connection, so it is reset afterwards.
+     */
+    private void setLazyQueryExecution(boolean lazy) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LAZY_QUERY_EXECUTION " + lazy);
+            }
+        });
+    }
+
+    private void writeCsv(Iterator<Transaction> transactions, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (transactions.hasNext()) {
+            Transaction transaction = transactions.next();
+            writer.write(String.valueOf(transaction.getId()));
+            writer.write(',');
+            writer.write(csvField(transaction.getUserId()));
+            writer.write(',');
+            writer.write(transaction.getType().name());
+            writer.write(',');
+            writer.write(Money.format(transaction.getAmount()));
+            writer.write(',');
+            writer.write(csvField(transaction.getCurrency()));
+            writer.write(',');
+            writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.getCreatedAt()));
+            writer.write('\n');
+            entityManager.detach(transaction);
+        }
+        writer.flush();
+    }
+
+    private void writeNdjson(Iterator<Transaction> transactions, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        while (transactions.hasNext()) {
+            Transaction transaction = transactions.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", transaction.getId());
+            generator.writeStringField("userId", transaction.getUserId());
+            generator.writeStringField("type", transaction.getType().name());
+            generator.writeStringField("amount", Money.format(transaction.getAmount()));
+            generator.writeStringField("currency", transaction.getCurrency());
+            generator.writeStringField("createdAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.getCreatedAt()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            entityManager.detach(transaction);
+        }
+        generator.flush();
+    }
+
+    /**
+     * Quotes a value containing a separator, a quote or a line break, doubling its quotes.
+     */
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,12 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.modules.transaction.controller.response.TransactionHistoryResponse;
+import com.transaction.modules.transaction.enums.TransactionType;
+
+import java.time.LocalDateTime;
+
+public interface TransactionHistoryService {
+
+    TransactionHistoryResponse findHistory(String userId, Long cursor, Integer size, TransactionType type, LocalDateTime from, LocalDateTime to);
+
+}
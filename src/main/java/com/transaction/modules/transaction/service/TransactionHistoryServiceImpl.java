@@ -0,0 +1,88 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.modules.account.cache.AccountRegistry;
+import com.transaction.modules.transaction.archive.EventArchive;
+import com.transaction.modules.transaction.controller.response.TransactionHistoryResponse;
+import com.transaction.modules.transaction.controller.response.TransactionResponse;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+public class TransactionHistoryServiceImpl implements TransactionHistoryService {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRegistry accountRegistry;
+
+    @Autowired
+    private EventArchive eventArchive;
+
+    @Value("${transaction.history.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${transaction.history.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Finds a page of the user's transactions older than the cursor, newest first, optionally filtered by type and by a from (inclusive) to (exclusive) date range.
+     * One row more than the page size is read to tell whether a next page exists, so the last page has no next cursor.
+     * Archived transactions are merged in, the archive is only read for ids the rows from the table leave room for.
+     */
+    @Override
+    public TransactionHistoryResponse findHistory(String userId, Long cursor, Integer size, TransactionType type, LocalDateTime from, LocalDateTime to) {
+        int pageSize = size != null ? size : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("From must be before to");
+        }
+        if (!accountRegistry.exists(userId)) {
+            throw new IllegalArgumentException("User not found for user id " + userId);
+        }
+
+        Set<TransactionType> types = type != null ? EnumSet.of(type) : EnumSet.allOf(TransactionType.class);
+        long pageCursor = cursor != null ? cursor : Long.MAX_VALUE;
+        List<Transaction> transactions = transactionRepository.findHistory(userId, pageCursor, types, from, to, PageRequest.of(0, pageSize + 1));
+
+        // A full page only leaves room for archived transactions newer than its last row
+        long floor = transactions.size() > pageSize ? transactions.get(pageSize).getId() : 0;
+        List<Transaction> archived = eventArchive.readTransactions(userId, floor, pageCursor, types, from, to, pageSize + 1);
+        if (!archived.isEmpty()) {
+            transactions = merge(transactions, archived, pageSize + 1);
+        }
+
+        boolean hasNext = transactions.size() > pageSize;
+        List<TransactionResponse> page = new ArrayList<>(Math.min(transactions.size(), pageSize));
+        for (int i = 0; i < transactions.size() && i < pageSize; i++) {
+            page.add(new TransactionResponse(transactions.get(i)));
+        }
+        Long nextCursor = hasNext ? page.get(pageSize - 1).getId() : null;
+        return new TransactionHistoryResponse(userId, page, nextCursor);
+    }
+
+    /**
+     * Merges the rows from the table and from the archive newest first, a row moved to the archive during the read is kept once.
+     */
+    private List<Transaction> merge(List<Transaction> transactions, List<Transaction> archived, int limit) {
+        TreeMap<Long, Transaction> merged = new TreeMap<>(Comparator.reverseOrder());
+        archived.forEach(transaction -> merged.put(transaction.getId(), transaction));
+        transactions.forEach(transaction -> merged.put(transaction.getId(), transaction));
+        return merged.values().stream().limit(limit).toList();
+    }
+}
@@ -0,0 +1,11 @@
+package com.transaction.modules.transaction.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface TransactionStreamService {
+
+    void ingest(InputStream records, OutputStream results) throws IOException;
+
+}
@@ -0,0 +1,107 @@
+package com.transaction.modules.transaction.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.modules.transaction.controller.request.BatchItemRequest;
+import com.transaction.modules.transaction.controller.request.BatchRequest;
+import com.transaction.modules.transaction.controller.response.BatchItemResponse;
+import com.transaction.util.response.ErrorResponseModel;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class TransactionStreamServiceImpl implements TransactionStreamService {
+
+    @Autowired
+    private TransactionEventService transactionEventService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${transaction.stream.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Reads newline delimited records and writes a newline delimited result per record, in the order of the records
+     * Records are applied as batches of at most the chunk size, so memory use does not depend on the number of records
+     * Invalid records get a validation error result, a malformed line ends the stream with an error result
+     */
+    @Override
+    public void ingest(InputStream records, OutputStream results) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(records);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(results)) {
+            MappingIterator<BatchItemRequest> items = objectMapper.readerFor(BatchItemRequest.class).readValues(parser);
+            List<BatchItemRequest> chunk = new ArrayList<>(chunkSize);
+            List<Object> chunkResults = new ArrayList<>(chunkSize);
+            try {
+                while (items.hasNextValue()) {
+                    BatchItemRequest item = items.nextValue();
+                    if (item == null) {
+                        continue;
+                    }
+                    String violation = validate(item);
+                    if (violation != null) {
+                        // Keeps the order of the results, records before the invalid one are applied first
+                        flush(chunk, chunkResults, generator);
+                        chunkResults.add(new BatchItemResponse(item, violation));
+                    } else {
+                        chunk.add(item);
+                    }
+                    if (chunk.size() == chunkSize) {
+                        flush(chunk, chunkResults, generator);
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                flush(chunk, chunkResults, generator);
+                writeLine(generator, new ErrorResponseModel(400, "Malformed record: " + e.getOriginalMessage()));
+            }
+            flush(chunk, chunkResults, generator);
+        }
+    }
+
+    /**
+     * Returns the message of the first constraint violation of the record, or null if it is valid.
+     */
+    private String validate(BatchItemRequest item) {
+        Set<ConstraintViolation<BatchItemRequest>> violations = validator.validate(item);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    /**
+     * Applies the buffered records as one batch and writes their results after the results already pending.
+     */
+    private void flush(List<BatchItemRequest> chunk, List<Object> chunkResults, JsonGenerator generator) throws IOException {
+        if (!chunk.isEmpty()) {
+            BatchRequest batchRequest = new BatchRequest();
+            batchRequest.setItems(chunk);
+            chunkResults.addAll(transactionEventService.batch(batchRequest).getResults());
+            chunk.clear();
+        }
+        for (Object result : chunkResults) {
+            writeLine(generator, result);
+        }
+        chunkResults.clear();
+        generator.flush();
+    }
+
+    private void writeLine(JsonGenerator generator, Object result) throws IOException {
+        generator.writeObject(result);
+        generator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,72 @@
+package com.transaction.util;
+
+/*
+ * Money amounts are held as a long number of minor units (cents) end to end
+ * Amounts are parsed once from the request and formatted back only for the response
+ */
+public final class Money {
+
+    // Number of decimal places of the minor unit
+    public static final int SCALE = 2;
+
+    private static final long UNIT = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Parses a non-negative decimal amount such as "100", "100.5" or "100.50" into minor units without allocating.
+     */
+    public static long parse(CharSequence amount) {
+        int length = amount.length();
+        long units = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (int i = 0; i < length; i++) {
+            char c = amount.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || decimals == SCALE || units > (Long.MAX_VALUE - 9) / 10) {
+                throw invalidAmount(amount);
+            }
+            units = units * 10 + (c - '0');
+            digits++;
+            if (decimals >= 0) {
+                decimals++;
+            }
+        }
+        if (digits == 0 || decimals == 0) {
+            throw invalidAmount(amount);
+        }
+        for (int i = Math.max(decimals, 0); i < SCALE; i++) {
+            if (units > Long.MAX_VALUE / 10) {
+                throw invalidAmount(amount);
+            }
+            units *= 10;
+        }
+        return units;
+    }
+
+    /**
+     * Formats minor units as a decimal amount with two decimal places such as "100.50".
+     */
+    public static String format(long units) {
+        StringBuilder builder = new StringBuilder(24);
+        if (units < 0) {
+            builder.append('-');
+        }
+        long major = Math.abs(units / UNIT);
+        long minor = Math.abs(units % UNIT);
+        builder.append(major).append('.');
+        if (minor < 10) {
+            builder.append('0');
+        }
+        return builder.append(minor).toString();
+    }
+
+    private static IllegalArgumentException invalidAmount(CharSequence amount) {
+        return new IllegalArgumentException("Invalid amount " + amount);
+    }
+}
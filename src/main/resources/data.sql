@@ -1 +1 @@
-INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES ('2226e2f9-ih09-46a8-958f-d659880asdfD', '0.00');
\ No newline at end of file
+INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES ('2226e2f9-ih09-46a8-958f-d659880asdfD', 0);
\ No newline at end of file
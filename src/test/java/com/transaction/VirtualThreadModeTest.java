@@ -0,0 +1,77 @@
+package com.transaction;
+
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.job.ProjectorExecutor;
+import com.transaction.modules.transaction.service.TransactionEventService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:virtual-thread-mode-test;DB_CLOSE_DELAY=-1"
+})
+class VirtualThreadModeTest {
+
+    private static final String USER_ID = "2226e2f9-ih09-46a8-958f-d659880asdfD";
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private TransactionEventService transactionEventService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ProjectorExecutor projectorExecutor;
+
+    // The batch workers run on the application task executor and the projector passes on the projector executor, both use virtual threads in this mode
+    @Test
+    void applicationTaskExecutorUsesVirtualThreads() {
+        CompletableFuture<Boolean> virtual = CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), taskExecutor);
+
+        assertTrue(virtual.join());
+    }
+
+    @Test
+    void projectorExecutorUsesVirtualThreads() {
+        CompletableFuture<Thread> projector = new CompletableFuture<>();
+        projectorExecutor.execute(() -> projector.complete(Thread.currentThread()));
+
+        Thread thread = projector.join();
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("projector-"));
+    }
+
+    @Test
+    void loadProjectedOnVirtualThreads() {
+        Amount amount = new Amount();
+        amount.setAmount("25.00");
+        amount.setCurrency("$");
+        amount.setDebitOrCredit(TransactionType.CREDIT);
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(USER_ID);
+        loadRequest.setMessageId("virtual-thread-load");
+        loadRequest.setTransactionAmount(amount);
+
+        transactionEventService.load(loadRequest, loadRequest.getMessageId());
+
+        await().atMost(10, SECONDS).untilAsserted(() ->
+                assertEquals(2500, accountRepository.findByUserId(USER_ID).getBalance()));
+    }
+}
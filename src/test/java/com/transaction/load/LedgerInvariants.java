@@ -0,0 +1,81 @@
+package com.transaction.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Checks that the projected accounts agree with the event log once all events are projected
+ * Queried with plain SQL, so the check does not share any code or cache with the service it verifies
+ * The opening balance of a user is derived from the first event, so accounts may start with any balance
+ */
+public class LedgerInvariants {
+
+    // Signed amount of an event, failed authorizations do not move the balance
+    private static final String SIGNED_AMOUNT = "CASE WHEN %1$s.STATUS = 'FAILED' THEN 0 WHEN %1$s.TYPE = 'CREDIT' THEN %1$s.AMOUNT ELSE -%1$s.AMOUNT END";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerInvariants(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns one message per violation, empty when the ledger is consistent.
+     */
+    public List<String> verify() {
+        List<String> violations = new ArrayList<>();
+        violations.addAll(findGaps());
+        violations.addAll(findBrokenChains());
+        violations.addAll(findOverdrafts());
+        violations.addAll(findUnfoldedBalances());
+        return violations;
+    }
+
+    /**
+     * The sequences of each user have to be unique and gap free.
+     */
+    private List<String> findGaps() {
+        return jdbcTemplate.query("SELECT USER_ID, COUNT(*) AS EVENTS, COUNT(DISTINCT SEQUENCE) AS SEQUENCES, MAX(SEQUENCE) - MIN(SEQUENCE) + 1 AS RANGE_SIZE "
+                        + "FROM TRANSACTION_EVENT GROUP BY USER_ID HAVING COUNT(*) <> COUNT(DISTINCT SEQUENCE) OR COUNT(*) <> MAX(SEQUENCE) - MIN(SEQUENCE) + 1",
+                (rs, row) -> "User " + rs.getString("USER_ID") + " has " + rs.getLong("EVENTS") + " events for "
+                        + rs.getLong("SEQUENCES") + " sequences in a range of " + rs.getLong("RANGE_SIZE"));
+    }
+
+    /**
+     * Every event has to continue from the running balance of the previous event of the user, a lost update breaks the chain.
+     */
+    private List<String> findBrokenChains() {
+        return jdbcTemplate.query("SELECT e.USER_ID, e.SEQUENCE, p.RUNNING_BALANCE AS PREVIOUS, e.RUNNING_BALANCE "
+                        + "FROM TRANSACTION_EVENT e JOIN TRANSACTION_EVENT p ON p.USER_ID = e.USER_ID AND p.SEQUENCE = e.SEQUENCE - 1 "
+                        + "WHERE e.RUNNING_BALANCE <> p.RUNNING_BALANCE + " + String.format(SIGNED_AMOUNT, "e"),
+                (rs, row) -> "Event " + rs.getLong("SEQUENCE") + " of user " + rs.getString("USER_ID") + " has running balance "
+                        + rs.getLong("RUNNING_BALANCE") + " after " + rs.getLong("PREVIOUS"));
+    }
+
+    /**
+     * No event and no account may be left with a negative balance.
+     */
+    private List<String> findOverdrafts() {
+        List<String> overdrafts = new ArrayList<>(jdbcTemplate.query(
+                "SELECT USER_ID, MIN(RUNNING_BALANCE) AS LOWEST FROM TRANSACTION_EVENT GROUP BY USER_ID HAVING MIN(RUNNING_BALANCE) < 0",
+                (rs, row) -> "User " + rs.getString("USER_ID") + " was overdrawn to " + rs.getLong("LOWEST")));
+        overdrafts.addAll(jdbcTemplate.query("SELECT USER_ID, BALANCE FROM ACCOUNT WHERE BALANCE < 0",
+                (rs, row) -> "Account " + rs.getString("USER_ID") + " is overdrawn with " + rs.getLong("BALANCE")));
+        return overdrafts;
+    }
+
+    /**
+     * Every account balance has to equal its opening balance plus the fold of its events.
+     */
+    private List<String> findUnfoldedBalances() {
+        return jdbcTemplate.query("SELECT USER_ID, BALANCE, FOLDED FROM (SELECT a.USER_ID, a.BALANCE, "
+                        + "(SELECT f.RUNNING_BALANCE - " + String.format(SIGNED_AMOUNT, "f") + " FROM TRANSACTION_EVENT f "
+                        + "WHERE f.USER_ID = a.USER_ID ORDER BY f.SEQUENCE LIMIT 1) + SUM(" + String.format(SIGNED_AMOUNT, "e") + ") AS FOLDED "
+                        + "FROM ACCOUNT a JOIN TRANSACTION_EVENT e ON e.USER_ID = a.USER_ID GROUP BY a.USER_ID, a.BALANCE) "
+                        + "WHERE BALANCE <> FOLDED",
+                (rs, row) -> "Account " + rs.getString("USER_ID") + " has balance " + rs.getLong("BALANCE")
+                        + " but its events fold to " + rs.getLong("FOLDED"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.transaction.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Drives the load and authorize endpoints of a running application with concurrent clients
+ * Each client sends its requests one after the other, so the concurrency of the profile is the number of requests in flight
+ * Declined authorizations are answered with 400 and "Insufficient balance", any other non 200 response is an error
+ */
+public class LoadHarness {
+
+    private final HttpClient httpClient;
+
+    private final String baseUrl;
+
+    private final LoadProfile loadProfile;
+
+    public LoadHarness(HttpClient httpClient, String baseUrl, LoadProfile loadProfile) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.loadProfile = loadProfile;
+    }
+
+    /**
+     * Sends the requests of the profile and waits for all of them to be answered.
+     */
+    public LoadReport run() throws Exception {
+        long[] latencies = new long[loadProfile.getRequests()];
+        AtomicInteger nextRequest = new AtomicInteger();
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger declined = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService clients = Executors.newFixedThreadPool(loadProfile.getConcurrency());
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>(loadProfile.getConcurrency());
+            for (int client = 0; client < loadProfile.getConcurrency(); client++) {
+                SplittableRandom random = new SplittableRandom(loadProfile.getSeed() + client);
+                workers.add(clients.submit(() -> {
+                    int request;
+                    while ((request = nextRequest.getAndIncrement()) < latencies.length) {
+                        boolean authorization = random.nextDouble() < loadProfile.getAuthorizationRatio();
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = send(request, authorization, random);
+                        latencies[request] = System.nanoTime() - sent;
+
+                        if (response.statusCode() == 200) {
+                            (authorization ? approved : loads).incrementAndGet();
+                        } else if (authorization && response.statusCode() == 400 && response.body().contains("Insufficient balance")) {
+                            declined.incrementAndGet();
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        return new LoadReport(loads.get(), approved.get(), declined.get(), errors.get(), elapsed, latencies);
+    }
+
+    /**
+     * Sends a load or an authorization of a random amount for a user picked with the skew of the profile.
+     */
+    private HttpResponse<String> send(int request, boolean authorization, SplittableRandom random) throws IOException, InterruptedException {
+        String messageId = loadProfile.getUserPrefix() + (authorization ? "-authorization-" : "-load-") + loadProfile.getSeed() + "-" + request;
+        String amount = random.nextInt(1, loadProfile.getMaxAmount() + 1) + "." + String.format("%02d", random.nextInt(100));
+        String body = "{\"messageId\":\"" + messageId + "\",\"userId\":\"" + loadProfile.getUserPrefix() + pickUser(random)
+                + "\",\"transactionAmount\":{\"amount\":\"" + amount + "\",\"currency\":\"$\",\"debitOrCredit\":\""
+                + (authorization ? "DEBIT" : "CREDIT") + "\"}}";
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + (authorization ? "/authorize/" : "/load/") + messageId))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int pickUser(SplittableRandom random) {
+        if (loadProfile.getHotUsers() > 0 && random.nextDouble() < loadProfile.getHotTrafficShare()) {
+            return random.nextInt(loadProfile.getHotUsers());
+        }
+        return random.nextInt(loadProfile.getUsers());
+    }
+}
@@ -0,0 +1,107 @@
+package com.transaction.load;
+
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Concurrent loads and authorizations over HTTP, followed by a check of the ledger once everything is projected
+ * The default profile is small enough for the build, larger runs are configured with load.* system properties
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-harness-test;DB_CLOSE_DELAY=-1"
+})
+class LoadHarnessTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadHarnessTest.class);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+    }
+
+    @Test
+    void mixedTrafficWithHotUsers() throws Exception {
+        LoadProfile loadProfile = new LoadProfile();
+        loadProfile.setUserPrefix("mixed-user");
+        seedAccounts(loadProfile);
+
+        LoadReport loadReport = run(loadProfile);
+
+        assertEquals(0, loadReport.getErrors());
+        assertEquals(loadProfile.getRequests(), loadReport.getLoads() + loadReport.getApproved() + loadReport.getDeclined());
+        assertLedgerConsistent();
+    }
+
+    // Every request goes to one account and most of them are authorizations, so approvals race for the same funds
+    @Test
+    void authorizationsOnOneHotAccount() throws Exception {
+        LoadProfile loadProfile = new LoadProfile();
+        loadProfile.setUserPrefix("hot-user");
+        loadProfile.setUsers(1);
+        loadProfile.setHotUsers(1);
+        loadProfile.setHotTrafficShare(1);
+        loadProfile.setAuthorizationRatio(0.7);
+        seedAccounts(loadProfile);
+
+        LoadReport loadReport = run(loadProfile);
+
+        assertEquals(0, loadReport.getErrors());
+        assertTrue(loadReport.getDeclined() > 0, "Expected some authorizations to be declined");
+        assertLedgerConsistent();
+    }
+
+    private LoadReport run(LoadProfile loadProfile) throws Exception {
+        LoadReport loadReport = new LoadHarness(httpClient, "http://localhost:" + port + "/api/v1/transaction", loadProfile).run();
+        logger.info("Load harness: {}", loadReport);
+        return loadReport;
+    }
+
+    private void seedAccounts(LoadProfile loadProfile) {
+        List<Object[]> accounts = new ArrayList<>(loadProfile.getUsers());
+        for (int i = 0; i < loadProfile.getUsers(); i++) {
+            accounts.add(new Object[]{loadProfile.getUserPrefix() + i, 0L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ACCOUNT (USER_ID, BALANCE) VALUES (?, ?)", accounts);
+    }
+
+    private void assertLedgerConsistent() {
+        await().atMost(60, SECONDS).until(() -> transactionEventRepository.countByStatus(TransactionEventStatus.PENDING) == 0);
+
+        List<String> violations = new LedgerInvariants(jdbcTemplate).verify();
+        assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+}
@@ -0,0 +1,36 @@
+package com.transaction.load;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Shape of the traffic sent by the load harness
+ * Every value can be overridden with a system property named load.<field>, e.g. -Dload.requests=100000
+ */
+@Getter
+@Setter
+public class LoadProfile {
+
+    // Users are named <userPrefix>0 to <userPrefix><users - 1>, their accounts have to exist before the run
+    private String userPrefix = System.getProperty("load.userPrefix", "user");
+
+    private int users = Integer.getInteger("load.users", 50);
+
+    private int requests = Integer.getInteger("load.requests", 500);
+
+    // Number of clients sending requests at the same time
+    private int concurrency = Integer.getInteger("load.concurrency", 16);
+
+    // Share of the requests that are authorizations, the rest are loads
+    private double authorizationRatio = Double.parseDouble(System.getProperty("load.authorizationRatio", "0.5"));
+
+    // The first hotUsers users receive hotTrafficShare of the requests, the rest is spread evenly over all users
+    private int hotUsers = Integer.getInteger("load.hotUsers", 2);
+
+    private double hotTrafficShare = Double.parseDouble(System.getProperty("load.hotTrafficShare", "0.5"));
+
+    // Amounts are drawn evenly from 1 to maxAmount major units
+    private int maxAmount = Integer.getInteger("load.maxAmount", 100);
+
+    private long seed = Long.getLong("load.seed", 42);
+}
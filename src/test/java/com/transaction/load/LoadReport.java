@@ -0,0 +1,66 @@
+package com.transaction.load;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/*
+ * Outcome of a load harness run, with the latencies of all requests in nanoseconds
+ */
+@Getter
+public class LoadReport {
+
+    private final int loads;
+
+    private final int approved;
+
+    private final int declined;
+
+    private final int errors;
+
+    private final Duration elapsed;
+
+    private final long[] latencies;
+
+    public LoadReport(int loads, int approved, int declined, int errors, Duration elapsed, long[] latencies) {
+        this.loads = loads;
+        this.approved = approved;
+        this.declined = declined;
+        this.errors = errors;
+        this.elapsed = elapsed;
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+    }
+
+    public int getRequests() {
+        return latencies.length;
+    }
+
+    /**
+     * Requests per second over the whole run.
+     */
+    public double getThroughput() {
+        return latencies.length / (elapsed.toNanos() / 1e9);
+    }
+
+    /**
+     * Latency below which the given fraction of the requests completed, e.g. 0.99 for the 99th percentile.
+     */
+    public Duration percentile(double fraction) {
+        if (latencies.length == 0) {
+            return Duration.ZERO;
+        }
+        int index = (int) Math.ceil(fraction * latencies.length) - 1;
+        return Duration.ofNanos(latencies[Math.max(0, Math.min(index, latencies.length - 1))]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d requests in %d ms (%.0f req/s): %d loads, %d approved, %d declined, %d errors, "
+                        + "latency p50 %d µs, p99 %d µs, p99.9 %d µs, max %d µs",
+                getRequests(), elapsed.toMillis(), getThroughput(), loads, approved, declined, errors,
+                percentile(0.5).toNanos() / 1000, percentile(0.99).toNanos() / 1000, percentile(0.999).toNanos() / 1000,
+                percentile(1).toNanos() / 1000);
+    }
+}
@@ -0,0 +1,61 @@
+package com.transaction.modules.account.cache;
+
+import com.transaction.modules.account.entity.Account;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountRegistryListenerTest {
+
+    @Mock
+    private AccountRegistry accountRegistry;
+    @InjectMocks
+    private AccountRegistryListener accountRegistryListener;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Accounts saved outside a transaction are registered immediately
+    @Test
+    void registersWithoutTransaction() {
+        accountRegistryListener.accountCreated(account("user1"));
+        verify(accountRegistry).register("user1");
+    }
+
+    // Accounts saved in a transaction are only registered once it commits
+    @Test
+    void registersAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        accountRegistryListener.accountCreated(account("user1"));
+        verify(accountRegistry, never()).register("user1");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(accountRegistry).register("user1");
+    }
+
+    // Removed accounts are invalidated
+    @Test
+    void invalidatesRemovedAccount() {
+        accountRegistryListener.accountRemoved(account("user1"));
+        verify(accountRegistry).invalidate("user1");
+    }
+
+    private Account account(String userId) {
+        Account account = new Account();
+        ReflectionTestUtils.setField(account, "userId", userId);
+        return account;
+    }
+}
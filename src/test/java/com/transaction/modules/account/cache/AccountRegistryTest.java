@@ -0,0 +1,76 @@
+package com.transaction.modules.account.cache;
+
+import com.transaction.modules.account.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountRegistryTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Spy
+    private AccountRegistry accountRegistry = new AccountRegistry(100, Duration.ofMillis(200));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountRegistry, "accountRepository", accountRepository);
+    }
+
+    // Existing accounts are only read from the database once
+    @Test
+    void existingAccountCached() {
+        when(accountRepository.existsById("user1")).thenReturn(true);
+        assertTrue(accountRegistry.exists("user1"));
+        assertTrue(accountRegistry.exists("user1"));
+        assertTrue(accountRegistry.exists("user1"));
+
+        verify(accountRepository, times(1)).existsById("user1");
+        assertEquals(2.0 / 3, accountRegistry.getHitRatio(), 0.001);
+        assertEquals(1, accountRegistry.size());
+    }
+
+    // Unknown user ids are cached until the negative entry expires
+    @Test
+    void unknownAccountCachedUntilExpired() throws InterruptedException {
+        when(accountRepository.existsById("unknown")).thenReturn(false);
+        assertFalse(accountRegistry.exists("unknown"));
+        assertFalse(accountRegistry.exists("unknown"));
+        verify(accountRepository, times(1)).existsById("unknown");
+
+        Thread.sleep(300);
+        assertFalse(accountRegistry.exists("unknown"));
+        verify(accountRepository, times(2)).existsById("unknown");
+    }
+
+    // A registered account replaces the cached unknown entry
+    @Test
+    void registerReplacesUnknown() {
+        when(accountRepository.existsById("user1")).thenReturn(false);
+        assertFalse(accountRegistry.exists("user1"));
+
+        accountRegistry.register("user1");
+        assertTrue(accountRegistry.exists("user1"));
+        verify(accountRepository, times(1)).existsById("user1");
+    }
+
+    // Invalidated users are read from the database again
+    @Test
+    void invalidate() {
+        when(accountRepository.existsById("user1")).thenReturn(true);
+        assertTrue(accountRegistry.exists("user1"));
+        accountRegistry.invalidate("user1");
+        assertTrue(accountRegistry.exists("user1"));
+        verify(accountRepository, times(2)).existsById("user1");
+    }
+}
@@ -0,0 +1,102 @@
+package com.transaction.modules.account.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:account-controller-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class AccountControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    // The balance of a projected load is served with the sequence of the load as the ETag
+    @Test
+    void balance() throws Exception {
+        String userId = "3f2e1d0c-balance-4b5a-9c8d-7e6f5a4b3c2d";
+        accountRepository.save(new Account(userId));
+        load(userId, "balance-load-1", "25.00");
+        await().atMost(5, SECONDS).until(() -> accountRepository.findByUserId(userId).getLastSequence() == 1);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/account/" + userId + "/balance"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn();
+
+        JsonNode jsonNode = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString());
+        assertEquals(userId, jsonNode.get("userId").asText());
+        assertEquals("25.00", jsonNode.get("balance").asText());
+        assertEquals("$", jsonNode.get("currency").asText());
+        assertEquals(1, jsonNode.get("sequence").asLong());
+    }
+
+    // An unchanged balance is answered with 304, a new event changes the ETag even before it is projected
+    @Test
+    void balanceNotModified() throws Exception {
+        String userId = "8a7b6c5d-not-modified-4e3f-2a1b-0c9d8e7f6a5b";
+        accountRepository.save(new Account(userId));
+        load(userId, "not-modified-load-1", "10.00");
+
+        mockMvc.perform(get("/api/v1/account/" + userId + "/balance").header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        load(userId, "not-modified-load-2", "5.00");
+
+        mockMvc.perform(get("/api/v1/account/" + userId + "/balance").header("If-None-Match", "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""));
+    }
+
+    // A user without events has the account balance and sequence 0
+    @Test
+    void balanceWithoutEvents() throws Exception {
+        String userId = "1b2c3d4e-no-events-5f6a-7b8c-9d0e1f2a3b4c";
+        Account account = new Account(userId);
+        account.setBalance(4200);
+        accountRepository.save(account);
+
+        mockMvc.perform(get("/api/v1/account/" + userId + "/balance"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().json("{\"userId\":\"" + userId + "\",\"balance\":\"42.00\",\"sequence\":0}"));
+    }
+
+    @Test
+    void balanceOfUnknownUser() throws Exception {
+        mockMvc.perform(get("/api/v1/account/unknown-user/balance"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json("{\"message\":\"User not found for user id unknown-user\"}"));
+    }
+
+    private void load(String userId, String messageId, String amount) throws Exception {
+        String requestJson = "{\"messageId\":\"" + messageId + "\",\"userId\":\"" + userId
+                + "\",\"transactionAmount\":{\"amount\":\"" + amount + "\",\"currency\":\"$\",\"debitOrCredit\":\"CREDIT\"}}";
+        mockMvc.perform(put("/api/v1/transaction/load/" + messageId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk());
+    }
+}
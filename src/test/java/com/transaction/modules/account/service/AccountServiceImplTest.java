@@ -0,0 +1,129 @@
+package com.transaction.modules.account.service;
+
+import com.transaction.modules.account.controller.response.BalanceResponse;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.cache.BalanceCache;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountServiceImplTest {
+
+    private final String userId = "testUser";
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+    @Spy
+    private BalanceCache balanceCache = new BalanceCache(100);
+    @InjectMocks
+    private AccountServiceImpl accountService;
+
+    @Test
+    void findBalanceFromProjection() {
+        when(accountRepository.findById(userId)).thenReturn(Optional.of(account(12345, 7)));
+
+        BalanceResponse balanceResponse = accountService.findBalance(userId);
+
+        assertEquals(userId, balanceResponse.getUserId());
+        assertEquals("123.45", balanceResponse.getBalance());
+        assertEquals("$", balanceResponse.getCurrency());
+        assertEquals(7, balanceResponse.getSequence());
+    }
+
+    // Events not projected yet are reflected through the write-through cache
+    @Test
+    void findBalanceAheadOfProjection() {
+        when(accountRepository.findById(userId)).thenReturn(Optional.of(account(12345, 7)));
+        balanceCache.put(userId, new UserBalance(20000, 9));
+
+        BalanceResponse balanceResponse = accountService.findBalance(userId);
+
+        assertEquals("200.00", balanceResponse.getBalance());
+        assertEquals(9, balanceResponse.getSequence());
+    }
+
+    // A cached balance that the projection has caught up with is not preferred
+    @Test
+    void findBalanceWithCacheBehindProjection() {
+        when(accountRepository.findById(userId)).thenReturn(Optional.of(account(12345, 7)));
+        balanceCache.put(userId, new UserBalance(10000, 6));
+
+        assertEquals(7, accountService.findBalance(userId).getSequence());
+    }
+
+    // After an eviction the latest event is taken instead of the cache, so the sequence does not go back to the projection
+    @Test
+    void findBalanceAfterEviction() {
+        when(accountRepository.findById(userId)).thenReturn(Optional.of(account(12345, 7)));
+        TransactionEvent latestEvent = new TransactionEvent();
+        latestEvent.setRunningBalance(20000);
+        latestEvent.setSequence(9);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(latestEvent);
+
+        BalanceResponse balanceResponse = accountService.findBalance(userId);
+
+        assertEquals("200.00", balanceResponse.getBalance());
+        assertEquals(9, balanceResponse.getSequence());
+    }
+
+    // A cached user is revalidated without reading the event table or the account
+    @Test
+    void findSequenceFromCache() {
+        balanceCache.put(userId, new UserBalance(20000, 9));
+
+        assertEquals(9, accountService.findSequence(userId));
+        verifyNoInteractions(transactionEventRepository, accountRepository);
+    }
+
+    @Test
+    void findSequenceFromEvents() {
+        when(transactionEventRepository.findLatestSequence(userId)).thenReturn(9L);
+
+        assertEquals(9, accountService.findSequence(userId));
+        verifyNoInteractions(accountRepository);
+    }
+
+    // The cache is never filled from the projection, as the write path relies on it
+    @Test
+    void findBalanceDoesNotFillCache() {
+        when(accountRepository.findById(userId)).thenReturn(Optional.of(account(12345, 7)));
+
+        accountService.findBalance(userId);
+
+        assertNull(balanceCache.get(userId));
+    }
+
+    @Test
+    void findBalanceOfUnknownUser() {
+        when(accountRepository.findById(userId)).thenReturn(Optional.empty());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> accountService.findBalance(userId));
+
+        assertEquals("User not found for user id " + userId, exception.getMessage());
+    }
+
+    private Account account(long balance, long lastSequence) {
+        Account account = new Account(userId);
+        account.setBalance(balance);
+        account.setLastSequence(lastSequence);
+        account.setCurrency("$");
+        return account;
+    }
+}
@@ -0,0 +1,72 @@
+package com.transaction.modules.snapshot.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.snapshot.service.BalanceSnapshotService;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:snapshot-admin-controller-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class SnapshotAdminControllerTest {
+
+    private static final String USER_ID = "5a4b3c2d-rebuild-4e5f-8a9b-0c1d2e3f4a5b";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Test
+    void rebuildAccounts() throws Exception {
+        accountRepository.save(new Account(USER_ID));
+        send("load", "rebuild-message-1", "100", "CREDIT");
+        send("authorize", "rebuild-message-2", "30", "DEBIT");
+        balanceSnapshotService.snapshot(USER_ID);
+        send("authorize", "rebuild-message-3", "500", "DEBIT");
+        send("load", "rebuild-message-4", "5", "CREDIT");
+
+        await().atMost(5, SECONDS).until(() -> accountRepository.findByUserId(USER_ID).getBalance() == 7500);
+        Account account = accountRepository.findByUserId(USER_ID);
+        account.setBalance(1);
+        accountRepository.save(account);
+
+        // Send put request to the endpoint
+        MvcResult mvcResult = mockMvc.perform(put("/api/v1/admin/account/rebuild"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode jsonNode = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString());
+        assertEquals(2, jsonNode.get("rebuiltAccounts").asLong());
+        assertEquals(7500, accountRepository.findByUserId(USER_ID).getBalance());
+        assertEquals(4, transactionEventRepository.summarizeTail(USER_ID, 0).getLastSequence());
+    }
+
+    private void send(String operation, String messageId, String amount, String type) throws Exception {
+        String requestJson = "{\"messageId\": \"" + messageId + "\", \"userId\": \"" + USER_ID + "\", \"transactionAmount\": {\"amount\": \"" + amount + "\", \"currency\": \"$\", \"debitOrCredit\": \"" + type + "\"}}";
+        mockMvc.perform(put("/api/v1/transaction/" + operation + "/" + messageId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson));
+    }
+}
@@ -0,0 +1,52 @@
+package com.transaction.modules.snapshot.job;
+
+import com.transaction.modules.snapshot.service.BalanceSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotJobTest {
+
+    @Mock
+    private BalanceSnapshotService balanceSnapshotService;
+    @InjectMocks
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceSnapshotJob, "everyEvents", 10L);
+    }
+
+    // Users are snapshotted once their projected events reach the count
+    @Test
+    void snapshotDueUsers() {
+        balanceSnapshotJob.recordEvents("user1", 6);
+        balanceSnapshotJob.recordEvents("user2", 3);
+        balanceSnapshotJob.snapshotDueUsers();
+        verifyNoInteractions(balanceSnapshotService);
+
+        balanceSnapshotJob.recordEvents("user1", 4);
+        balanceSnapshotJob.snapshotDueUsers();
+        balanceSnapshotJob.snapshotDueUsers();
+        verify(balanceSnapshotService, times(1)).snapshot("user1");
+        verify(balanceSnapshotService, never()).snapshot("user2");
+    }
+
+    // Every user with projected events is snapshotted on the interval
+    @Test
+    void snapshotAllUsers() {
+        balanceSnapshotJob.recordEvents("user1", 1);
+        balanceSnapshotJob.recordEvents("user2", 3);
+        balanceSnapshotJob.snapshotAllUsers();
+        balanceSnapshotJob.snapshotAllUsers();
+        verify(balanceSnapshotService, times(1)).snapshot("user1");
+        verify(balanceSnapshotService, times(1)).snapshot("user2");
+    }
+}
@@ -0,0 +1,169 @@
+package com.transaction.modules.snapshot.service;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.snapshot.entity.BalanceSnapshot;
+import com.transaction.modules.snapshot.repository.BalanceSnapshotRepository;
+import com.transaction.modules.transaction.archive.EventArchive;
+import com.transaction.modules.transaction.archive.NoopEventArchive;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.EventTail;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotServiceImplTest {
+
+    private final String userId = "testUser";
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Spy
+    private EventArchive eventArchive = new NoopEventArchive();
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    @InjectMocks
+    private BalanceSnapshotServiceImpl balanceSnapshotService;
+
+    // Only the events after the snapshot are folded into its balance
+    @Test
+    void rebuildFromSnapshot() {
+        BalanceSnapshot balanceSnapshot = new BalanceSnapshot(userId, new UserBalance(50000, 1000));
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.of(balanceSnapshot));
+        when(transactionEventRepository.summarizeTail(userId, 1000)).thenReturn(new EventTail(3L, -2000L, 1001L, 1003L));
+
+        UserBalance userBalance = balanceSnapshotService.rebuild(userId);
+
+        assertEquals(48000, userBalance.getBalance());
+        assertEquals(1003, userBalance.getSequence());
+        verify(transactionEventRepository, never()).findFirstByUserIdOrderBySequenceAsc(userId);
+    }
+
+    // Users without a snapshot are folded from the balance before their first event
+    @Test
+    void rebuildWithoutSnapshot() {
+        TransactionEvent firstEvent = new TransactionEvent();
+        firstEvent.setType(TransactionType.CREDIT);
+        firstEvent.setStatus(TransactionEventStatus.PROCESSED);
+        firstEvent.setAmount(10000);
+        firstEvent.setRunningBalance(15000);
+        firstEvent.setSequence(1);
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.empty());
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceAsc(userId)).thenReturn(firstEvent);
+        when(transactionEventRepository.summarizeTail(userId, 0)).thenReturn(new EventTail(2L, 7000L, 1L, 2L));
+
+        UserBalance userBalance = balanceSnapshotService.rebuild(userId);
+
+        assertEquals(12000, userBalance.getBalance());
+        assertEquals(2, userBalance.getSequence());
+    }
+
+    // Archived events are folded from the first archived event up to the first event left in the table
+    @Test
+    void rebuildWithArchivedEvents() {
+        TransactionEvent firstEvent = new TransactionEvent();
+        firstEvent.setType(TransactionType.DEBIT);
+        firstEvent.setStatus(TransactionEventStatus.PROCESSED);
+        firstEvent.setAmount(1000);
+        firstEvent.setRunningBalance(4000);
+        firstEvent.setSequence(1);
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.empty());
+        doReturn(firstEvent).when(eventArchive).findFirstEvent(userId);
+        when(transactionEventRepository.summarizeTail(userId, 0)).thenReturn(new EventTail(2L, 500L, 11L, 12L));
+        doReturn(new EventTail(10L, -3000L, 1L, 10L)).when(eventArchive).summarizeTail(userId, 0, 11);
+
+        UserBalance userBalance = balanceSnapshotService.rebuild(userId);
+
+        assertEquals(2500, userBalance.getBalance());
+        assertEquals(12, userBalance.getSequence());
+        verify(transactionEventRepository, never()).findFirstByUserIdOrderBySequenceAsc(userId);
+    }
+
+    // Users whose events are all archived keep the sequence of their last archived event
+    @Test
+    void rebuildFromArchiveOnly() {
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.of(new BalanceSnapshot(userId, new UserBalance(100, 5))));
+        when(transactionEventRepository.summarizeTail(userId, 5)).thenReturn(new EventTail(0L, 0L, 0L, 5L));
+        doReturn(new EventTail(2L, 40L, 6L, 7L)).when(eventArchive).summarizeTail(userId, 5, Long.MAX_VALUE);
+
+        UserBalance userBalance = balanceSnapshotService.rebuild(userId);
+
+        assertEquals(140, userBalance.getBalance());
+        assertEquals(7, userBalance.getSequence());
+    }
+
+    // Users without events keep their account balance
+    @Test
+    void rebuildWithoutEvents() {
+        Account account = new Account(userId);
+        account.setBalance(3000);
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.empty());
+        when(accountRepository.findByUserId(userId)).thenReturn(account);
+
+        assertEquals(3000, balanceSnapshotService.rebuild(userId).getBalance());
+    }
+
+    // Snapshots record the rebuilt balance and sequence
+    @Test
+    void snapshot() {
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.of(new BalanceSnapshot(userId, new UserBalance(100, 5))));
+        when(transactionEventRepository.summarizeTail(userId, 5)).thenReturn(new EventTail(1L, 50L, 6L, 6L));
+        when(balanceSnapshotRepository.save(any(BalanceSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BalanceSnapshot balanceSnapshot = balanceSnapshotService.snapshot(userId);
+
+        assertEquals(150, balanceSnapshot.getBalance());
+        assertEquals(6, balanceSnapshot.getSequence());
+    }
+
+    // Every account is rebuilt page by page
+    @Test
+    void rebuildAccounts() {
+        Account account = new Account(userId);
+        when(accountRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(account), PageRequest.of(0, 500), 1));
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.of(new BalanceSnapshot(userId, new UserBalance(100, 5))));
+        when(transactionEventRepository.summarizeTail(userId, 5)).thenReturn(new EventTail(0L, 0L, 0L, 5L));
+
+        assertEquals(1, balanceSnapshotService.rebuildAccounts());
+        assertEquals(100, account.getBalance());
+        assertEquals(5, account.getLastSequence());
+        verify(accountRepository).saveAll(any());
+    }
+
+    // A page with an account updated while it was rebuilt is rebuilt again
+    @Test
+    void rebuildAccountsAfterConflict() {
+        Account account = new Account(userId);
+        when(accountRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(account), PageRequest.of(0, 500), 1));
+        when(balanceSnapshotRepository.findById(userId)).thenReturn(Optional.of(new BalanceSnapshot(userId, new UserBalance(100, 5))));
+        when(transactionEventRepository.summarizeTail(userId, 5)).thenReturn(new EventTail(0L, 0L, 0L, 5L));
+        when(accountRepository.saveAll(any())).thenThrow(new ObjectOptimisticLockingFailureException(Account.class, userId)).thenReturn(List.of(account));
+
+        assertEquals(1, balanceSnapshotService.rebuildAccounts());
+        verify(accountRepository, times(2)).saveAll(any());
+    }
+}
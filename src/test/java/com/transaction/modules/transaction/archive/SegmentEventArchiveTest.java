@@ -0,0 +1,229 @@
+package com.transaction.modules.transaction.archive;
+
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.EventTail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentEventArchiveTest {
+
+    private static final Set<TransactionType> ALL_TYPES = EnumSet.allOf(TransactionType.class);
+
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @TempDir
+    Path directory;
+
+    private SegmentEventArchive eventArchive;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        eventArchive.close();
+    }
+
+    // Transactions are read newest first between the floor and the cursor, every user only sees its own
+    @Test
+    void readTransactions() throws IOException {
+        eventArchive = open(DataSize.ofKilobytes(64));
+        eventArchive.append(List.of(), List.of(transaction(1, "user1", 1), transaction(2, "user2", 1), transaction(3, "user1", 2)));
+        eventArchive.append(List.of(), List.of(transaction(4, "user1", 3), transaction(5, "user1", 4)));
+
+        assertEquals(List.of(5L, 4L, 3L, 1L), ids(eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 10)));
+        assertEquals(List.of(5L, 4L), ids(eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 2)));
+        assertEquals(List.of(4L, 3L), ids(eventArchive.readTransactions("user1", 1, 5, ALL_TYPES, null, null, 10)));
+        assertEquals(List.of(2L), ids(eventArchive.readTransactions("user2", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 10)));
+        assertTrue(eventArchive.readTransactions("unknown", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 10).isEmpty());
+    }
+
+    // Type and date range filters apply to archived transactions as they do to the table
+    @Test
+    void readTransactionsWithFilters() throws IOException {
+        eventArchive = open(DataSize.ofKilobytes(64));
+        Transaction debit = transaction(2, "user1", 2);
+        debit.setType(TransactionType.DEBIT);
+        Transaction old = transaction(3, "user1", 3);
+        old.setCreatedAt(NOW.minusDays(2));
+        eventArchive.append(List.of(), List.of(transaction(1, "user1", 1), debit, old));
+
+        assertEquals(List.of(2L), ids(eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, EnumSet.of(TransactionType.DEBIT), null, null, 10)));
+        assertEquals(List.of(2L, 1L), ids(eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, NOW.minusDays(1), null, 10)));
+        assertEquals(List.of(3L), ids(eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, null, NOW.minusDays(1), 10)));
+    }
+
+    @Test
+    void readTransactionFields() throws IOException {
+        eventArchive = open(DataSize.ofKilobytes(64));
+        Transaction transaction = transaction(7, "user1", 3);
+        eventArchive.append(List.of(), List.of(transaction));
+
+        Transaction archived = eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 1).get(0);
+
+        assertEquals(transaction.getId(), archived.getId());
+        assertEquals(transaction.getUserId(), archived.getUserId());
+        assertEquals(transaction.getSequence(), archived.getSequence());
+        assertEquals(transaction.getType(), archived.getType());
+        assertEquals(transaction.getAmount(), archived.getAmount());
+        assertEquals(transaction.getCurrency(), archived.getCurrency());
+        assertEquals(transaction.getCreatedAt(), archived.getCreatedAt());
+    }
+
+    // Events are folded between the bounds in sequence order, failed events change no balance and events archived twice count once
+    @Test
+    void summarizeTail() throws IOException {
+        eventArchive = open(DataSize.ofKilobytes(64));
+        eventArchive.append(events("user1", 1, 5), List.of());
+        TransactionEvent failed = event("user1", 6, TransactionType.DEBIT, 50000, TransactionEventStatus.FAILED);
+        eventArchive.append(List.of(failed, event("user1", 7, TransactionType.DEBIT, 100, TransactionEventStatus.PROCESSED)), List.of());
+        eventArchive.append(events("user1", 4, 2), List.of());
+
+        EventTail eventTail = eventArchive.summarizeTail("user1", 0, Long.MAX_VALUE);
+        assertEquals(7, eventTail.getEvents());
+        assertEquals(400, eventTail.getBalanceChange());
+        assertEquals(1, eventTail.getFirstSequence());
+        assertEquals(7, eventTail.getLastSequence());
+
+        EventTail bounded = eventArchive.summarizeTail("user1", 2, 6);
+        assertEquals(3, bounded.getEvents());
+        assertEquals(300, bounded.getBalanceChange());
+        assertEquals(3, bounded.getFirstSequence());
+        assertEquals(5, bounded.getLastSequence());
+
+        EventTail empty = eventArchive.summarizeTail("user2", 4, Long.MAX_VALUE);
+        assertEquals(0, empty.getEvents());
+        assertEquals(4, empty.getLastSequence());
+    }
+
+    @Test
+    void firstEventAndLastSequences() throws IOException {
+        eventArchive = open(DataSize.ofKilobytes(64));
+        eventArchive.append(events("user1", 1, 3), List.of(transaction(1, "user1", 1), transaction(2, "user1", 2)));
+        eventArchive.append(events("user1", 4, 2), List.of(transaction(3, "user1", 4)));
+
+        TransactionEvent firstEvent = eventArchive.findFirstEvent("user1");
+        assertEquals(1, firstEvent.getSequence());
+        assertEquals("user1", firstEvent.getUserId());
+        assertEquals(100, firstEvent.getRunningBalance());
+        assertEquals(5, eventArchive.lastSequence("user1"));
+        assertEquals(4, eventArchive.lastTransactionSequence("user1"));
+        assertNull(eventArchive.findFirstEvent("user2"));
+        assertEquals(0, eventArchive.lastSequence("user2"));
+        assertEquals(0, eventArchive.lastTransactionSequence("user2"));
+    }
+
+    // Blocks appended before a restart are indexed again from the segment files, across segments
+    @Test
+    void reopen() throws IOException {
+        eventArchive = open(DataSize.ofBytes(256));
+        for (int sequence = 1; sequence <= 50; sequence++) {
+            eventArchive.append(events("user1", sequence, 1), List.of(transaction(sequence, "user1", sequence)));
+        }
+        eventArchive.close();
+
+        try (var files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+        eventArchive = open(DataSize.ofBytes(256));
+        assertEquals(50, eventArchive.summarizeTail("user1", 0, Long.MAX_VALUE).getEvents());
+        assertEquals(50, eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 100).size());
+        assertEquals(50, eventArchive.lastSequence("user1"));
+    }
+
+    // Every pass adds a block, the newest blocks are merged so a user keeps a logarithmic number of them, also after a restart
+    @Test
+    void compactBlocks() throws IOException {
+        eventArchive = open(DataSize.ofKilobytes(4));
+        for (int sequence = 1; sequence <= 1000; sequence++) {
+            eventArchive.append(events("user1", sequence, 1), List.of(transaction(sequence, "user1", sequence)));
+        }
+
+        // 1000 passes of one event and one transaction leave one block per set bit of 1000
+        assertEquals(Integer.bitCount(1000), eventArchive.blockCount("user1"));
+        assertEquals(1000, eventArchive.summarizeTail("user1", 0, Long.MAX_VALUE).getEvents());
+        assertEquals(1000, eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 2000).size());
+        assertEquals(List.of(1000L, 999L), ids(eventArchive.readTransactions("user1", 0, Long.MAX_VALUE, ALL_TYPES, null, null, 2)));
+        eventArchive.close();
+
+        eventArchive = open(DataSize.ofKilobytes(4));
+        assertEquals(Integer.bitCount(1000), eventArchive.blockCount("user1"));
+        assertEquals(1000, eventArchive.summarizeTail("user1", 0, Long.MAX_VALUE).getEvents());
+        assertEquals(1, eventArchive.findFirstEvent("user1").getSequence());
+        assertEquals(1000, eventArchive.lastTransactionSequence("user1"));
+    }
+
+    // A block cut off by a crash is dropped on startup and new blocks are appended in its place
+    @Test
+    void truncateTornBlock() throws IOException {
+        eventArchive = open(DataSize.ofKilobytes(64));
+        eventArchive.append(events("user1", 1, 3), List.of());
+        // Smaller than the block before it, so it is not merged and stays the last block of the segment
+        eventArchive.append(events("user1", 4, 2), List.of());
+        eventArchive.close();
+
+        Path segment = directory.resolve("archive-0.seg");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        eventArchive = open(DataSize.ofKilobytes(64));
+        assertEquals(3, eventArchive.lastSequence("user1"));
+        eventArchive.append(events("user1", 4, 3), List.of());
+        eventArchive.close();
+
+        eventArchive = open(DataSize.ofKilobytes(64));
+        assertEquals(6, eventArchive.summarizeTail("user1", 0, Long.MAX_VALUE).getEvents());
+    }
+
+    private SegmentEventArchive open(DataSize segmentSize) throws IOException {
+        return new SegmentEventArchive(directory, segmentSize);
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+
+    private static List<TransactionEvent> events(String userId, int firstSequence, int count) {
+        List<TransactionEvent> events = new ArrayList<>();
+        for (int sequence = firstSequence; sequence < firstSequence + count; sequence++) {
+            events.add(event(userId, sequence, TransactionType.CREDIT, 100, TransactionEventStatus.PROCESSED));
+        }
+        return events;
+    }
+
+    private static TransactionEvent event(String userId, long sequence, TransactionType type, long amount, TransactionEventStatus status) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setMessageId(String.format("%s-%06d", userId, sequence));
+        transactionEvent.setUserId(userId);
+        transactionEvent.setSequence(sequence);
+        transactionEvent.setType(type);
+        transactionEvent.setAmount(amount);
+        transactionEvent.setRunningBalance(sequence * 100L);
+        transactionEvent.setCurrency("USD");
+        transactionEvent.setStatus(status);
+        transactionEvent.setCreatedAt(NOW);
+        return transactionEvent;
+    }
+
+    private static Transaction transaction(long id, String userId, long sequence) {
+        return new Transaction(id, userId, sequence, TransactionType.CREDIT, 100, "USD", NOW);
+    }
+}
@@ -0,0 +1,69 @@
+package com.transaction.modules.transaction.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceCacheTest {
+
+    // Returns null on a miss and the stored balance on a hit
+    @Test
+    void getAndPut() {
+        BalanceCache balanceCache = new BalanceCache(10);
+        assertNull(balanceCache.get("user1"));
+
+        balanceCache.put("user1", new UserBalance(10000, 1));
+        UserBalance userBalance = balanceCache.get("user1");
+        assertEquals(10000, userBalance.getBalance());
+        assertEquals(1, userBalance.getSequence());
+        assertEquals(1, balanceCache.getHitCount());
+        assertEquals(1, balanceCache.getMissCount());
+        assertEquals(1, balanceCache.size());
+    }
+
+    // Invalidated users are reloaded on the next access
+    @Test
+    void invalidate() {
+        BalanceCache balanceCache = new BalanceCache(10);
+        balanceCache.put("user1", new UserBalance(10000, 1));
+        balanceCache.invalidate("user1");
+        assertNull(balanceCache.get("user1"));
+        assertEquals(0, balanceCache.size());
+    }
+
+    // A balance saved out of order never replaces the balance of a later event
+    @Test
+    void advanceKeepsLatestSequence() {
+        BalanceCache balanceCache = new BalanceCache(10);
+        balanceCache.put("user1", new UserBalance(300, 3));
+        balanceCache.advance("user1", new UserBalance(200, 2));
+        assertEquals(300, balanceCache.get("user1").getBalance());
+
+        balanceCache.advance("user1", new UserBalance(400, 4));
+        assertEquals(4, balanceCache.get("user1").getSequence());
+    }
+
+    // A user that is not cached is never stored from a balance that may be older than an evicted one
+    @Test
+    void advanceSkipsUncachedUser() {
+        BalanceCache balanceCache = new BalanceCache(10);
+        balanceCache.advance("user1", new UserBalance(200, 2));
+
+        assertNull(balanceCache.get("user1"));
+    }
+
+    // Cold users are evicted once the maximum size is reached
+    @Test
+    void evictsLeastRecentlyUsed() {
+        BalanceCache balanceCache = new BalanceCache(2);
+        balanceCache.put("user1", new UserBalance(100, 1));
+        balanceCache.put("user2", new UserBalance(200, 1));
+        balanceCache.get("user1");
+        balanceCache.put("user3", new UserBalance(300, 1));
+
+        assertEquals(2, balanceCache.size());
+        assertEquals(100, balanceCache.get("user1").getBalance());
+        assertNull(balanceCache.get("user2"));
+        assertEquals(300, balanceCache.get("user3").getBalance());
+    }
+}
@@ -0,0 +1,96 @@
+package com.transaction.modules.transaction.cache;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.journal.JournalRecovery;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageIdRegistryTest {
+
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+    @Spy
+    private MessageIdRegistry messageIdRegistry = new MessageIdRegistry(1000, 1);
+    private TransactionEvent transactionEvent;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(messageIdRegistry, "transactionEventRepository", transactionEventRepository);
+        ReflectionTestUtils.setField(messageIdRegistry, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        transactionEvent = event("message1");
+    }
+
+    // New message ids are answered without querying the database
+    @Test
+    void findNewMessageId() {
+        assertTrue(messageIdRegistry.find("message1").isEmpty());
+        assertEquals(1, messageIdRegistry.getSkippedLookups());
+        verify(transactionEventRepository, never()).findById(anyString());
+    }
+
+    // Recorded message ids are served from the cache
+    @Test
+    void findRecordedMessageId() {
+        messageIdRegistry.record(transactionEvent);
+        assertSame(transactionEvent, messageIdRegistry.find("message1").orElseThrow());
+        assertEquals(1, messageIdRegistry.getHitCount());
+        verify(transactionEventRepository, never()).findById(anyString());
+    }
+
+    // Message ids evicted from the cache are read from the database
+    @Test
+    void findEvictedMessageId() {
+        messageIdRegistry.record(transactionEvent);
+        messageIdRegistry.record(event("message2"));
+        when(transactionEventRepository.findById("message1")).thenReturn(Optional.of(transactionEvent));
+
+        assertSame(transactionEvent, messageIdRegistry.find("message1").orElseThrow());
+        assertEquals(1, messageIdRegistry.getMissCount());
+    }
+
+    // Message ids saved before startup are known after seeding
+    @Test
+    void seed() {
+        when(transactionEventRepository.streamAllMessageIds()).thenReturn(Stream.of("message1"));
+        when(transactionEventRepository.findById("message1")).thenReturn(Optional.of(transactionEvent));
+        messageIdRegistry.seed();
+
+        assertTrue(messageIdRegistry.find("message1").isPresent());
+        assertEquals(0, messageIdRegistry.getSkippedLookups());
+    }
+
+    // Seeding runs on start, after the journal recovery and before the web server
+    @Test
+    void startBeforeWebServer() {
+        when(transactionEventRepository.streamAllMessageIds()).thenReturn(Stream.of("message1"));
+        messageIdRegistry.start();
+
+        assertTrue(messageIdRegistry.isRunning());
+        assertTrue(messageIdRegistry.getPhase() > JournalRecovery.PHASE);
+        assertTrue(messageIdRegistry.getPhase() < WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1024);
+        verify(messageIdRegistry).seed();
+    }
+
+    private TransactionEvent event(String messageId) {
+        TransactionEvent event = new TransactionEvent();
+        event.setMessageId(messageId);
+        return event;
+    }
+}
@@ -0,0 +1,207 @@
+package com.transaction.modules.transaction.commit;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.job.ProjectorHandoff;
+import com.transaction.modules.transaction.journal.EventJournal;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class EventGroupCommitterTest {
+
+    private final TransactionEventRepository transactionEventRepository = mock(TransactionEventRepository.class);
+
+    private final EventJournal eventJournal = mock(EventJournal.class);
+
+    private final ProjectorHandoff projectorHandoff = mock(ProjectorHandoff.class);
+
+    private final List<Integer> groupSizes = Collections.synchronizedList(new ArrayList<>());
+
+    private EventGroupCommitter eventGroupCommitter;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        eventGroupCommitter.stop();
+    }
+
+    // Events committed concurrently share transactions and every caller returns once its group is saved
+    @Test
+    void commitConcurrentEvents() throws Exception {
+        start(256, Duration.ofMillis(5));
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            groupSizes.add(invocation.<List<?>>getArgument(0).size());
+            return null;
+        });
+
+        assertTrue(commitConcurrently(100).isEmpty());
+
+        assertEquals(100, eventGroupCommitter.getCommittedEvents());
+        assertEquals(100, groupSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(eventGroupCommitter.getGroups() < 100);
+        verify(eventJournal, times(groupSizes.size())).appendAfterCommit(anyList());
+        verify(projectorHandoff, times(groupSizes.size())).handOffAfterCommit(anyList());
+    }
+
+    // A group is flushed as soon as the window is full
+    @Test
+    void commitWindowSize() throws Exception {
+        start(4, Duration.ofSeconds(1));
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            groupSizes.add(invocation.<List<?>>getArgument(0).size());
+            return null;
+        });
+
+        long started = System.nanoTime();
+        assertTrue(commitConcurrently(8).isEmpty());
+
+        assertTrue(groupSizes.stream().allMatch(size -> size <= 4));
+        assertEquals(8, eventGroupCommitter.getCommittedEvents());
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(3)) < 0);
+    }
+
+    // A failing event only fails its own caller, the rest of its group is saved one by one
+    @Test
+    void commitFailedEvent() throws Exception {
+        start(256, Duration.ofMillis(20));
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TransactionEvent> transactionEvents = invocation.getArgument(0);
+            if (transactionEvents.stream().anyMatch(transactionEvent -> transactionEvent.getMessageId().equals("message3"))) {
+                throw new DataIntegrityViolationException("duplicate");
+            }
+            groupSizes.add(transactionEvents.size());
+            return null;
+        });
+
+        List<Throwable> failures = commitConcurrently(10);
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof DataIntegrityViolationException);
+        assertEquals(9, eventGroupCommitter.getCommittedEvents());
+        // Groups holding the failing event are never journaled, the other events are journaled once
+        verify(eventJournal, never()).appendAfterCommit(argThat(transactionEvents -> transactionEvents.stream()
+                .anyMatch(transactionEvent -> transactionEvent.getMessageId().equals("message3"))));
+        verify(eventJournal, times(groupSizes.size())).appendAfterCommit(anyList());
+    }
+
+    @Test
+    void commitStopped() throws InterruptedException {
+        start(256, Duration.ofMillis(1));
+        eventGroupCommitter.stop();
+
+        assertThrows(IllegalStateException.class, () -> eventGroupCommitter.commit(event("message1")));
+    }
+
+    // Stopping while a group is still being collected fails its callers instead of leaving them waiting
+    @Test
+    void commitStoppedWhileCollecting() throws Exception {
+        start(256, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<?> future = executorService.submit(() -> eventGroupCommitter.commit(event("message1")));
+        // The committer takes the event right away and then waits for the rest of the group
+        Thread.sleep(200);
+        assertTrue(((BlockingQueue<?>) ReflectionTestUtils.getField(eventGroupCommitter, "queue")).isEmpty());
+        assertFalse(future.isDone());
+
+        eventGroupCommitter.stop();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        verify(transactionEventRepository, never()).saveAll(anyList());
+        executorService.shutdown();
+    }
+
+    // A caller timing out withdraws its queued event, an event already in a group may still commit
+    @Test
+    void commitTimedOut() throws Exception {
+        start(1, Duration.ofMillis(1), Duration.ofMillis(200));
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            saving.countDown();
+            release.await();
+            return null;
+        });
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<?> inFlight = executorService.submit(() -> eventGroupCommitter.commit(event("message1")));
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+
+        IllegalStateException queued = assertThrows(IllegalStateException.class, () -> eventGroupCommitter.commit(event("message2")));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> inFlight.get(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertTrue(queued.getMessage().contains("was not committed"));
+        assertTrue(exception.getCause().getMessage().contains("may still be committed"));
+        // Only the group of the first event was saved, the withdrawn event never reaches the repository
+        verify(transactionEventRepository, times(1)).saveAll(anyList());
+        executorService.shutdown();
+    }
+
+    private void start(int windowSize, Duration maxWait) {
+        start(windowSize, maxWait, Duration.ofSeconds(10));
+    }
+
+    private void start(int windowSize, Duration maxWait, Duration commitTimeout) {
+        eventGroupCommitter = new EventGroupCommitter(windowSize, maxWait, commitTimeout);
+        ReflectionTestUtils.setField(eventGroupCommitter, "transactionEventRepository", transactionEventRepository);
+        ReflectionTestUtils.setField(eventGroupCommitter, "eventJournal", eventJournal);
+        ReflectionTestUtils.setField(eventGroupCommitter, "projectorHandoff", projectorHandoff);
+        ReflectionTestUtils.setField(eventGroupCommitter, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        eventGroupCommitter.start();
+    }
+
+    private List<Throwable> commitConcurrently(int callers) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(callers);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            TransactionEvent transactionEvent = event("message" + i);
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                eventGroupCommitter.commit(transactionEvent);
+                return null;
+            }));
+        }
+        startLatch.countDown();
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        executorService.shutdown();
+        return failures;
+    }
+
+    private static TransactionEvent event(String messageId) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setMessageId(messageId);
+        return transactionEvent;
+    }
+}
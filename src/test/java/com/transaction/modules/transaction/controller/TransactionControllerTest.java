@@ -28,7 +28,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// Own database, the projectors of other cached test contexts would otherwise project the events of this test as well
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:transaction-controller-test;DB_CLOSE_DELAY=-1")
 @AutoConfigureMockMvc
 class TransactionControllerTest {
 
@@ -68,7 +69,7 @@ class TransactionControllerTest {
 
         assertEquals(userId, jsonNode.get("userId").asText());
         assertEquals(messageId, jsonNode.get("messageId").asText());
-        assertEquals("100.0", jsonNode.get("balance").get("amount").asText());
+        assertEquals("100.00", jsonNode.get("balance").get("amount").asText());
         assertEquals("$", jsonNode.get("balance").get("currency").asText());
         assertEquals("CREDIT", jsonNode.get("balance").get("debitOrCredit").asText());
 
@@ -78,24 +79,27 @@ class TransactionControllerTest {
         }
         TransactionEvent transactionEvent = optionalTransactionEvent.get();
         assertEquals(transactionEvent.getUserId(), userId);
-        assertEquals(transactionEvent.getAmount(), 100.0);
-        assertEquals(transactionEvent.getStatus(), TransactionEventStatus.PENDING);
+        assertEquals(transactionEvent.getAmount(), 10000);
+        // Saved as pending, the projector running in background may already have processed it
+        assertNotEquals(TransactionEventStatus.FAILED, transactionEvent.getStatus());
         assertEquals(transactionEvent.getCurrency(), "$");
-        assertEquals(transactionEvent.getRunningBalance(), 100.0);
+        assertEquals(transactionEvent.getRunningBalance(), 10000);
         assertEquals(transactionEvent.getType(), TransactionType.CREDIT);
         assertNotNull(transactionEvent.getCreatedAt());
 
         await().atMost(5, SECONDS).untilAsserted(() -> {
+            assertEquals(TransactionEventStatus.PROCESSED, transactionEventRepository.findById(messageId).orElseThrow().getStatus());
+
             Account account = accountRepository.findByUserId(userId);
             assertNotNull(account);
-            assertEquals(account.getBalance(), 100.0);
+            assertEquals(account.getBalance(), 10000);
             assertEquals(account.getUserId(), userId);
 
             List<Transaction> transactionList = transactionRepository.findByUserId(userId);
             assertEquals(transactionList.size(), 1);
             Transaction transaction = transactionList.get(0);
             assertNotNull(transaction);
-            assertEquals(transaction.getAmount(), 100.0);
+            assertEquals(transaction.getAmount(), 10000);
             assertEquals(transaction.getType(), TransactionType.CREDIT);
             assertEquals(transaction.getCurrency(), "$");
             assertEquals(transaction.getUserId(), userId);
@@ -271,7 +275,7 @@ class TransactionControllerTest {
 
         assertEquals(userId, jsonNode.get("userId").asText());
         assertEquals(messageId, jsonNode.get("messageId").asText());
-        assertEquals("50.0", jsonNode.get("balance").get("amount").asText());
+        assertEquals("50.00", jsonNode.get("balance").get("amount").asText());
         assertEquals("$", jsonNode.get("balance").get("currency").asText());
         assertEquals("DEBIT", jsonNode.get("balance").get("debitOrCredit").asText());
 
@@ -281,15 +285,15 @@ class TransactionControllerTest {
         }
         TransactionEvent transactionEvent = optionalTransactionEvent.get();
         assertEquals(transactionEvent.getUserId(), userId);
-        assertEquals(transactionEvent.getAmount(), 50);
+        assertEquals(transactionEvent.getAmount(), 5000);
         assertEquals(transactionEvent.getCurrency(), "$");
-        assertEquals(transactionEvent.getRunningBalance(), 50.0);
+        assertEquals(transactionEvent.getRunningBalance(), 5000);
         assertEquals(transactionEvent.getType(), TransactionType.DEBIT);
 
         await().atMost(5, SECONDS).untilAsserted(() -> {
             Account account = accountRepository.findByUserId(userId);
             assertNotNull(account);
-            assertEquals(account.getBalance(), 50.0);
+            assertEquals(account.getBalance(), 5000);
 
             List<Transaction> transactionList = transactionRepository.findByUserId(userId);
             assertEquals(transactionList.size(), 2);
@@ -299,7 +303,7 @@ class TransactionControllerTest {
             assertTrue(debitTransaction.isPresent());
 
             Transaction transaction = debitTransaction.get();
-            assertEquals(transaction.getAmount(), 50.0);
+            assertEquals(transaction.getAmount(), 5000);
             assertEquals(transaction.getType(), TransactionType.DEBIT);
             assertEquals(transaction.getCurrency(), "$");
             assertEquals(transaction.getUserId(), userId);
@@ -474,4 +478,80 @@ class TransactionControllerTest {
         assertEquals("Currency cannot be empty.", jsonNode.get("message").asText());
         assertEquals("400", jsonNode.get("code").asText());
     }
-}
\ No newline at end of file
+
+    @Test
+    void batch() throws Exception {
+        String userId = "6b1e7a2c-batch-4f0e-9d3a-1c2b3d4e5f60";
+        accountRepository.save(new Account(userId));
+
+        // Prepare request data
+        String requestJson = "{\"items\": [\n" +
+                " {\"messageId\": \"batch-message-1\", \"userId\": \"" + userId + "\", \"transactionAmount\": {\"amount\": \"100\", \"currency\": \"$\", \"debitOrCredit\": \"CREDIT\"}},\n" +
+                " {\"messageId\": \"batch-message-2\", \"userId\": \"" + userId + "\", \"transactionAmount\": {\"amount\": \"30\", \"currency\": \"$\", \"debitOrCredit\": \"DEBIT\"}},\n" +
+                " {\"messageId\": \"batch-message-3\", \"userId\": \"" + userId + "\", \"transactionAmount\": {\"amount\": \"500\", \"currency\": \"$\", \"debitOrCredit\": \"DEBIT\"}},\n" +
+                " {\"messageId\": \"batch-message-4\", \"userId\": \"unknown-batch-user\", \"transactionAmount\": {\"amount\": \"10\", \"currency\": \"$\", \"debitOrCredit\": \"CREDIT\"}}\n" +
+                "]}";
+
+        // Send put request to the endpoint
+        MvcResult mvcResult = mockMvc.perform(put("/api/v1/transaction/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode results = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString()).get("results");
+
+        assertEquals(4, results.size());
+        assertEquals("batch-message-1", results.get(0).get("messageId").asText());
+        assertEquals("100.00", results.get(0).get("balance").get("amount").asText());
+        assertEquals("APPROVED", results.get(1).get("responseCode").asText());
+        assertEquals("70.00", results.get(1).get("balance").get("amount").asText());
+        assertEquals(400, results.get(2).get("code").asInt());
+        assertEquals("Insufficient balance", results.get(2).get("message").asText());
+        assertEquals("User not found for user id unknown-batch-user", results.get(3).get("message").asText());
+
+        await().atMost(5, SECONDS).untilAsserted(() -> {
+            assertEquals(7000, accountRepository.findByUserId(userId).getBalance());
+            assertEquals(2, transactionRepository.findByUserId(userId).size());
+        });
+    }
+
+    @Test
+    void batchErrorEmptyItems() throws Exception {
+
+        // Send put request to the endpoint
+        MvcResult mvcResult = mockMvc.perform(put("/api/v1/transaction/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\": []}"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        JsonNode jsonNode = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString());
+
+        assertEquals("Items cannot be empty.", jsonNode.get("message").asText());
+        assertEquals("400", jsonNode.get("code").asText());
+    }
+
+    @Test
+    void stream() throws Exception {
+        String userId = "0f9d8c7b-stream-4a5b-8c9d-0e1f2a3b4c5d";
+        accountRepository.save(new Account(userId));
+
+        // Prepare request data
+        String records = "{\"messageId\": \"stream-message-1\", \"userId\": \"" + userId + "\", \"transactionAmount\": {\"amount\": \"100\", \"currency\": \"$\", \"debitOrCredit\": \"CREDIT\"}}\n" +
+                "{\"messageId\": \"stream-message-2\", \"userId\": \"" + userId + "\", \"transactionAmount\": {\"amount\": \"40\", \"currency\": \"$\", \"debitOrCredit\": \"DEBIT\"}}\n";
+
+        // Send put request to the endpoint
+        MvcResult mvcResult = mockMvc.perform(put("/api/v1/transaction/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(records))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, mvcResult.getResponse().getContentType());
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("100.00", new ObjectMapper().readTree(lines[0]).get("balance").get("amount").asText());
+        assertEquals("60.00", new ObjectMapper().readTree(lines[1]).get("balance").get("amount").asText());
+    }
+}
@@ -0,0 +1,148 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import com.transaction.modules.transaction.service.TransactionEventService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+ * Concurrent traffic of many users projected from the handoff
+ * After the scan of the first pass of every partition, the event table is no longer scanned however much traffic there is
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:handed-off-projection-test;DB_CLOSE_DELAY=-1",
+        "transaction.projector.partitions=4",
+        "transaction.projector.chunk-size=50",
+        "transaction.projector.sweeper.grace-period=1h"
+})
+class HandedOffProjectionTest {
+
+    private static final int USERS = 40;
+
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private TransactionEventService transactionEventService;
+
+    @Autowired
+    private ProjectorHandoff projectorHandoff;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Every round loads 1.00 and authorizes 0.40 per user in parallel, with a declined authorization every other round
+    @Test
+    void projectHandedOffEvents() {
+        for (int user = 0; user < USERS; user++) {
+            accountRepository.save(new Account(userId(user)));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        long scansAfterFirstRound = 0;
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                int currentRound = round;
+                List<CompletableFuture<Void>> requests = new ArrayList<>(USERS);
+                for (int user = 0; user < USERS; user++) {
+                    int currentUser = user;
+                    requests.add(CompletableFuture.runAsync(() -> traffic(currentUser, currentRound), executorService));
+                }
+                CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+                await().atMost(10, SECONDS).until(() -> transactionEventRepository.countByStatus(TransactionEventStatus.PENDING) == 0);
+                if (round == 0) {
+                    scansAfterFirstRound = scans();
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(scansAfterFirstRound, scans());
+        assertEquals(ROUNDS * USERS * 2L, projectorHandoff.getHandedOffCount());
+        assertEquals(ROUNDS * USERS * 2L, transactionRepository.count());
+        for (int user = 0; user < USERS; user++) {
+            Account account = accountRepository.findByUserId(userId(user));
+            assertEquals(ROUNDS * 60L, account.getBalance());
+            assertEquals(ROUNDS * 2L + (ROUNDS + 1) / 2, account.getLastSequence());
+        }
+    }
+
+    private void traffic(int user, int round) {
+        load(user, round);
+        if (round % 2 == 0) {
+            assertThrows(IllegalArgumentException.class, () -> authorize(user, round, "declined", "1000000.00"));
+        }
+        authorize(user, round, "authorized", "0.40");
+    }
+
+    // Reads of pending events from the event table, through the repository metrics
+    private long scans() {
+        return meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "TransactionEventRepository")
+                .tag("method", "findByStatusInPartition")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private void load(int user, int round) {
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(userId(user));
+        loadRequest.setMessageId(messageId(user, round, "load"));
+        loadRequest.setTransactionAmount(amount("1.00", TransactionType.CREDIT));
+        transactionEventService.load(loadRequest, loadRequest.getMessageId());
+    }
+
+    private void authorize(int user, int round, String name, String value) {
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(userId(user));
+        authorizationRequest.setMessageId(messageId(user, round, name));
+        authorizationRequest.setTransactionAmount(amount(value, TransactionType.DEBIT));
+        transactionEventService.authorize(authorizationRequest, authorizationRequest.getMessageId());
+    }
+
+    private static Amount amount(String value, TransactionType type) {
+        Amount amount = new Amount();
+        amount.setAmount(value);
+        amount.setCurrency("USD");
+        amount.setDebitOrCredit(type);
+        return amount;
+    }
+
+    private static String userId(int user) {
+        return "handoff-user-" + user;
+    }
+
+    private static String messageId(int user, int round, String name) {
+        return "handoff-" + user + "-" + round + "-" + name;
+    }
+}
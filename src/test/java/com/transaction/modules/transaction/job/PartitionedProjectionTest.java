@@ -0,0 +1,163 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.PartitionBacklog;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Events of many users appended in waves while four partitions project them in parallel
+ * The accounts and transactions must end up as a sequential fold of every user's events in sequence order
+ * The events are saved without the handoff, so every pass scans the event table
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:partitioned-projection-test;DB_CLOSE_DELAY=-1",
+        "transaction.projector.partitions=4",
+        "transaction.projector.handoff.enabled=false",
+        "transaction.projector.chunk-size=50",
+        "transaction.projector.executor.core-size=4",
+        "transaction.projector.executor.max-size=4"
+})
+class PartitionedProjectionTest {
+
+    private static final int PARTITIONS = 4;
+
+    private static final int USERS = 200;
+
+    private static final int WAVES = 5;
+
+    private static final int EVENTS_PER_WAVE = 6;
+
+    @Autowired
+    private ProjectorTrigger projectorTrigger;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void partitionedProjectionMatchesSequentialFold() {
+        Random random = new Random(23);
+        List<String> userIds = IntStream.range(0, USERS).mapToObj(user -> "partitioned-user-" + user).toList();
+        userIds.forEach(userId -> accountRepository.save(new Account(userId)));
+        assertEquals(PARTITIONS, userIds.stream().map(userId -> TransactionEvent.hashUserId(userId) % PARTITIONS).distinct().count());
+
+        Map<String, List<TransactionEvent>> userEvents = new HashMap<>();
+        userIds.forEach(userId -> userEvents.put(userId, events(userId, random)));
+
+        // Every wave interleaves the next events of all users, keeping each user's events in order, without waiting for the projector
+        for (int wave = 0; wave < WAVES; wave++) {
+            List<TransactionEvent> waveEvents = interleave(userIds, userEvents, wave, random);
+            transactionTemplate.executeWithoutResult(status -> transactionEventRepository.saveAll(waveEvents));
+            projectorTrigger.signal();
+        }
+        await().atMost(30, SECONDS).until(() -> transactionEventRepository.countByStatus(TransactionEventStatus.PENDING) == 0);
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TRANSACTION_EVENT WHERE USER_HASH = 0", Long.class));
+        List<PartitionBacklog> processed = transactionEventRepository.summarizeByPartition(TransactionEventStatus.PROCESSED, PARTITIONS);
+        assertEquals(PARTITIONS, processed.size());
+        assertEquals(transactionEventRepository.countByStatus(TransactionEventStatus.PROCESSED), processed.stream().mapToLong(PartitionBacklog::getEvents).sum());
+        Map<String, List<Transaction>> userTransactions = transactionRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Transaction::getUserId));
+        for (String userId : userIds) {
+            List<TransactionEvent> projected = userEvents.get(userId).stream()
+                    .filter(transactionEvent -> transactionEvent.getStatus() != TransactionEventStatus.FAILED)
+                    .toList();
+            TransactionEvent latest = projected.get(projected.size() - 1);
+
+            Account account = accountRepository.findByUserId(userId);
+            assertEquals(latest.getRunningBalance(), account.getBalance());
+            assertEquals(latest.getSequence(), account.getLastSequence());
+
+            // Transactions of the user were created in the order of the user's events
+            List<Transaction> transactions = userTransactions.get(userId).stream().sorted(Comparator.comparingLong(Transaction::getId)).toList();
+            assertEquals(projected.stream().map(TransactionEvent::getSequence).toList(), transactions.stream().map(Transaction::getSequence).toList());
+            assertEquals(projected.stream().map(TransactionEvent::getAmount).toList(), transactions.stream().map(Transaction::getAmount).toList());
+        }
+    }
+
+    // Loads and debits with their running balances, a debit larger than the balance is declined and does not change it
+    private static List<TransactionEvent> events(String userId, Random random) {
+        List<TransactionEvent> events = new ArrayList<>(WAVES * EVENTS_PER_WAVE);
+        long balance = 0;
+        for (int sequence = 1; sequence <= WAVES * EVENTS_PER_WAVE; sequence++) {
+            long amount = 100 + random.nextInt(10000);
+            boolean credit = sequence == 1 || random.nextBoolean();
+            TransactionEventStatus status = TransactionEventStatus.PENDING;
+            if (credit) {
+                balance += amount;
+            } else if (amount <= balance) {
+                balance -= amount;
+            } else {
+                status = TransactionEventStatus.FAILED;
+            }
+            events.add(event(userId, sequence, credit ? TransactionType.CREDIT : TransactionType.DEBIT, amount, balance, status));
+        }
+        return events;
+    }
+
+    private static List<TransactionEvent> interleave(List<String> userIds, Map<String, List<TransactionEvent>> userEvents, int wave, Random random) {
+        Map<String, Integer> next = new HashMap<>();
+        List<String> remaining = new ArrayList<>(userIds);
+        List<TransactionEvent> interleaved = new ArrayList<>(userIds.size() * EVENTS_PER_WAVE);
+        while (!remaining.isEmpty()) {
+            int index = random.nextInt(remaining.size());
+            String userId = remaining.get(index);
+            int position = next.merge(userId, 1, Integer::sum) - 1;
+            interleaved.add(userEvents.get(userId).get(wave * EVENTS_PER_WAVE + position));
+            if (position == EVENTS_PER_WAVE - 1) {
+                remaining.remove(index);
+            }
+        }
+        return interleaved;
+    }
+
+    private static TransactionEvent event(String userId, long sequence, TransactionType type, long amount, long balance, TransactionEventStatus status) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setMessageId(userId + "-" + sequence);
+        transactionEvent.setUserId(userId);
+        transactionEvent.setSequence(sequence);
+        transactionEvent.setType(type);
+        transactionEvent.setAmount(amount);
+        transactionEvent.setRunningBalance(balance);
+        transactionEvent.setCurrency("USD");
+        transactionEvent.setStatus(status);
+        transactionEvent.setCreatedAt(LocalDateTime.now());
+        return transactionEvent;
+    }
+}
@@ -0,0 +1,98 @@
+package com.transaction.modules.transaction.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectorExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ProjectorExecutor projectorExecutor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        projectorExecutor.shutdown();
+    }
+
+    // Submissions beyond the worker and the queue are rejected and counted
+    @Test
+    void abortWhenFull() {
+        projectorExecutor = start();
+        projectorExecutor.execute(this::block);
+        projectorExecutor.execute(this::block);
+        await().untilAsserted(() -> assertEquals(1, projectorExecutor.getActiveWorkers()));
+
+        assertThrows(TaskRejectedException.class, () -> projectorExecutor.execute(this::block));
+        assertEquals(1, projectorExecutor.getQueueDepth());
+        assertEquals(1, projectorExecutor.getRejectedCount());
+    }
+
+    // Completed tasks are counted with their latency from submission to completion
+    @Test
+    void recordsLatency() {
+        projectorExecutor = start();
+        projectorExecutor.execute(() -> sleep(50));
+        projectorExecutor.execute(() -> sleep(50));
+
+        await().untilAsserted(() -> assertEquals(2, projectorExecutor.getCompletedCount()));
+        assertTrue(projectorExecutor.getAverageLatency().toMillis() >= 50);
+        assertTrue(projectorExecutor.getMaxLatency().toMillis() >= 100);
+    }
+
+    @Test
+    void namedThreads() {
+        projectorExecutor = start();
+        AtomicReference<String> threadName = new AtomicReference<>();
+        projectorExecutor.execute(() -> threadName.set(Thread.currentThread().getName()));
+
+        await().untilAsserted(() -> assertTrue(threadName.get() != null && threadName.get().startsWith("projector-")));
+    }
+
+    // Queued tasks are still run when the executor shuts down
+    @Test
+    void drainOnShutdown() {
+        projectorExecutor = start();
+        AtomicInteger runs = new AtomicInteger();
+        projectorExecutor.execute(() -> sleep(50));
+        projectorExecutor.execute(runs::incrementAndGet);
+
+        projectorExecutor.shutdown();
+
+        assertEquals(1, runs.get());
+    }
+
+    private ProjectorExecutor start() {
+        ProjectorExecutor executor = new ProjectorExecutor(1, 1, 1, Duration.ofSeconds(5), false);
+        executor.initialize();
+        return executor;
+    }
+
+    private void block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
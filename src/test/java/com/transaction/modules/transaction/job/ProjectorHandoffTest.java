@@ -0,0 +1,115 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectorHandoffTest {
+
+    private static final int PARTITIONS = 4;
+
+    private static final String USER_ID = "testUser";
+
+    private final int partition = TransactionEvent.hashUserId(USER_ID) % PARTITIONS;
+
+    private ProjectorHandoff projectorHandoff;
+
+    @BeforeEach
+    void setUp() {
+        projectorHandoff = handoff(true, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Every partition scans once after a start
+    @Test
+    void scanOnStart() {
+        for (int i = 0; i < PARTITIONS; i++) {
+            assertTrue(projectorHandoff.takeScanRequest(i));
+            assertFalse(projectorHandoff.takeScanRequest(i));
+        }
+    }
+
+    // Pending events are queued to the user's partition in order, declined events are not projected and skipped
+    @Test
+    void handOff() {
+        List<TransactionEvent> events = List.of(event(1, TransactionEventStatus.PENDING), event(2, TransactionEventStatus.FAILED),
+                event(3, TransactionEventStatus.PENDING));
+        projectorHandoff.handOffAfterCommit(events);
+
+        assertEquals(List.of(events.get(0)), projectorHandoff.take(partition, 1));
+        assertEquals(List.of(events.get(2)), projectorHandoff.take(partition, 10));
+        assertEquals(2, projectorHandoff.getHandedOffCount());
+        for (int i = 0; i < PARTITIONS; i++) {
+            assertTrue(projectorHandoff.take(i, 10).isEmpty());
+        }
+    }
+
+    // Events of a transaction are only handed off once it has committed
+    @Test
+    void handOffAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionEvent transactionEvent = event(1, TransactionEventStatus.PENDING);
+        projectorHandoff.handOffAfterCommit(List.of(transactionEvent));
+        assertTrue(projectorHandoff.take(partition, 10).isEmpty());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertEquals(List.of(transactionEvent), projectorHandoff.take(partition, 10));
+    }
+
+    // An event not fitting into the full buffer requests a scan, which drops the buffered events
+    @Test
+    void overflow() {
+        projectorHandoff.takeScanRequest(partition);
+        projectorHandoff.handOffAfterCommit(List.of(event(1, TransactionEventStatus.PENDING), event(2, TransactionEventStatus.PENDING),
+                event(3, TransactionEventStatus.PENDING), event(4, TransactionEventStatus.PENDING)));
+
+        assertTrue(projectorHandoff.takeScanRequest(partition));
+        assertTrue(projectorHandoff.take(partition, 10).isEmpty());
+        assertEquals(3, projectorHandoff.getDroppedCount());
+    }
+
+    // Without the handoff nothing is queued and every pass scans
+    @Test
+    void disabled() {
+        projectorHandoff = handoff(false, 3);
+        projectorHandoff.handOffAfterCommit(List.of(event(1, TransactionEventStatus.PENDING)));
+        assertTrue(projectorHandoff.take(partition, 10).isEmpty());
+        assertTrue(projectorHandoff.takeScanRequest(partition));
+        assertTrue(projectorHandoff.takeScanRequest(partition));
+    }
+
+    private static ProjectorHandoff handoff(boolean enabled, int capacity) {
+        ProjectorHandoff projectorHandoff = new ProjectorHandoff();
+        ReflectionTestUtils.setField(projectorHandoff, "enabled", enabled);
+        ReflectionTestUtils.setField(projectorHandoff, "capacity", capacity);
+        ReflectionTestUtils.setField(projectorHandoff, "partitions", PARTITIONS);
+        projectorHandoff.initialize();
+        return projectorHandoff;
+    }
+
+    private static TransactionEvent event(long sequence, TransactionEventStatus status) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setMessageId(USER_ID + "-" + sequence);
+        transactionEvent.setUserId(USER_ID);
+        transactionEvent.setSequence(sequence);
+        transactionEvent.setStatus(status);
+        return transactionEvent;
+    }
+}
@@ -0,0 +1,88 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectorSweeperTest {
+
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+
+    @Mock
+    private ProjectorTrigger projectorTrigger;
+
+    @Mock
+    private ProjectorHandoff projectorHandoff;
+
+    @InjectMocks
+    private ProjectorSweeper projectorSweeper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(projectorSweeper, "minInterval", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(projectorSweeper, "maxInterval", Duration.ofMillis(500));
+        ReflectionTestUtils.setField(projectorSweeper, "gracePeriod", Duration.ofSeconds(5));
+    }
+
+    // Requests a scan of every partition and polls at the minimum interval while events are left behind longer than the grace period
+    @Test
+    void sweepWithBacklog() {
+        when(projectorHandoff.isEnabled()).thenReturn(true);
+        ReflectionTestUtils.setField(projectorSweeper, "interval", Duration.ofMillis(400));
+        when(transactionEventRepository.findOldestCreatedAt(TransactionEventStatus.PENDING)).thenReturn(LocalDateTime.now().minusSeconds(10));
+        projectorSweeper.sweep();
+        verify(projectorHandoff, times(1)).requestScan();
+        verify(projectorTrigger, times(1)).signal();
+        assertEquals(Duration.ofMillis(100), projectorSweeper.getInterval());
+    }
+
+    // Pending events within the grace period are left to the handoff
+    @Test
+    void sweepWithHandedOffEvents() {
+        when(projectorHandoff.isEnabled()).thenReturn(true);
+        ReflectionTestUtils.setField(projectorSweeper, "interval", Duration.ofMillis(100));
+        when(transactionEventRepository.findOldestCreatedAt(TransactionEventStatus.PENDING)).thenReturn(LocalDateTime.now().minusSeconds(1));
+        projectorSweeper.sweep();
+        assertEquals(Duration.ofMillis(200), projectorSweeper.getInterval());
+        verifyNoInteractions(projectorTrigger);
+        verify(projectorHandoff, never()).requestScan();
+    }
+
+    // The first sweep after a start signals for any pending event, as does every sweep without the handoff
+    @Test
+    void sweepAnyPendingEvent() {
+        when(transactionEventRepository.findOldestCreatedAt(TransactionEventStatus.PENDING)).thenReturn(LocalDateTime.now());
+        projectorSweeper.sweep();
+        verify(projectorTrigger, times(1)).signal();
+
+        when(projectorHandoff.isEnabled()).thenReturn(false);
+        projectorSweeper.sweep();
+        verify(projectorTrigger, times(2)).signal();
+    }
+
+    // Backs off up to the maximum interval while there is no backlog
+    @Test
+    void sweepWithoutBacklog() {
+        when(transactionEventRepository.findOldestCreatedAt(TransactionEventStatus.PENDING)).thenReturn(null);
+        projectorSweeper.sweep();
+        assertEquals(Duration.ofMillis(200), projectorSweeper.getInterval());
+        projectorSweeper.sweep();
+        projectorSweeper.sweep();
+        assertEquals(Duration.ofMillis(500), projectorSweeper.getInterval());
+        verifyNoInteractions(projectorTrigger);
+    }
+}
@@ -0,0 +1,170 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectorTriggerTest {
+
+    private static final int PARTITIONS = 4;
+
+    private static final String USER_ID = "testUser";
+
+    @Mock
+    private TransactionUpdateJob transactionUpdateJob;
+
+    @InjectMocks
+    private ProjectorTrigger projectorTrigger;
+
+    private ProjectorExecutor projectorExecutor;
+
+    private final int partition = TransactionEvent.hashUserId(USER_ID) % PARTITIONS;
+
+    @BeforeEach
+    void setUp() {
+        projectorExecutor = new ProjectorExecutor(4, 4, 16, Duration.ofSeconds(5), false);
+        projectorExecutor.initialize();
+        ReflectionTestUtils.setField(projectorTrigger, "projectorExecutor", projectorExecutor);
+        ReflectionTestUtils.setField(projectorTrigger, "partitions", PARTITIONS);
+        projectorTrigger.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        projectorExecutor.shutdown();
+    }
+
+    // A single signal for a user runs a single pass of the user's partition
+    @Test
+    void signal() {
+        projectorTrigger.signal(USER_ID);
+        await().untilAsserted(() -> verify(transactionUpdateJob, times(1)).execute(partition));
+        await().until(() -> projectorExecutor.getActiveWorkers() == 0);
+        verify(transactionUpdateJob, times(1)).execute(anyInt());
+    }
+
+    // A signal without a user runs a pass of every partition
+    @Test
+    void signalEveryPartition() {
+        projectorTrigger.signal();
+        for (int i = 0; i < PARTITIONS; i++) {
+            int signalled = i;
+            await().untilAsserted(() -> verify(transactionUpdateJob, times(1)).execute(signalled));
+        }
+    }
+
+    // Signals during a running pass are merged into one more pass of the same partition
+    @Test
+    void coalescesSignals() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).doNothing().when(transactionUpdateJob).execute(partition);
+
+        projectorTrigger.signal(USER_ID);
+        running.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 1000; i++) {
+            projectorTrigger.signal(USER_ID);
+        }
+        assertEquals(1, projectorExecutor.getActiveWorkers());
+        release.countDown();
+
+        await().untilAsserted(() -> verify(transactionUpdateJob, times(2)).execute(partition));
+        await().until(() -> projectorExecutor.getActiveWorkers() == 0);
+        verify(transactionUpdateJob, times(2)).execute(partition);
+    }
+
+    // A partition blocked in a long pass does not hold back the passes of the other partitions
+    @Test
+    void partitionsRunInParallel() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(transactionUpdateJob).execute(partition);
+
+        projectorTrigger.signal(USER_ID);
+        running.await(5, TimeUnit.SECONDS);
+        projectorTrigger.signal();
+
+        for (int i = 0; i < PARTITIONS; i++) {
+            int signalled = i;
+            if (signalled != partition) {
+                await().untilAsserted(() -> verify(transactionUpdateJob, times(1)).execute(signalled));
+            }
+        }
+        verify(transactionUpdateJob, times(1)).execute(partition);
+        release.countDown();
+        await().untilAsserted(() -> verify(transactionUpdateJob, times(2)).execute(partition));
+    }
+
+    // A failed pass does not block later signals
+    @Test
+    void signalAfterFailure() {
+        doThrow(new RuntimeException("Test Exception")).doNothing().when(transactionUpdateJob).execute(partition);
+        projectorTrigger.signal(USER_ID);
+        await().untilAsserted(() -> verify(transactionUpdateJob, times(1)).execute(partition));
+        await().until(() -> projectorExecutor.getActiveWorkers() == 0);
+
+        projectorTrigger.signal(USER_ID);
+        await().untilAsserted(() -> verify(transactionUpdateJob, times(2)).execute(partition));
+    }
+
+    // A queue that cannot hold a pass of every partition is refused on startup, so no pass is ever rejected or run by the caller
+    @Test
+    void queueSmallerThanPartitions() {
+        ProjectorExecutor smallExecutor = new ProjectorExecutor(1, 1, PARTITIONS - 1, Duration.ofSeconds(5), false);
+        ReflectionTestUtils.setField(projectorTrigger, "projectorExecutor", smallExecutor);
+
+        assertThrows(IllegalStateException.class, () -> projectorTrigger.initialize());
+    }
+
+    // Passes of every partition queued behind a busy worker are all run
+    @Test
+    void queuesEveryPartition() throws Exception {
+        projectorExecutor.shutdown();
+        projectorExecutor = new ProjectorExecutor(1, 1, PARTITIONS, Duration.ofSeconds(5), false);
+        projectorExecutor.initialize();
+        ReflectionTestUtils.setField(projectorTrigger, "projectorExecutor", projectorExecutor);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(transactionUpdateJob).execute(partition);
+
+        projectorTrigger.signal(USER_ID);
+        running.await(5, TimeUnit.SECONDS);
+        projectorTrigger.signal();
+        release.countDown();
+
+        for (int i = 0; i < PARTITIONS; i++) {
+            int signalled = i;
+            await().untilAsserted(() -> verify(transactionUpdateJob, atLeastOnce()).execute(signalled));
+        }
+        assertEquals(0, projectorExecutor.getRejectedCount());
+    }
+}
@@ -0,0 +1,166 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.snapshot.service.BalanceSnapshotService;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.controller.response.TransactionHistoryResponse;
+import com.transaction.modules.transaction.controller.response.TransactionResponse;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import com.transaction.modules.transaction.service.TransactionEventService;
+import com.transaction.modules.transaction.service.TransactionHistoryService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * A few rounds of traffic with everything older than now archived after every round
+ * The tables keep only the latest rows while history and balance rebuilds still see every transaction
+ * The flat heap over many rounds is checked by RetentionJobVolumeTest
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:retention-job-test;DB_CLOSE_DELAY=-1",
+        "transaction.retention.enabled=true",
+        "transaction.retention.horizon=PT0S",
+        "transaction.retention.interval=PT1H",
+        "transaction.retention.chunk-size=100"
+})
+class RetentionJobTest {
+
+    private static final int USERS = 5;
+
+    private static final int ROUNDS = 10;
+
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    private RetentionJob retentionJob;
+
+    @Autowired
+    private TransactionEventService transactionEventService;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("transaction.retention.directory", () -> directory.toString());
+    }
+
+    // Every round loads 1.00 and authorizes 0.30 per user, with a declined authorization every fifth round
+    @Test
+    void archiveUnderContinuousTraffic() {
+        for (int user = 0; user < USERS; user++) {
+            accountRepository.save(new Account(userId(user)));
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int user = 0; user < USERS; user++) {
+                load(user, round);
+                if (round % 5 == 4) {
+                    int declinedUser = user;
+                    int declinedRound = round;
+                    assertThrows(IllegalArgumentException.class, () -> authorize(declinedUser, declinedRound, "declined", "1000000.00"));
+                }
+                authorize(user, round, "authorized", "0.30");
+            }
+            await().atMost(10, SECONDS).until(() -> transactionEventRepository.countByStatus(TransactionEventStatus.PENDING) == 0);
+            assertTrue(retentionJob.archive() > 0);
+
+            // Only the latest event and transaction of every user stay in the tables
+            assertEquals(USERS, transactionEventRepository.count());
+            assertEquals(USERS, transactionRepository.count());
+        }
+
+        for (int user = 0; user < USERS; user++) {
+            Account account = accountRepository.findByUserId(userId(user));
+            assertEquals(ROUNDS * 70L, account.getBalance());
+
+            UserBalance userBalance = balanceSnapshotService.rebuild(userId(user));
+            assertEquals(account.getBalance(), userBalance.getBalance());
+            assertEquals(account.getLastSequence(), userBalance.getSequence());
+
+            List<TransactionResponse> history = history(userId(user));
+            assertEquals(ROUNDS * 2, history.size());
+            for (int i = 1; i < history.size(); i++) {
+                assertTrue(history.get(i - 1).getId() > history.get(i).getId());
+                assertEquals(i % 2 == 0 ? TransactionType.DEBIT : TransactionType.CREDIT, history.get(i).getType());
+            }
+        }
+    }
+
+    private List<TransactionResponse> history(String userId) {
+        List<TransactionResponse> history = new ArrayList<>();
+        Long cursor = null;
+        do {
+            TransactionHistoryResponse page = transactionHistoryService.findHistory(userId, cursor, 7, null, null, null);
+            history.addAll(page.getTransactions());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return history;
+    }
+
+    private void load(int user, int round) {
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(userId(user));
+        loadRequest.setMessageId(messageId(user, round, "load"));
+        loadRequest.setTransactionAmount(amount("1.00", TransactionType.CREDIT));
+        transactionEventService.load(loadRequest, loadRequest.getMessageId());
+    }
+
+    private void authorize(int user, int round, String name, String value) {
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(userId(user));
+        authorizationRequest.setMessageId(messageId(user, round, name));
+        authorizationRequest.setTransactionAmount(amount(value, TransactionType.DEBIT));
+        transactionEventService.authorize(authorizationRequest, authorizationRequest.getMessageId());
+    }
+
+    private static Amount amount(String value, TransactionType type) {
+        Amount amount = new Amount();
+        amount.setAmount(value);
+        amount.setCurrency("USD");
+        amount.setDebitOrCredit(type);
+        return amount;
+    }
+
+    private static String userId(int user) {
+        return "retention-user-" + user;
+    }
+
+    private static String messageId(int user, int round, String name) {
+        return "retention-" + user + "-" + round + "-" + name;
+    }
+}
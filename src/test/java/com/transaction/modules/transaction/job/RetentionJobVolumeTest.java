@@ -0,0 +1,141 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import com.transaction.modules.transaction.service.TransactionEventService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Continuous traffic with everything older than now archived after every round
+ * The tables and the heap stay flat however many rounds have been archived
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:retention-job-volume-test;DB_CLOSE_DELAY=-1",
+        "transaction.retention.enabled=true",
+        "transaction.retention.horizon=PT0S",
+        "transaction.retention.interval=PT1H",
+        "transaction.retention.chunk-size=100"
+})
+@Tag("volume")
+class RetentionJobVolumeTest {
+
+    private static final int USERS = 50;
+
+    private static final int ROUNDS = 40;
+
+    private static final long HEAP_GROWTH_LIMIT = 16L * 1024 * 1024;
+
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    private RetentionJob retentionJob;
+
+    @Autowired
+    private TransactionEventService transactionEventService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("transaction.retention.directory", () -> directory.toString());
+    }
+
+    // Every round loads 1.00 and authorizes 0.30 per user, with a declined authorization every fifth round
+    @Test
+    void archiveUnderContinuousTraffic() {
+        for (int user = 0; user < USERS; user++) {
+            accountRepository.save(new Account(userId(user)));
+        }
+
+        long heapAfterWarmUp = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int user = 0; user < USERS; user++) {
+                load(user, round);
+                if (round % 5 == 4) {
+                    int declinedUser = user;
+                    int declinedRound = round;
+                    assertThrows(IllegalArgumentException.class, () -> authorize(declinedUser, declinedRound, "declined", "1000000.00"));
+                }
+                authorize(user, round, "authorized", "0.30");
+            }
+            await().atMost(10, SECONDS).until(() -> transactionEventRepository.countByStatus(TransactionEventStatus.PENDING) == 0);
+            assertTrue(retentionJob.archive() > 0);
+
+            // Only the latest event and transaction of every user stay in the tables
+            assertEquals(USERS, transactionEventRepository.count());
+            assertEquals(USERS, transactionRepository.count());
+            if (round == 4) {
+                heapAfterWarmUp = usedHeap();
+            }
+        }
+        long heapGrowth = usedHeap() - heapAfterWarmUp;
+        assertTrue(heapGrowth < HEAP_GROWTH_LIMIT, "Heap grew by " + heapGrowth + " bytes");
+    }
+
+    private void load(int user, int round) {
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(userId(user));
+        loadRequest.setMessageId(messageId(user, round, "load"));
+        loadRequest.setTransactionAmount(amount("1.00", TransactionType.CREDIT));
+        transactionEventService.load(loadRequest, loadRequest.getMessageId());
+    }
+
+    private void authorize(int user, int round, String name, String value) {
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(userId(user));
+        authorizationRequest.setMessageId(messageId(user, round, name));
+        authorizationRequest.setTransactionAmount(amount(value, TransactionType.DEBIT));
+        transactionEventService.authorize(authorizationRequest, authorizationRequest.getMessageId());
+    }
+
+    private static Amount amount(String value, TransactionType type) {
+        Amount amount = new Amount();
+        amount.setAmount(value);
+        amount.setCurrency("USD");
+        amount.setDebitOrCredit(type);
+        return amount;
+    }
+
+    private static String userId(int user) {
+        return "retention-volume-user-" + user;
+    }
+
+    private static String messageId(int user, int round, String name) {
+        return "retention-volume-" + user + "-" + round + "-" + name;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
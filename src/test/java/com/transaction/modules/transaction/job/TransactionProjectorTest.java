@@ -0,0 +1,208 @@
+package com.transaction.modules.transaction.job;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.snapshot.job.BalanceSnapshotJob;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.metrics.TransactionMetrics;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionProjectorTest {
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private TransactionMetrics transactionMetrics = new TransactionMetrics(meterRegistry);
+
+    @Captor
+    private ArgumentCaptor<Collection<Transaction>> transactionCaptor;
+
+    @InjectMocks
+    private TransactionProjector transactionProjector;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionProjector, "chunkSize", 500);
+        ReflectionTestUtils.setField(transactionProjector, "partitions", 4);
+    }
+
+    @Test
+    void testProjectNextChunk() {
+        // Prepare test data
+        List<TransactionEvent> pendingTransactionEventList = new ArrayList<>();
+        TransactionEvent transactionEvent1 = new TransactionEvent();
+        transactionEvent1.setUserId("testUser");
+        transactionEvent1.setStatus(TransactionEventStatus.PENDING);
+        transactionEvent1.setRunningBalance(20000);
+        transactionEvent1.setCurrency("$");
+        transactionEvent1.setType(TransactionType.CREDIT);
+        transactionEvent1.setAmount(20000);
+        pendingTransactionEventList.add(transactionEvent1);
+
+        TransactionEvent transactionEvent2 = new TransactionEvent();
+        transactionEvent2.setUserId("testUser");
+        transactionEvent2.setStatus(TransactionEventStatus.PENDING);
+        transactionEvent2.setRunningBalance(10000);
+        transactionEvent2.setSequence(2);
+        transactionEvent2.setCurrency("$");
+        transactionEvent2.setType(TransactionType.DEBIT);
+        transactionEvent2.setAmount(10000);
+        pendingTransactionEventList.add(transactionEvent2);
+
+        Account account = new Account();
+        ReflectionTestUtils.setField(account, "userId", "testUser");
+
+        when(transactionEventRepository.findByStatusInPartition(eq(TransactionEventStatus.PENDING), eq(2), eq(4), any(Pageable.class)))
+                .thenReturn(pendingTransactionEventList);
+        when(accountRepository.findAllById(anyCollection())).thenReturn(List.of(account));
+
+        // Execute the method
+        assertEquals(2, transactionProjector.projectNextChunk(2));
+
+        // Verify that the writes are batched and only the final balance is applied
+        verify(transactionRepository, times(1)).saveAll(transactionCaptor.capture());
+        assertEquals(2, transactionCaptor.getValue().size());
+        verify(accountRepository, times(1)).saveAll(anyList());
+        verify(transactionEventRepository, times(1)).saveAll(pendingTransactionEventList);
+        assertEquals(10000, account.getBalance());
+        assertEquals(2, account.getLastSequence());
+        assertEquals("$", account.getCurrency());
+        pendingTransactionEventList.forEach(transactionEvent ->
+                assertEquals(TransactionEventStatus.PROCESSED, transactionEvent.getStatus()));
+        verify(balanceSnapshotJob).recordEvents("testUser", 2L);
+        assertEquals(2, meterRegistry.get("transaction.projector.events").counter().count());
+    }
+
+    @Test
+    void testProjectEmptyChunk() {
+        when(transactionEventRepository.findByStatusInPartition(eq(TransactionEventStatus.PENDING), eq(0), eq(4), any(Pageable.class)))
+                .thenReturn(List.of());
+        assertEquals(0, transactionProjector.projectNextChunk(0));
+        verifyNoInteractions(transactionRepository, accountRepository);
+    }
+
+    // Handed off events are marked as projected and projected without reading them back
+    @Test
+    void testProjectHandedOff() {
+        List<TransactionEvent> handedOffEvents = List.of(event("testUser", 1, 20000), event("testUser", 2, 30000));
+        Account account = new Account();
+        ReflectionTestUtils.setField(account, "userId", "testUser");
+        when(transactionEventRepository.markProcessed(List.of("testUser-1", "testUser-2"))).thenReturn(2);
+        when(accountRepository.findAllById(anyCollection())).thenReturn(List.of(account));
+
+        assertTrue(transactionProjector.projectHandedOff(handedOffEvents));
+
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        assertEquals(30000, account.getBalance());
+        assertEquals(2, account.getLastSequence());
+        verify(transactionEventRepository, never()).findByStatusInPartition(any(), anyInt(), anyInt(), any());
+        verify(transactionEventRepository, never()).saveAll(anyList());
+        verify(balanceSnapshotJob).recordEvents("testUser", 2L);
+    }
+
+    // Nothing is applied if a scan has projected any of the handed off events already
+    @Test
+    void testProjectHandedOffAfterScan() {
+        TransactionStatus transactionStatus = mock(TransactionStatus.class);
+        when(transactionEventRepository.markProcessed(anyCollection())).thenReturn(1);
+        try (MockedStatic<TransactionAspectSupport> transactionAspectSupport = mockStatic(TransactionAspectSupport.class)) {
+            transactionAspectSupport.when(TransactionAspectSupport::currentTransactionStatus).thenReturn(transactionStatus);
+            assertFalse(transactionProjector.projectHandedOff(List.of(event("testUser", 1, 20000), event("testUser", 2, 30000))));
+        }
+        verify(transactionStatus).setRollbackOnly();
+        verifyNoInteractions(transactionRepository, accountRepository, balanceSnapshotJob);
+    }
+
+    // Only the handed off events still pending are projected, in the order they were handed off
+    @Test
+    void testProjectStillPending() {
+        TransactionEvent projected = event("testUser", 1, 20000);
+        projected.setStatus(TransactionEventStatus.PROCESSED);
+        TransactionEvent pending = event("testUser", 2, 30000);
+        Account account = new Account();
+        ReflectionTestUtils.setField(account, "userId", "testUser");
+        when(transactionEventRepository.findAllById(List.of("testUser-1", "testUser-2"))).thenReturn(List.of(pending, projected));
+        when(accountRepository.findAllById(anyCollection())).thenReturn(List.of(account));
+
+        assertEquals(1, transactionProjector.projectStillPending(List.of(event("testUser", 1, 20000), event("testUser", 2, 30000))));
+
+        verify(transactionEventRepository, times(1)).saveAll(List.of(pending));
+        assertEquals(TransactionEventStatus.PROCESSED, pending.getStatus());
+        assertEquals(30000, account.getBalance());
+        verify(balanceSnapshotJob).recordEvents("testUser", 1L);
+    }
+
+    // Accounts already holding the events, updated by a conditional update or a rebuild, are not moved back
+    @Test
+    void testProjectAppliedEvents() {
+        Account account = new Account("testUser");
+        account.setBalance(50000);
+        account.setLastSequence(5);
+        when(transactionEventRepository.markProcessed(anyCollection())).thenReturn(2);
+        when(accountRepository.findAllById(anyCollection())).thenReturn(List.of(account));
+
+        assertTrue(transactionProjector.projectHandedOff(List.of(event("testUser", 1, 20000), event("testUser", 2, 30000))));
+
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        verify(accountRepository).saveAll(List.of());
+        assertEquals(50000, account.getBalance());
+        assertEquals(5, account.getLastSequence());
+    }
+
+    private static TransactionEvent event(String userId, long sequence, long balance) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setMessageId(userId + "-" + sequence);
+        transactionEvent.setUserId(userId);
+        transactionEvent.setSequence(sequence);
+        transactionEvent.setStatus(TransactionEventStatus.PENDING);
+        transactionEvent.setRunningBalance(balance);
+        transactionEvent.setCurrency("$");
+        transactionEvent.setType(TransactionType.CREDIT);
+        transactionEvent.setAmount(10000);
+        return transactionEvent;
+    }
+}
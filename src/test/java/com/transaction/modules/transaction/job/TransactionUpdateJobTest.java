@@ -1,80 +1,139 @@
 package com.transaction.modules.transaction.job;
 
-import com.transaction.modules.account.entity.Account;
-import com.transaction.modules.account.repository.AccountRepository;
-import com.transaction.modules.transaction.entity.Transaction;
 import com.transaction.modules.transaction.entity.TransactionEvent;
 import com.transaction.modules.transaction.enums.TransactionEventStatus;
-import com.transaction.modules.transaction.enums.TransactionType;
-import com.transaction.modules.transaction.job.TransactionUpdateJob;
-import com.transaction.modules.transaction.repository.TransactionEventRepository;
-import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @EnableRetry
 class TransactionUpdateJobTest {
-    @Mock
-    private TransactionEventRepository transactionEventRepository;
 
-    @Mock
-    private TransactionRepository transactionRepository;
+    private static final int PARTITIONS = 2;
 
     @Mock
-    private AccountRepository accountRepository;
+    private TransactionProjector transactionProjector;
 
     @InjectMocks
     private TransactionUpdateJob transactionUpdateJob;
 
+    private ProjectorHandoff projectorHandoff;
+
+    @BeforeEach
+    void setUp() {
+        projectorHandoff = new ProjectorHandoff();
+        ReflectionTestUtils.setField(projectorHandoff, "enabled", true);
+        ReflectionTestUtils.setField(projectorHandoff, "capacity", 4);
+        ReflectionTestUtils.setField(projectorHandoff, "partitions", PARTITIONS);
+        projectorHandoff.initialize();
+        ReflectionTestUtils.setField(transactionUpdateJob, "projectorHandoff", projectorHandoff);
+    }
+
     @Test
     void testExecute() {
-        // Prepare test data
-        List<TransactionEvent> pendingTransactionEventList = new ArrayList<>();
-        TransactionEvent transactionEvent1 = new TransactionEvent();
-        transactionEvent1.setStatus(TransactionEventStatus.PENDING);
-        transactionEvent1.setRunningBalance(200.0);
-        transactionEvent1.setCurrency("$");
-        transactionEvent1.setType(TransactionType.CREDIT);
-        transactionEvent1.setAmount(200.0);
-        pendingTransactionEventList.add(transactionEvent1);
-
-        TransactionEvent transactionEvent2 = new TransactionEvent();
-        transactionEvent2.setStatus(TransactionEventStatus.PENDING);
-        transactionEvent2.setRunningBalance(200.0);
-        transactionEvent2.setCurrency("$");
-        transactionEvent2.setType(TransactionType.DEBIT);
-        transactionEvent2.setAmount(100.0);
-        pendingTransactionEventList.add(transactionEvent2);
-
-
-        when(transactionEventRepository.findByStatus(TransactionEventStatus.PENDING))
-                .thenReturn(pendingTransactionEventList);
-        when(accountRepository.findByUserId(transactionEvent1.getUserId()))
-                .thenReturn(new Account());
+        when(transactionProjector.getChunkSize()).thenReturn(2);
+        when(transactionProjector.projectNextChunk(1)).thenReturn(2, 2, 1);
 
         // Execute the method
-        transactionUpdateJob.execute();
+        transactionUpdateJob.execute(1);
+
+        // Verify that chunks of the partition are scanned on the first pass until a partial chunk is found
+        verify(transactionProjector, times(3)).projectNextChunk(1);
+    }
 
-        // Verify that save methods are called
-        verify(transactionRepository, times(2)).save(any(Transaction.class));
-        verify(accountRepository, times(2)).save(any(Account.class));
-        verify(transactionEventRepository, times(2)).save(any(TransactionEvent.class));
+    // Once scanned, a pass projects the handed off events chunk by chunk without scanning
+    @Test
+    void testExecuteHandedOff() {
+        when(transactionProjector.getChunkSize()).thenReturn(2);
+        when(transactionProjector.projectHandedOff(anyList())).thenReturn(true);
+        transactionUpdateJob.execute(0);
+
+        List<TransactionEvent> events = events(0, 3);
+        projectorHandoff.handOffAfterCommit(events);
+        transactionUpdateJob.execute(0);
+
+        verify(transactionProjector, times(1)).projectNextChunk(0);
+        verify(transactionProjector).projectHandedOff(events.subList(0, 2));
+        verify(transactionProjector).projectHandedOff(events.subList(2, 3));
+        verify(transactionProjector, never()).projectStillPending(anyList());
+    }
+
+    // Handed off events that a scan has projected already are read back instead
+    @Test
+    void testExecuteHandedOffAfterScan() {
+        when(transactionProjector.getChunkSize()).thenReturn(2);
+        transactionUpdateJob.execute(0);
+
+        List<TransactionEvent> events = events(0, 2);
+        projectorHandoff.handOffAfterCommit(events);
+        when(transactionProjector.projectHandedOff(events)).thenReturn(false);
+        transactionUpdateJob.execute(0);
+
+        verify(transactionProjector).projectStillPending(events);
+        verify(transactionProjector, times(1)).projectNextChunk(0);
+    }
+
+    // An event not fitting into the full buffer has the partition scanned and the buffered events dropped
+    @Test
+    void testExecuteAfterOverflow() {
+        when(transactionProjector.getChunkSize()).thenReturn(10);
+        transactionUpdateJob.execute(0);
+
+        projectorHandoff.handOffAfterCommit(events(0, 5));
+        transactionUpdateJob.execute(0);
+
+        verify(transactionProjector, times(2)).projectNextChunk(0);
+        verify(transactionProjector, never()).projectHandedOff(anyList());
+        assertTrue(projectorHandoff.take(0, 10).isEmpty());
     }
 
     @Test
     void testExecuteWithError() {
-        when(transactionEventRepository.findByStatus(TransactionEventStatus.PENDING)).thenThrow(RuntimeException.class);
-        assertThrows(RuntimeException.class, () -> transactionUpdateJob.execute());
+        when(transactionProjector.projectNextChunk(1)).thenThrow(RuntimeException.class);
+        assertThrows(RuntimeException.class, () -> transactionUpdateJob.execute(1));
+    }
+
+    // A failed handoff pass has the partition scanned by the next pass
+    @Test
+    void testExecuteHandedOffWithError() {
+        when(transactionProjector.getChunkSize()).thenReturn(2);
+        transactionUpdateJob.execute(0);
+
+        projectorHandoff.handOffAfterCommit(events(0, 1));
+        when(transactionProjector.projectHandedOff(anyList())).thenThrow(RuntimeException.class);
+        assertThrows(RuntimeException.class, () -> transactionUpdateJob.execute(0));
+
+        transactionUpdateJob.execute(0);
+        verify(transactionProjector, times(2)).projectNextChunk(anyInt());
+    }
+
+    // Pending events of users hashed onto the partition
+    private static List<TransactionEvent> events(int partition, int count) {
+        String userId = IntStream.iterate(0, user -> user + 1).mapToObj(user -> "user" + user)
+                .filter(user -> TransactionEvent.hashUserId(user) % PARTITIONS == partition)
+                .findFirst().orElseThrow();
+        return IntStream.rangeClosed(1, count).mapToObj(sequence -> {
+            TransactionEvent transactionEvent = new TransactionEvent();
+            transactionEvent.setMessageId(userId + "-" + sequence);
+            transactionEvent.setUserId(userId);
+            transactionEvent.setSequence(sequence);
+            transactionEvent.setStatus(TransactionEventStatus.PENDING);
+            return transactionEvent;
+        }).toList();
     }
-}
\ No newline at end of file
+}
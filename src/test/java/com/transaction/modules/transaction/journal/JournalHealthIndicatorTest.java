@@ -0,0 +1,40 @@
+package com.transaction.modules.transaction.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JournalHealthIndicatorTest {
+
+    @Mock
+    private EventJournal eventJournal;
+
+    @InjectMocks
+    private JournalHealthIndicator journalHealthIndicator;
+
+    @Test
+    void upWithoutFailedAppends() {
+        when(eventJournal.getFailedAppends()).thenReturn(0L);
+
+        assertEquals(Status.UP, journalHealthIndicator.health().getStatus());
+    }
+
+    // A single committed event that could not be journaled takes the service down
+    @Test
+    void downAfterFailedAppend() {
+        when(eventJournal.getFailedAppends()).thenReturn(1L);
+
+        Health health = journalHealthIndicator.health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(1L, health.getDetails().get("failedAppends"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.snapshot.service.BalanceSnapshotService;
+import com.transaction.modules.transaction.archive.EventArchive;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.AuthorizationStrategy;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalRecoveryTest {
+
+    @Mock
+    private EventJournal eventJournal;
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+    @Mock
+    private EventArchive eventArchive;
+    @Mock
+    private BalanceSnapshotService balanceSnapshotService;
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    @InjectMocks
+    private JournalRecovery journalRecovery;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(journalRecovery, "chunkSize", 2);
+        ReflectionTestUtils.setField(journalRecovery, "authorizationStrategy", AuthorizationStrategy.EVENT_SOURCED);
+    }
+
+    // Journaled events are saved in chunks, skipping a message id journaled twice
+    @Test
+    void recover() {
+        doAnswer(invocation -> {
+            Consumer<TransactionEvent> consumer = invocation.getArgument(0);
+            List.of("message1", "message2", "message2", "message3").forEach(messageId -> consumer.accept(event(messageId, 1)));
+            return null;
+        }).when(eventJournal).replay(any());
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            chunkSizes.add(invocation.<List<?>>getArgument(0).size());
+            return null;
+        });
+
+        assertEquals(3, journalRecovery.recover());
+        assertEquals(List.of(2, 1), chunkSizes);
+        verifyNoInteractions(balanceSnapshotService);
+    }
+
+    // With conditional update authorization the accounts are rebuilt from the restored events
+    @Test
+    void recoverWithConditionalUpdate() {
+        ReflectionTestUtils.setField(journalRecovery, "authorizationStrategy", AuthorizationStrategy.CONDITIONAL_UPDATE);
+        doAnswer(invocation -> {
+            Consumer<TransactionEvent> consumer = invocation.getArgument(0);
+            consumer.accept(event("message1", 1));
+            return null;
+        }).when(eventJournal).replay(any());
+
+        assertEquals(1, journalRecovery.recover());
+        verify(balanceSnapshotService).rebuildAccounts();
+    }
+
+    // Only the events past the user's latest event in the table are restored, so a table that already has events is completed
+    @Test
+    void recoverPastStoredEvents() {
+        TransactionEvent latestEvent = event("message2", 2);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc("testUser")).thenReturn(latestEvent);
+        doAnswer(invocation -> {
+            Consumer<TransactionEvent> consumer = invocation.getArgument(0);
+            for (int sequence = 1; sequence <= 3; sequence++) {
+                consumer.accept(event("message" + sequence, sequence));
+            }
+            return null;
+        }).when(eventJournal).replay(any());
+        List<TransactionEvent> saved = new ArrayList<>();
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return null;
+        });
+
+        assertEquals(1, journalRecovery.recover());
+        assertEquals(List.of(3L), saved.stream().map(TransactionEvent::getSequence).toList());
+        verify(transactionEventRepository).findFirstByUserIdOrderBySequenceDesc("testUser");
+    }
+
+    // Recovery runs on start, before the web server and the message id registry
+    @Test
+    void startBeforeWebServer() {
+        journalRecovery.start();
+
+        assertTrue(journalRecovery.isRunning());
+        assertTrue(journalRecovery.getPhase() < WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1024);
+        verify(eventJournal).replay(any());
+    }
+
+    // Archived events are skipped and events whose transactions are archived are restored as processed
+    @Test
+    void recoverAfterRetention() {
+        when(eventArchive.lastSequence("testUser")).thenReturn(2L);
+        when(eventArchive.lastTransactionSequence("testUser")).thenReturn(3L);
+        doAnswer(invocation -> {
+            Consumer<TransactionEvent> consumer = invocation.getArgument(0);
+            for (int sequence = 1; sequence <= 4; sequence++) {
+                consumer.accept(event("message" + sequence, sequence));
+            }
+            return null;
+        }).when(eventJournal).replay(any());
+        List<TransactionEvent> saved = new ArrayList<>();
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return null;
+        });
+
+        assertEquals(2, journalRecovery.recover());
+        assertEquals(List.of(3L, 4L), saved.stream().map(TransactionEvent::getSequence).toList());
+        assertEquals(List.of(TransactionEventStatus.PROCESSED, TransactionEventStatus.PENDING), saved.stream().map(TransactionEvent::getStatus).toList());
+        verify(eventArchive).lastSequence("testUser");
+    }
+
+    private static TransactionEvent event(String messageId, long sequence) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setUserId("testUser");
+        transactionEvent.setMessageId(messageId);
+        transactionEvent.setSequence(sequence);
+        transactionEvent.setStatus(TransactionEventStatus.PENDING);
+        return transactionEvent;
+    }
+}
@@ -0,0 +1,230 @@
+package com.transaction.modules.transaction.journal;
+
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedEventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private MappedEventJournal eventJournal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        eventJournal.close();
+    }
+
+    @Test
+    void appendAndReplay() throws IOException {
+        eventJournal = open(DataSize.ofKilobytes(64));
+        TransactionEvent load = event("user1", 1, TransactionType.CREDIT, 10000, 10000, TransactionEventStatus.PENDING);
+        TransactionEvent authorization = event("user1", 2, TransactionType.DEBIT, 50000, 10000, TransactionEventStatus.FAILED);
+        eventJournal.append(List.of(load, authorization));
+
+        List<TransactionEvent> replayed = replay(eventJournal);
+
+        assertEquals(2, replayed.size());
+        assertSameEvent(load, replayed.get(0));
+        assertSameEvent(authorization, replayed.get(1));
+    }
+
+    // Events are only journaled once their transaction has committed, never for a rolled back transaction
+    @Test
+    void appendAfterCommit() throws IOException {
+        eventJournal = open(DataSize.ofKilobytes(64));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            eventJournal.appendAfterCommit(events("user1", 1, 1));
+            assertTrue(replay(eventJournal).isEmpty());
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            eventJournal.appendAfterCommit(events("user1", 1, 1));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        List<TransactionEvent> replayed = replay(eventJournal);
+        assertEquals(1, replayed.size());
+        assertEquals(1, replayed.get(0).getSequence());
+    }
+
+    // A committed event that cannot be journaled is counted instead of failing the committed request
+    @Test
+    void countFailedAppends() throws IOException {
+        eventJournal = open(DataSize.ofBytes(64));
+
+        eventJournal.appendAfterCommit(events("user1", 1, 2));
+
+        assertEquals(2, eventJournal.getFailedAppends());
+        assertTrue(replay(eventJournal).isEmpty());
+    }
+
+    // Events appended before a restart are read back from the segment files
+    @Test
+    void reopen() throws IOException {
+        eventJournal = open(DataSize.ofKilobytes(64));
+        eventJournal.append(events("user1", 1, 10));
+        eventJournal.close();
+
+        eventJournal = open(DataSize.ofKilobytes(64));
+        eventJournal.append(events("user1", 11, 5));
+
+        List<TransactionEvent> replayed = replay(eventJournal);
+        assertEquals(15, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(i + 1, replayed.get(i).getSequence());
+        }
+    }
+
+    // Records that do not fit in a segment roll over to a new segment file
+    @Test
+    void rollSegments() throws IOException {
+        eventJournal = open(DataSize.ofBytes(1024));
+        eventJournal.append(events("user1", 1, 100));
+        eventJournal.close();
+
+        try (var files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+        eventJournal = open(DataSize.ofBytes(1024));
+        assertEquals(100, replay(eventJournal).size());
+    }
+
+    // A corrupt record and everything written after it is dropped on startup
+    @Test
+    void truncateCorruptRecord() throws IOException {
+        eventJournal = open(DataSize.ofBytes(1024));
+        List<TransactionEvent> events = events("user1", 1, 100);
+        eventJournal.append(events);
+        eventJournal.close();
+
+        int recordSize = JournalRecord.size(events.get(0));
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("journal-0.log").toFile(), "rw")) {
+            file.seek(3L * recordSize + JournalRecord.HEADER_SIZE + 2);
+            file.write(file.read() ^ 0xFF);
+        }
+
+        eventJournal = open(DataSize.ofBytes(1024));
+        assertEquals(3, replay(eventJournal).size());
+        assertFalse(Files.exists(directory.resolve("journal-1.log")));
+
+        // New events continue after the last valid record
+        eventJournal.append(events("user1", 4, 1));
+        eventJournal.close();
+        eventJournal = open(DataSize.ofBytes(1024));
+        assertEquals(4, replay(eventJournal).size());
+    }
+
+    // A record whose length was written past the end of what was flushed is treated as torn
+    @Test
+    void truncateTornRecord() throws IOException {
+        eventJournal = open(DataSize.ofKilobytes(64));
+        List<TransactionEvent> events = events("user1", 1, 5);
+        eventJournal.append(events);
+        eventJournal.close();
+
+        int recordSize = JournalRecord.size(events.get(0));
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("journal-0.log").toFile(), "rw")) {
+            file.seek(5L * recordSize);
+            file.writeInt(recordSize - JournalRecord.HEADER_SIZE);
+        }
+
+        eventJournal = open(DataSize.ofKilobytes(64));
+        assertEquals(5, replay(eventJournal).size());
+    }
+
+    @Test
+    void readUserEvents() throws IOException {
+        eventJournal = open(DataSize.ofKilobytes(4));
+        for (int sequence = 1; sequence <= 200; sequence++) {
+            eventJournal.append(List.of(
+                    event("user1", sequence, TransactionType.CREDIT, 100, sequence * 100L, TransactionEventStatus.PENDING),
+                    event("user2", sequence, TransactionType.CREDIT, 100, sequence * 100L, TransactionEventStatus.PENDING)));
+        }
+        eventJournal.close();
+        eventJournal = open(DataSize.ofKilobytes(4));
+
+        List<TransactionEvent> fromStart = eventJournal.readUserEvents("user1", 1);
+        List<TransactionEvent> fromMiddle = eventJournal.readUserEvents("user2", 150);
+
+        assertEquals(200, fromStart.size());
+        assertEquals(1, fromStart.get(0).getSequence());
+        assertEquals(51, fromMiddle.size());
+        assertEquals(150, fromMiddle.get(0).getSequence());
+        assertTrue(fromMiddle.stream().allMatch(transactionEvent -> transactionEvent.getUserId().equals("user2")));
+        assertTrue(eventJournal.readUserEvents("unknown", 1).isEmpty());
+    }
+
+    private MappedEventJournal open(DataSize segmentSize) throws IOException {
+        return new MappedEventJournal(directory, segmentSize, false, 64);
+    }
+
+    private static List<TransactionEvent> replay(EventJournal eventJournal) {
+        List<TransactionEvent> replayed = new ArrayList<>();
+        eventJournal.replay(replayed::add);
+        return replayed;
+    }
+
+    private static List<TransactionEvent> events(String userId, int firstSequence, int count) {
+        List<TransactionEvent> events = new ArrayList<>();
+        for (int sequence = firstSequence; sequence < firstSequence + count; sequence++) {
+            events.add(event(userId, sequence, TransactionType.CREDIT, 100, sequence * 100L, TransactionEventStatus.PENDING));
+        }
+        return events;
+    }
+
+    private static TransactionEvent event(String userId, long sequence, TransactionType type, long amount, long balance, TransactionEventStatus status) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setMessageId(String.format("%s-%06d", userId, sequence));
+        transactionEvent.setUserId(userId);
+        transactionEvent.setSequence(sequence);
+        transactionEvent.setType(type);
+        transactionEvent.setAmount(amount);
+        transactionEvent.setRunningBalance(balance);
+        transactionEvent.setCurrency("USD");
+        transactionEvent.setStatus(status);
+        transactionEvent.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        return transactionEvent;
+    }
+
+    private static void assertSameEvent(TransactionEvent expected, TransactionEvent actual) {
+        assertEquals(expected.getMessageId(), actual.getMessageId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getSequence(), actual.getSequence());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getRunningBalance(), actual.getRunningBalance());
+        assertEquals(expected.getCurrency(), actual.getCurrency());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+    }
+}
@@ -0,0 +1,69 @@
+package com.transaction.modules.transaction.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserLockRegistryTest {
+
+    // Work of the same user is never interleaved
+    @Test
+    void serializesSameUser() throws Exception {
+        UserLockRegistry userLockRegistry = new UserLockRegistry(16);
+        int users = 10;
+        int[] counters = new int[users];
+        ExecutorService executorService = Executors.newFixedThreadPool(50);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            int user = i % users;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                for (int j = 0; j < 100; j++) {
+                    userLockRegistry.execute("user" + user, () -> {
+                        int value = counters[user];
+                        Thread.yield();
+                        counters[user] = value + 1;
+                        return value;
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int counter : counters) {
+            assertEquals(5000, counter);
+        }
+    }
+
+    // Lock is released when the action throws
+    @Test
+    void releasesOnError() throws Exception {
+        UserLockRegistry userLockRegistry = new UserLockRegistry(1);
+        try {
+            userLockRegistry.execute("user", () -> {
+                throw new IllegalArgumentException("Insufficient balance");
+            });
+        } catch (IllegalArgumentException ignored) {
+        }
+        CompletableFuture<Integer> other = CompletableFuture.supplyAsync(() -> userLockRegistry.execute("user", () -> 1));
+        assertEquals(1, other.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,122 @@
+package com.transaction.modules.transaction.metrics;
+
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.job.ProjectorExecutor;
+import com.transaction.modules.transaction.job.ProjectorHandoff;
+import com.transaction.modules.transaction.repository.PartitionBacklog;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectorMetricsTest {
+
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+
+    @Mock
+    private ProjectorExecutor projectorExecutor;
+
+    @Mock
+    private ProjectorHandoff projectorHandoff;
+
+    @InjectMocks
+    private ProjectorMetrics projectorMetrics;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(projectorMetrics, "partitions", 2);
+        ReflectionTestUtils.setField(projectorMetrics, "refreshInterval", Duration.ofMinutes(1));
+        projectorMetrics.bindTo(meterRegistry);
+    }
+
+    // The lag gauges are read from the event table in one grouped query
+    @Test
+    void projectorLag() {
+        when(transactionEventRepository.summarizeByPartition(TransactionEventStatus.PENDING, 2)).thenReturn(List.of(
+                new PartitionBacklog(0, 35L, LocalDateTime.now().minusSeconds(5)),
+                new PartitionBacklog(1, 7L, LocalDateTime.now().minusSeconds(1))));
+
+        assertEquals(42, meterRegistry.get("transaction.projector.pending").gauge().value());
+        double age = meterRegistry.get("transaction.projector.oldest.pending.age").timeGauge().value(TimeUnit.SECONDS);
+        assertTrue(age >= 5 && age < 10);
+    }
+
+    // Without pending events the oldest pending age is zero
+    @Test
+    void noProjectorLag() {
+        when(transactionEventRepository.summarizeByPartition(TransactionEventStatus.PENDING, 2)).thenReturn(List.of());
+
+        assertEquals(0, meterRegistry.get("transaction.projector.pending").gauge().value());
+        assertEquals(0, meterRegistry.get("transaction.projector.oldest.pending.age").timeGauge().value());
+    }
+
+    // Every partition has its own lag gauges, tagged with the partition
+    @Test
+    void partitionLag() {
+        when(transactionEventRepository.summarizeByPartition(TransactionEventStatus.PENDING, 2)).thenReturn(List.of(
+                new PartitionBacklog(1, 7L, LocalDateTime.now().minusSeconds(5))));
+
+        assertEquals(2, meterRegistry.get("transaction.projector.partition.pending").gauges().size());
+        assertEquals(7, meterRegistry.get("transaction.projector.partition.pending").tag("partition", "1").gauge().value());
+        assertEquals(0, meterRegistry.get("transaction.projector.partition.pending").tag("partition", "0").gauge().value());
+        double age = meterRegistry.get("transaction.projector.partition.oldest.pending.age").tag("partition", "1").timeGauge().value(TimeUnit.SECONDS);
+        assertTrue(age >= 5 && age < 10);
+        assertEquals(0, meterRegistry.get("transaction.projector.partition.oldest.pending.age").tag("partition", "0").timeGauge().value());
+    }
+
+    // Every lag gauge of a scrape is served by one query, which is only repeated after the refresh interval
+    @Test
+    void lagReadOncePerRefreshInterval() {
+        when(transactionEventRepository.summarizeByPartition(TransactionEventStatus.PENDING, 2)).thenReturn(List.of(
+                new PartitionBacklog(0, 3L, LocalDateTime.now())));
+
+        meterRegistry.get("transaction.projector.pending").gauge().value();
+        meterRegistry.get("transaction.projector.oldest.pending.age").timeGauge().value();
+        meterRegistry.get("transaction.projector.partition.pending").gauges().forEach(gauge -> gauge.value());
+        verify(transactionEventRepository, times(1)).summarizeByPartition(TransactionEventStatus.PENDING, 2);
+
+        ReflectionTestUtils.setField(projectorMetrics, "refreshInterval", Duration.ZERO);
+        meterRegistry.get("transaction.projector.pending").gauge().value();
+        verify(transactionEventRepository, times(2)).summarizeByPartition(TransactionEventStatus.PENDING, 2);
+    }
+
+    @Test
+    void projectorHandoff() {
+        when(projectorHandoff.getHandedOffCount()).thenReturn(120L);
+        when(projectorHandoff.getDroppedCount()).thenReturn(20L);
+        when(projectorHandoff.getBuffered()).thenReturn(5);
+
+        assertEquals(120, meterRegistry.get("transaction.projector.handoff.events").functionCounter().count());
+        assertEquals(20, meterRegistry.get("transaction.projector.handoff.dropped").functionCounter().count());
+        assertEquals(5, meterRegistry.get("transaction.projector.handoff.buffered").gauge().value());
+    }
+
+    @Test
+    void projectorExecutor() {
+        when(projectorExecutor.getQueueDepth()).thenReturn(3);
+        when(projectorExecutor.getActiveWorkers()).thenReturn(1);
+        when(projectorExecutor.getRejectedCount()).thenReturn(7L);
+
+        assertEquals(3, meterRegistry.get("transaction.projector.executor.queued").gauge().value());
+        assertEquals(1, meterRegistry.get("transaction.projector.executor.active").gauge().value());
+        assertEquals(7, meterRegistry.get("transaction.projector.executor.rejected").functionCounter().count());
+    }
+}
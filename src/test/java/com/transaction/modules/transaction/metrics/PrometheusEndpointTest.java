@@ -0,0 +1,60 @@
+package com.transaction.modules.transaction.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prometheus-endpoint-test;DB_CLOSE_DELAY=-1",
+        "transaction.projector.metrics.refresh-interval=100ms"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // The hot path, repository and projector meters are scraped in Prometheus format
+    @Test
+    void prometheus() throws Exception {
+        String requestJson = "{\n \"messageId\": \"prometheus-load\",\n \"userId\": \"2226e2f9-ih09-46a8-958f-d659880asdfD\",\n\"transactionAmount\": {\n \"amount\": \"100\",\n \"currency\": \"$\",\n \"debitOrCredit\": \"CREDIT\"\n }\n}";
+        mockMvc.perform(put("/api/v1/transaction/load/prometheus-load")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk());
+
+        await().atMost(10, SECONDS).untilAsserted(() -> {
+            String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            assertTrue(metrics.contains("transaction_requests_seconds{operation=\"load\",quantile=\"0.999\","));
+            assertTrue(metrics.contains("transaction_requests_seconds_bucket{operation=\"load\""));
+            assertTrue(metrics.contains("transaction_authorizations_total{status=\"approved\","));
+            assertTrue(metrics.contains("spring_data_repository_invocations_seconds_count{exception=\"None\",method=\"saveAll\",repository=\"TransactionEventRepository\""));
+            assertTrue(metrics.contains("transaction_projector_pending 0.0"));
+            assertTrue(metrics.contains("transaction_projector_oldest_pending_age_seconds"));
+            assertTrue(metrics.contains("transaction_projector_partition_pending{partition=\"3\",} 0.0"));
+            assertTrue(metrics.contains("transaction_projector_events_total 1.0"));
+            assertTrue(metrics.contains("transaction_journal_failed_appends_total 0.0"));
+            assertTrue(metrics.contains("cache_gets_total{cache=\"balances\",result=\"miss\",} 1.0"));
+            assertTrue(metrics.contains("cache_gets_total{cache=\"balances\",result=\"hit\","));
+            assertTrue(metrics.contains("cache_size{cache=\"balances\",} 1.0"));
+            assertTrue(metrics.contains("cache_gets_total{cache=\"accounts\",result=\"miss\",} 1.0"));
+            assertTrue(metrics.contains("cache_size{cache=\"accounts\",} 1.0"));
+            assertTrue(metrics.contains("account_registry_hit_ratio 0.0"));
+        });
+    }
+}
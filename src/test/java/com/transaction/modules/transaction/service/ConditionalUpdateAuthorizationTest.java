@@ -0,0 +1,200 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.controller.request.Amount;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.TransactionEventStatus;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.TransactionEventRepository;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+ * Authorizations decided by the conditional debit of the account
+ * Concurrent debits of one account can never overdraw it, and the projected events match the accounts debited by the requests
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-update-authorization-test;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "transaction.authorization.strategy=CONDITIONAL_UPDATE"
+})
+class ConditionalUpdateAuthorizationTest {
+
+    private static final int CLIENTS = 8;
+
+    @Autowired
+    private TransactionEventService transactionEventService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionEventRepository transactionEventRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Debits racing for the same account without the user lock are approved until the balance is used up and never beyond
+    @Test
+    void concurrentDebitsNeverOverdraw() {
+        String userId = "conditional-hot-user";
+        Account account = new Account(userId);
+        account.setBalance(10000);
+        accountRepository.save(account);
+
+        AtomicInteger approved = new AtomicInteger();
+        runConcurrently(200, i -> {
+            if (transactionTemplate.execute(status -> accountRepository.debitIfCovered(userId, 300, "USD")) == 1) {
+                approved.incrementAndGet();
+            }
+        });
+
+        assertEquals(33, approved.get());
+        Account debited = accountRepository.findByUserId(userId);
+        assertEquals(100, debited.getBalance());
+        assertEquals(33, debited.getLastSequence());
+    }
+
+    // Loads and authorizations of a few hot users from concurrent clients, with a decline once the balance is used up
+    @Test
+    void authorizeHotUsers() {
+        List<String> userIds = IntStream.range(0, 4).mapToObj(user -> "conditional-user-" + user).toList();
+        userIds.forEach(userId -> accountRepository.save(new Account(userId)));
+        userIds.forEach(userId -> load(userId, userId + "-load", "10.00"));
+
+        AtomicInteger declined = new AtomicInteger();
+        runConcurrently(userIds.size() * 30, i -> {
+            String userId = userIds.get(i % userIds.size());
+            try {
+                authorize(userId, userId + "-authorize-" + i, "0.40");
+            } catch (IllegalArgumentException e) {
+                declined.incrementAndGet();
+            }
+        });
+        await().atMost(10, SECONDS).until(() -> transactionEventRepository.countByStatus(TransactionEventStatus.PENDING) == 0);
+
+        // 25 of the 30 authorizations of every user fit into its balance
+        assertEquals(userIds.size() * 5, declined.get());
+        assertEquals(userIds.size() * 26L, transactionRepository.findAll().stream().filter(transaction -> userIds.contains(transaction.getUserId())).count());
+        for (String userId : userIds) {
+            Account account = accountRepository.findByUserId(userId);
+            assertEquals(0, account.getBalance());
+            assertEquals(31, account.getLastSequence());
+
+            // Every event continues the running balance of the previous one, the projector leaves the account as it is
+            List<TransactionEvent> events = transactionEventRepository.findAll().stream()
+                    .filter(transactionEvent -> transactionEvent.getUserId().equals(userId))
+                    .sorted(Comparator.comparingLong(TransactionEvent::getSequence))
+                    .toList();
+            assertEquals(31, events.size());
+            long balance = 0;
+            for (int i = 0; i < events.size(); i++) {
+                TransactionEvent transactionEvent = events.get(i);
+                assertEquals(i + 1, transactionEvent.getSequence());
+                if (transactionEvent.getStatus() != TransactionEventStatus.FAILED) {
+                    balance += transactionEvent.getType() == TransactionType.CREDIT ? transactionEvent.getAmount() : -transactionEvent.getAmount();
+                }
+                assertEquals(balance, transactionEvent.getRunningBalance());
+            }
+
+            // Events are projected in sequence order, so the history ordered by transaction id is in sequence order
+            List<Long> sequences = transactionRepository.findAll().stream()
+                    .filter(transaction -> transaction.getUserId().equals(userId))
+                    .sorted(Comparator.comparingLong(Transaction::getId))
+                    .map(Transaction::getSequence)
+                    .toList();
+            assertEquals(sequences.stream().sorted().toList(), sequences);
+        }
+    }
+
+    // Concurrent retries of an authorization debit the account once and are answered with the original event
+    @Test
+    void concurrentRetriesDebitOnce() {
+        String userId = "conditional-retry-user";
+        accountRepository.save(new Account(userId));
+        load(userId, userId + "-load", "10.00");
+
+        runConcurrently(CLIENTS * 4, i -> authorize(userId, userId + "-authorize-" + i / CLIENTS, "1.00"));
+
+        assertEquals(600, accountRepository.findByUserId(userId).getBalance());
+        assertEquals(5, accountRepository.findByUserId(userId).getLastSequence());
+        assertEquals(5, transactionEventRepository.findAll().stream().filter(transactionEvent -> transactionEvent.getUserId().equals(userId)).count());
+    }
+
+    // A read-modify-write of an account updated in between fails its version check instead of overwriting the update
+    @Test
+    void staleAccountWriteFails() {
+        String userId = "conditional-stale-user";
+        accountRepository.save(new Account(userId));
+        Account stale = accountRepository.findByUserId(userId);
+
+        load(userId, userId + "-load", "5.00");
+        stale.setBalance(100);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> accountRepository.save(stale));
+        assertEquals(500, accountRepository.findByUserId(userId).getBalance());
+    }
+
+    private void runConcurrently(int tasks, IntConsumer task) {
+        ExecutorService executorService = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                int current = i;
+                futures.add(CompletableFuture.runAsync(() -> task.accept(current), executorService));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private void load(String userId, String messageId, String value) {
+        LoadRequest loadRequest = new LoadRequest();
+        loadRequest.setUserId(userId);
+        loadRequest.setMessageId(messageId);
+        loadRequest.setTransactionAmount(amount(value, TransactionType.CREDIT));
+        transactionEventService.load(loadRequest, messageId);
+    }
+
+    private void authorize(String userId, String messageId, String value) {
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setUserId(userId);
+        authorizationRequest.setMessageId(messageId);
+        authorizationRequest.setTransactionAmount(amount(value, TransactionType.DEBIT));
+        transactionEventService.authorize(authorizationRequest, messageId);
+    }
+
+    private static Amount amount(String value, TransactionType type) {
+        Amount amount = new Amount();
+        amount.setAmount(value);
+        amount.setCurrency("USD");
+        amount.setDebitOrCredit(type);
+        return amount;
+    }
+}
@@ -0,0 +1,19 @@
+package com.transaction.modules.transaction.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+ * Records the last history query Hibernate prepares, so a test can ask the database for its plan
+ */
+public class HistoryStatementInspector implements StatementInspector {
+
+    static volatile String lastHistoryQuery;
+
+    @Override
+    public String inspect(String sql) {
+        if (sql.contains(" from transaction ") && sql.contains(" order by ")) {
+            lastHistoryQuery = sql;
+        }
+        return sql;
+    }
+}
@@ -1,31 +1,71 @@
 package com.transaction.modules.transaction.service;
 
-import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.cache.AccountRegistry;
 import com.transaction.modules.account.repository.AccountRepository;
+import com.transaction.modules.transaction.cache.BalanceCache;
+import com.transaction.modules.transaction.cache.MessageIdRegistry;
+import com.transaction.modules.transaction.cache.UserBalance;
+import com.transaction.modules.transaction.commit.EventGroupCommitter;
 import com.transaction.modules.transaction.controller.request.Amount;
 import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.BatchItemRequest;
+import com.transaction.modules.transaction.controller.request.BatchRequest;
 import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.controller.request.TransactionRequest;
 import com.transaction.modules.transaction.controller.response.AuthorizationResponse;
+import com.transaction.modules.transaction.controller.response.BatchItemResponse;
+import com.transaction.modules.transaction.controller.response.BatchResponse;
 import com.transaction.modules.transaction.controller.response.LoadResponse;
 import com.transaction.modules.transaction.entity.TransactionEvent;
+import com.transaction.modules.transaction.enums.AuthorizationStrategy;
 import com.transaction.modules.transaction.enums.TransactionEventStatus;
 import com.transaction.modules.transaction.enums.TransactionType;
-import com.transaction.modules.transaction.job.TransactionUpdateJob;
+import com.transaction.modules.transaction.job.ProjectorHandoff;
+import com.transaction.modules.transaction.job.ProjectorTrigger;
+import com.transaction.modules.transaction.journal.EventJournal;
+import com.transaction.modules.transaction.lock.UserLockRegistry;
+import com.transaction.modules.transaction.metrics.TransactionMetrics;
 import com.transaction.modules.transaction.repository.TransactionEventRepository;
 import com.transaction.modules.transaction.service.TransactionEventServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,7 +78,30 @@ class TransactionEventServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
     @Mock
-    private TransactionUpdateJob transactionUpdateJob;
+    private ProjectorTrigger projectorTrigger;
+    @Mock
+    private ProjectorHandoff projectorHandoff;
+    @Mock
+    private EventJournal eventJournal;
+    @Mock
+    private EventGroupCommitter eventGroupCommitter;
+    @Spy
+    private BalanceCache balanceCache = new BalanceCache(2);
+    @Spy
+    private UserLockRegistry userLockRegistry = new UserLockRegistry(16);
+    @Spy
+    private MessageIdRegistry messageIdRegistry = new MessageIdRegistry(10000, 100);
+    @Spy
+    private AccountRegistry accountRegistry = new AccountRegistry(100, Duration.ofSeconds(5));
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    @Spy
+    private TaskExecutor taskExecutor = new SimpleAsyncTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private TransactionMetrics transactionMetrics = new TransactionMetrics(meterRegistry);
+    @Captor
+    private ArgumentCaptor<List<TransactionEvent>> eventsCaptor;
     @InjectMocks
     private TransactionEventServiceImpl transactionEventService;
     private LoadRequest loadRequest;
@@ -46,6 +109,9 @@ class TransactionEventServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(messageIdRegistry, "transactionEventRepository", transactionEventRepository);
+        ReflectionTestUtils.setField(accountRegistry, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(transactionEventService, "batchChunkSize", 2);
 
         loadRequest = new LoadRequest();
         loadRequest.setUserId(userId);
@@ -70,44 +136,90 @@ class TransactionEventServiceImplTest {
     // Credits the amount to balance successfully
     @Test
     void addCreditAmount() {
-        when(transactionEventRepository.getLatestRunningBalanceByUserId(loadRequest.getUserId())).thenReturn(50.0);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(loadRequest.getUserId())).thenReturn(latestEvent(5000));
         TransactionEvent result = transactionEventService.addCreditAmount(this.loadRequest);
-        assertEquals(350.0, result.getRunningBalance());
+        assertEquals(35000, result.getRunningBalance());
+        assertEquals(30000, result.getAmount());
+        assertEquals(2L, result.getSequence());
     }
 
     // Debits the amount to balance successfully
     @Test
     void deductDebitAmount() {
-        TransactionEvent result = transactionEventService.deductDebitAmount(authorizationRequest, 600.0, TransactionEventStatus.PENDING);
-        assertEquals(300.0, result.getRunningBalance());
+        TransactionEvent result = transactionEventService.deductDebitAmount(authorizationRequest, 30000, new UserBalance(60000, 1), TransactionEventStatus.PENDING);
+        assertEquals(30000, result.getRunningBalance());
+        assertEquals(2L, result.getSequence());
+    }
+
+    // With group commit the event is handed to the committer instead of being saved by the request
+    @Test
+    void testLoadGroupCommit() {
+        ReflectionTestUtils.setField(transactionEventService, "groupCommitEnabled", true);
+        when(accountRepository.existsById(loadRequest.getUserId())).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(loadRequest.getUserId())).thenReturn(latestEvent(20000));
+
+        LoadResponse loadResponse = transactionEventService.load(loadRequest, "testMessageId");
+
+        assertEquals(loadResponse.getBalance().getAmount(), "500.00");
+        verify(eventGroupCommitter).commit(any(TransactionEvent.class));
+        verify(transactionEventRepository, never()).save(any(TransactionEvent.class));
+        assertEquals(50000, transactionEventService.findCurrentBalance(userId));
+    }
+
+    // A failed group commit drops the cached balance, which is read again from the latest saved event
+    @Test
+    void testLoadGroupCommitFailed() {
+        ReflectionTestUtils.setField(transactionEventService, "groupCommitEnabled", true);
+        when(accountRepository.existsById(loadRequest.getUserId())).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(loadRequest.getUserId())).thenReturn(latestEvent(20000));
+        doThrow(new DataIntegrityViolationException("duplicate")).when(eventGroupCommitter).commit(any(TransactionEvent.class));
+
+        assertThrows(DataIntegrityViolationException.class, () -> transactionEventService.load(loadRequest, "testMessageId"));
+        verify(balanceCache).invalidate(userId);
+        assertEquals(20000, transactionEventService.findCurrentBalance(userId));
+    }
+
+    // An authorization whose wait for the group is interrupted drops the cached state, as its group may still commit
+    @Test
+    void testAuthorizeGroupCommitInterrupted() {
+        ReflectionTestUtils.setField(transactionEventService, "groupCommitEnabled", true);
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(latestEvent(50000));
+        doThrow(new IllegalStateException("Interrupted while waiting for the group commit.")).when(eventGroupCommitter).commit(any(TransactionEvent.class));
+
+        assertThrows(IllegalStateException.class, () -> transactionEventService.authorize(authorizationRequest, messageId));
+        verify(balanceCache).invalidate(userId);
+        assertNull(balanceCache.get(userId));
     }
 
     // Loads amount successfully
     @Test
     void testLoadSuccess() {
 
-        TransactionEvent transactionEvent = new TransactionEvent(loadRequest, 500.00);
-        when(transactionEventRepository.findById(loadRequest.getMessageId())).thenReturn(Optional.empty());
-        when(accountRepository.findById(loadRequest.getUserId())).thenReturn(Optional.of(new Account()));
+        TransactionEvent transactionEvent = new TransactionEvent(loadRequest, 30000, 50000, 1);
+        when(accountRepository.existsById(loadRequest.getUserId())).thenReturn(true);
         when(transactionEventRepository.save(any(TransactionEvent.class))).thenReturn(transactionEvent);
-        when(transactionEventRepository.getLatestRunningBalanceByUserId(loadRequest.getUserId())).thenReturn(200.00);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(loadRequest.getUserId())).thenReturn(latestEvent(20000));
 
         LoadResponse loadResponse = transactionEventService.load(loadRequest, "testMessageId");
 
         assertEquals(loadResponse.getMessageId(), messageId);
         assertEquals(loadResponse.getUserId(), userId);
-        assertEquals(loadResponse.getBalance().getAmount(), "500.0");
+        assertEquals(loadResponse.getBalance().getAmount(), "500.00");
         verify(transactionEventRepository).save(any(TransactionEvent.class));
+        verify(projectorHandoff).handOffAfterCommit(anyList());
+        verify(eventJournal).appendAfterCommit(anyList());
+        assertEquals(1, meterRegistry.get("transaction.requests").tag("operation", "load").timer().count());
         await().untilAsserted(() -> {
-            // Verify that execute method was called asynchronously
-            verify(transactionUpdateJob, times(1)).execute();
+            // Verify that the projector partition of the user was signalled to run asynchronously
+            verify(projectorTrigger, times(1)).signal(userId);
         });
     }
 
     // Loads throws error if there is a existing message id
     @Test
     void testLoadErrorExistingMessageId() {
-        when(transactionEventRepository.findById(loadRequest.getMessageId())).thenReturn(Optional.of(new TransactionEvent()));
+        doReturn(Optional.of(new TransactionEvent())).when(messageIdRegistry).find(loadRequest.getMessageId());
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             transactionEventService.load(loadRequest, messageId);
         });
@@ -133,10 +245,21 @@ class TransactionEventServiceImplTest {
         assertEquals("Request type must be CREDIT", exception.getMessage());
     }
 
+    // Loads throws error if the amount is not a valid amount
+    @Test
+    void testLoadErrorInvalidAmount() {
+        loadRequest.getTransactionAmount().setAmount("-1");
+        when(accountRepository.existsById(loadRequest.getUserId())).thenReturn(true);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            transactionEventService.load(loadRequest, messageId);
+        });
+        assertEquals("Invalid amount -1", exception.getMessage());
+    }
+
     // Loads throws error if user is not found
     @Test
     void testLoadErrorNoUserFound() {
-        when(accountRepository.findById(loadRequest.getUserId())).thenReturn(Optional.empty());
+        when(accountRepository.existsById(loadRequest.getUserId())).thenReturn(false);
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             transactionEventService.load(loadRequest, messageId);
         });
@@ -147,20 +270,22 @@ class TransactionEventServiceImplTest {
     @Test
     void testAuthorizeSuccess() {
 
-        TransactionEvent transactionEvent = new TransactionEvent(authorizationRequest, 500.00, TransactionEventStatus.PENDING);
+        TransactionEvent transactionEvent = new TransactionEvent(authorizationRequest, 30000, 50000, 1, TransactionEventStatus.PENDING);
 
-        when(accountRepository.findById(authorizationRequest.getUserId())).thenReturn(Optional.of(new Account()));
+        when(accountRepository.existsById(authorizationRequest.getUserId())).thenReturn(true);
         when(transactionEventRepository.save(any(TransactionEvent.class))).thenReturn(transactionEvent);
-        when(transactionEventRepository.getLatestRunningBalanceByUserId(authorizationRequest.getUserId())).thenReturn(500.00);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(authorizationRequest.getUserId())).thenReturn(latestEvent(50000));
 
         AuthorizationResponse authorizationResponse = transactionEventService.authorize(authorizationRequest, "testMessageId");
 
         assertEquals(authorizationResponse.getMessageId(), messageId);
-        assertEquals(authorizationResponse.getBalance().getAmount(), "200.0");
+        assertEquals(authorizationResponse.getBalance().getAmount(), "200.00");
         verify(transactionEventRepository).save(any(TransactionEvent.class));
+        assertEquals(1, meterRegistry.get("transaction.authorizations").tag("status", "approved").counter().count());
+        assertEquals(1, meterRegistry.get("transaction.requests").tag("operation", "authorize").timer().count());
         await().untilAsserted(() -> {
-            // Verify that execute method was called asynchronously
-            verify(transactionUpdateJob, times(1)).execute();
+            // Verify that the projector partition of the user was signalled to run asynchronously
+            verify(projectorTrigger, times(1)).signal(userId);
         });
     }
 
@@ -168,22 +293,143 @@ class TransactionEventServiceImplTest {
     @Test
     void testAuthorizeFailedSuccess() {
 
-        TransactionEvent transactionEvent = new TransactionEvent(authorizationRequest, 200.00, TransactionEventStatus.PENDING);
+        TransactionEvent transactionEvent = new TransactionEvent(authorizationRequest, 30000, 20000, 1, TransactionEventStatus.PENDING);
 
-        when(accountRepository.findById(authorizationRequest.getUserId())).thenReturn(Optional.of(new Account()));
+        when(accountRepository.existsById(authorizationRequest.getUserId())).thenReturn(true);
         when(transactionEventRepository.save(any(TransactionEvent.class))).thenReturn(transactionEvent);
-        when(transactionEventRepository.getLatestRunningBalanceByUserId(authorizationRequest.getUserId())).thenReturn(null);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(authorizationRequest.getUserId())).thenReturn(null);
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             transactionEventService.authorize(authorizationRequest, messageId);
         });
         assertEquals("Insufficient balance", exception.getMessage());
+        assertEquals(1, meterRegistry.get("transaction.authorizations").tag("status", "declined").counter().count());
+        assertEquals(1, meterRegistry.get("transaction.requests").tag("operation", "authorize").timer().count());
+    }
+
+    // With conditional update the account is debited by one statement and the event takes the balance and sequence of the updated account
+    @Test
+    void testAuthorizeConditionalUpdate() {
+        ReflectionTestUtils.setField(transactionEventService, "authorizationStrategy", AuthorizationStrategy.CONDITIONAL_UPDATE);
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(accountRepository.debitIfCovered(userId, 30000, "$")).thenReturn(1);
+        when(accountRepository.findUserBalance(userId)).thenReturn(new UserBalance(20000, 4));
+        balanceCache.put(userId, new UserBalance(50000, 3));
+
+        AuthorizationResponse authorizationResponse = transactionEventService.authorize(authorizationRequest, messageId);
+
+        assertEquals("200.00", authorizationResponse.getBalance().getAmount());
+        ArgumentCaptor<TransactionEvent> eventCaptor = ArgumentCaptor.forClass(TransactionEvent.class);
+        verify(transactionEventRepository).save(eventCaptor.capture());
+        assertEquals(TransactionEventStatus.PENDING, eventCaptor.getValue().getStatus());
+        assertEquals(4, eventCaptor.getValue().getSequence());
+        verify(accountRepository, never()).advanceSequence(userId);
+        verify(transactionEventRepository, never()).findFirstByUserIdOrderBySequenceDesc(userId);
+        verifyNoInteractions(eventGroupCommitter);
+        verify(userLockRegistry).execute(eq(userId), any());
+        verify(projectorTrigger).signal(userId);
+        assertEquals(20000, transactionEventService.findCurrentBalance(userId));
+        assertEquals(1, meterRegistry.get("transaction.authorizations").tag("status", "approved").counter().count());
+    }
+
+    // A conditional update never caches a user that is not cached, the balance is reloaded from the event log instead
+    @Test
+    void testAuthorizeConditionalUpdateUncached() {
+        ReflectionTestUtils.setField(transactionEventService, "authorizationStrategy", AuthorizationStrategy.CONDITIONAL_UPDATE);
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(accountRepository.debitIfCovered(userId, 30000, "$")).thenReturn(1);
+        when(accountRepository.findUserBalance(userId)).thenReturn(new UserBalance(20000, 4));
+
+        transactionEventService.authorize(authorizationRequest, messageId);
+
+        assertNull(balanceCache.get(userId));
+    }
+
+    // A conditional debit that updates no row declines the authorization, the declined event still takes the next sequence
+    @Test
+    void testAuthorizeConditionalUpdateDeclined() {
+        ReflectionTestUtils.setField(transactionEventService, "authorizationStrategy", AuthorizationStrategy.CONDITIONAL_UPDATE);
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(accountRepository.debitIfCovered(userId, 30000, "$")).thenReturn(0);
+        when(accountRepository.findUserBalance(userId)).thenReturn(new UserBalance(10000, 3));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transactionEventService.authorize(authorizationRequest, messageId));
+
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(accountRepository).advanceSequence(userId);
+        ArgumentCaptor<TransactionEvent> eventCaptor = ArgumentCaptor.forClass(TransactionEvent.class);
+        verify(transactionEventRepository).save(eventCaptor.capture());
+        assertEquals(TransactionEventStatus.FAILED, eventCaptor.getValue().getStatus());
+        assertEquals(10000, eventCaptor.getValue().getRunningBalance());
+        assertEquals(3, eventCaptor.getValue().getSequence());
+        assertEquals(1, meterRegistry.get("transaction.authorizations").tag("status", "declined").counter().count());
+    }
+
+    // With conditional update a load credits the account in the same transaction as its event
+    @Test
+    void testLoadConditionalUpdate() {
+        ReflectionTestUtils.setField(transactionEventService, "authorizationStrategy", AuthorizationStrategy.CONDITIONAL_UPDATE);
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(accountRepository.credit(userId, 30000, "$")).thenReturn(1);
+        when(accountRepository.findUserBalance(userId)).thenReturn(new UserBalance(50000, 2));
+
+        LoadResponse loadResponse = transactionEventService.load(loadRequest, messageId);
+
+        assertEquals("500.00", loadResponse.getBalance().getAmount());
+        verify(transactionEventRepository).save(any(TransactionEvent.class));
+        verify(projectorHandoff).handOffAfterCommit(anyList());
+        verify(eventJournal).appendAfterCommit(anyList());
+        verify(eventJournal, never()).append(anyList());
+        verify(userLockRegistry).execute(eq(userId), any());
     }
 
     // Authorize throws error if there is a existing message id
     @Test
     void testAuthoriseErrorExistingMessageId() {
-        when(transactionEventRepository.findById(authorizationRequest.getMessageId())).thenReturn(Optional.of(new TransactionEvent()));
+        doReturn(Optional.of(new TransactionEvent())).when(messageIdRegistry).find(authorizationRequest.getMessageId());
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            transactionEventService.authorize(authorizationRequest, messageId);
+        });
+        assertEquals("Duplicate message id " + messageId, exception.getMessage());
+    }
+
+    // Retried load is answered with the original event without appending a new one
+    @Test
+    void testLoadReplay() {
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(latestEvent(20000));
+
+        LoadResponse first = transactionEventService.load(loadRequest, messageId);
+        LoadResponse retry = transactionEventService.load(loadRequest, messageId);
+
+        assertEquals("500.00", first.getBalance().getAmount());
+        assertEquals("500.00", retry.getBalance().getAmount());
+        assertEquals(messageId, retry.getMessageId());
+        verify(transactionEventRepository, times(1)).save(any(TransactionEvent.class));
+        verify(transactionEventRepository, never()).findById(anyString());
+    }
+
+    // Retried authorization is answered with the original outcome, also when it was declined
+    @Test
+    void testAuthorizeReplay() {
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(null);
+
+        assertThrows(IllegalArgumentException.class, () -> transactionEventService.authorize(authorizationRequest, messageId));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            transactionEventService.authorize(authorizationRequest, messageId);
+        });
+
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(transactionEventRepository, times(1)).save(any(TransactionEvent.class));
+    }
+
+    // Reusing a message id for a different amount is rejected
+    @Test
+    void testAuthorizeErrorReusedMessageId() {
+        TransactionEvent originalEvent = new TransactionEvent(authorizationRequest, 10000, 0, 1, TransactionEventStatus.PENDING);
+        doReturn(Optional.of(originalEvent)).when(messageIdRegistry).find(messageId);
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             transactionEventService.authorize(authorizationRequest, messageId);
         });
@@ -212,10 +458,294 @@ class TransactionEventServiceImplTest {
     // Authorize throws error if user is not found
     @Test
     void testAuthoriseErrorNoUserFound() {
-        when(accountRepository.findById(authorizationRequest.getUserId())).thenReturn(Optional.empty());
+        when(accountRepository.existsById(authorizationRequest.getUserId())).thenReturn(false);
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             transactionEventService.authorize(authorizationRequest, messageId);
         });
         assertEquals("User not found for user id " + userId, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    // Cached balance is served without querying the event log again
+    @Test
+    void findCurrentBalanceCached() {
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(latestEvent(5000));
+        assertEquals(5000, transactionEventService.findCurrentBalance(userId));
+        assertEquals(5000, transactionEventService.findCurrentBalance(userId));
+        verify(transactionEventRepository, times(1)).findFirstByUserIdOrderBySequenceDesc(userId);
+        assertEquals(1, balanceCache.getHitCount());
+        assertEquals(1, balanceCache.getMissCount());
+    }
+
+    // A user without events starts from 0
+    @Test
+    void findCurrentBalanceWithoutEvents() {
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(null);
+        assertEquals(0, transactionEventService.findCurrentBalance(userId));
+    }
+
+    // Cached balance never drifts from the event log, including after cold users are evicted
+    @Test
+    void cachedBalanceMatchesEventLog() {
+        List<TransactionEvent> eventLog = new ArrayList<>();
+        when(accountRepository.existsById(anyString())).thenReturn(true);
+        when(transactionEventRepository.save(any(TransactionEvent.class))).thenAnswer(invocation -> {
+            eventLog.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(anyString())).thenAnswer(invocation -> {
+            String user = invocation.getArgument(0);
+            TransactionEvent latest = null;
+            for (TransactionEvent event : eventLog) {
+                if (event.getUserId().equals(user)) {
+                    latest = event;
+                }
+            }
+            return latest;
+        });
+
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String user = "user" + random.nextInt(5);
+            String amount = random.nextInt(100) + "." + random.nextInt(10) + random.nextInt(10);
+            try {
+                if (random.nextBoolean()) {
+                    transactionEventService.load(loadRequest(user, "load" + i, amount), "load" + i);
+                } else {
+                    transactionEventService.authorize(authorizationRequest(user, "authorize" + i, amount), "authorize" + i);
+                }
+            } catch (IllegalArgumentException e) {
+                assertEquals("Insufficient balance", e.getMessage());
+            }
+        }
+
+        for (int i = 0; i < 5; i++) {
+            String user = "user" + i;
+            long expected = 0;
+            long sequence = 0;
+            for (TransactionEvent event : eventLog) {
+                if (event.getUserId().equals(user)) {
+                    assertEquals(++sequence, event.getSequence());
+                    if (event.getStatus() == TransactionEventStatus.PENDING) {
+                        expected += event.getType() == TransactionType.CREDIT ? event.getAmount() : -event.getAmount();
+                    }
+                }
+            }
+            assertEquals(expected, transactionEventService.findCurrentBalance(user));
+        }
+    }
+
+    // Concurrent authorizations of the same user never overdraw the account
+    @Test
+    void concurrentAuthorizationsNeverOverdraw() throws Exception {
+        List<TransactionEvent> eventLog = Collections.synchronizedList(new ArrayList<>());
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(latestEvent(100000));
+        when(transactionEventRepository.save(any(TransactionEvent.class))).thenAnswer(invocation -> {
+            eventLog.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(100);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String message = "authorize" + i;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                try {
+                    transactionEventService.authorize(authorizationRequest(userId, message, "10"), message);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int approved = 0;
+        for (Future<Boolean> future : futures) {
+            approved += future.get() ? 1 : 0;
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, approved);
+        assertEquals(0, transactionEventService.findCurrentBalance(userId));
+        eventLog.forEach(event -> assertTrue(event.getRunningBalance() >= 0));
+    }
+
+    // Concurrent retries of the same message id are processed once and all get the original response
+    @Test
+    void concurrentRetriesProcessedOnce() throws Exception {
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(latestEvent(0));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(50);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LoadResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                return transactionEventService.load(loadRequest, messageId);
+            }));
+        }
+        start.countDown();
+        for (Future<LoadResponse> future : futures) {
+            assertEquals("300.00", future.get().getBalance().getAmount());
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        verify(transactionEventRepository, times(1)).save(any(TransactionEvent.class));
+    }
+
+    // Batch items of the same user are applied in order and saved in chunks, results keep the request order
+    @Test
+    void testBatch() {
+        when(accountRepository.existsById(anyString())).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(anyString())).thenReturn(null);
+
+        BatchRequest batchRequest = new BatchRequest();
+        batchRequest.setItems(List.of(
+                batchItem(loadRequest("user1", "message1", "100")),
+                batchItem(loadRequest("user2", "message2", "50")),
+                batchItem(authorizationRequest("user1", "message3", "30")),
+                batchItem(authorizationRequest("user2", "message4", "80")),
+                batchItem(authorizationRequest("user1", "message5", "20"))));
+        BatchResponse batchResponse = transactionEventService.batch(batchRequest);
+
+        List<BatchItemResponse> results = batchResponse.getResults();
+        assertEquals(5, results.size());
+        assertEquals("100.00", results.get(0).getBalance().getAmount());
+        assertEquals("50.00", results.get(1).getBalance().getAmount());
+        assertEquals("70.00", results.get(2).getBalance().getAmount());
+        assertEquals(400, results.get(3).getCode());
+        assertEquals("Insufficient balance", results.get(3).getMessage());
+        assertEquals("50.00", results.get(4).getBalance().getAmount());
+        assertEquals("message5", results.get(4).getMessageId());
+
+        // user1 has two chunks of two and one items, user2 one chunk of two items
+        verify(transactionEventRepository, times(3)).saveAll(anyList());
+        verify(transactionEventRepository, never()).save(any(TransactionEvent.class));
+        verify(eventJournal, times(3)).appendAfterCommit(anyList());
+        verify(projectorHandoff, times(3)).handOffAfterCommit(anyList());
+        verify(projectorTrigger, times(1)).signal();
+    }
+
+    // Items of a chunk that cannot be saved are failed and the user's balance is reloaded
+    @Test
+    void testBatchChunkSaveFailed() {
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(null);
+        when(transactionEventRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        BatchRequest batchRequest = new BatchRequest();
+        batchRequest.setItems(List.of(batchItem(loadRequest(userId, "message1", "100"))));
+        BatchResponse batchResponse = transactionEventService.batch(batchRequest);
+
+        assertEquals(400, batchResponse.getResults().get(0).getCode());
+        assertEquals(0, transactionEventService.findCurrentBalance(userId));
+        verify(transactionEventRepository, times(2)).findFirstByUserIdOrderBySequenceDesc(userId);
+    }
+
+    // A database failure while applying an item fails the user's chunk without failing the batch or leaving its staged events cached
+    @Test
+    void testBatchItemFailed() {
+        when(accountRepository.existsById("user2")).thenReturn(true);
+        doReturn(true).doThrow(new DataAccessResourceFailureException("connection lost")).when(accountRegistry).exists("user1");
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(anyString())).thenReturn(null);
+
+        BatchRequest batchRequest = new BatchRequest();
+        batchRequest.setItems(List.of(
+                batchItem(loadRequest("user1", "message1", "100")),
+                batchItem(loadRequest("user2", "message2", "50")),
+                batchItem(authorizationRequest("user1", "message3", "30"))));
+        BatchResponse batchResponse = transactionEventService.batch(batchRequest);
+
+        List<BatchItemResponse> results = batchResponse.getResults();
+        assertEquals(400, results.get(0).getCode());
+        assertEquals("Batch chunk could not be saved", results.get(0).getMessage());
+        assertEquals("50.00", results.get(1).getBalance().getAmount());
+        assertEquals(400, results.get(2).getCode());
+        assertEquals(0, transactionEventService.findCurrentBalance("user1"));
+        verify(transactionEventRepository, times(1)).saveAll(anyList());
+        assertTrue(messageIdRegistry.find("message1").isEmpty());
+    }
+
+    // A message id retried within a chunk is answered from the staged event, and recorded only once the chunk has committed
+    @Test
+    void testBatchRetryWithinChunk() {
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(null);
+        when(transactionEventRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            verify(messageIdRegistry, never()).record(any(TransactionEvent.class));
+            return invocation.getArgument(0);
+        });
+
+        BatchRequest batchRequest = new BatchRequest();
+        batchRequest.setItems(List.of(
+                batchItem(loadRequest(userId, "message1", "100")),
+                batchItem(loadRequest(userId, "message1", "100"))));
+        BatchResponse batchResponse = transactionEventService.batch(batchRequest);
+
+        assertEquals("100.00", batchResponse.getResults().get(0).getBalance().getAmount());
+        assertEquals("100.00", batchResponse.getResults().get(1).getBalance().getAmount());
+        verify(transactionEventRepository).saveAll(eventsCaptor.capture());
+        assertEquals(1, eventsCaptor.getValue().size());
+        assertTrue(messageIdRegistry.find("message1").isPresent());
+    }
+
+    // A message id saved at the same time by a request of another user is rejected as a duplicate instead of failing on the primary key
+    @Test
+    void testLoadConcurrentDuplicateOfAnotherUser() {
+        TransactionEvent otherUserEvent = new TransactionEvent(loadRequest("otherUser", messageId, "300.00"), 30000, 30000, 1);
+        when(accountRepository.existsById(userId)).thenReturn(true);
+        when(transactionEventRepository.findFirstByUserIdOrderBySequenceDesc(userId)).thenReturn(latestEvent(20000));
+        when(transactionEventRepository.save(any(TransactionEvent.class))).thenThrow(new DataIntegrityViolationException("primary key"));
+        when(transactionEventRepository.findById(messageId)).thenReturn(Optional.of(otherUserEvent));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> transactionEventService.load(loadRequest, messageId));
+
+        assertEquals("Duplicate message id " + messageId, exception.getMessage());
+        verify(transactionEventRepository, times(1)).save(any(TransactionEvent.class));
+    }
+
+    private TransactionEvent latestEvent(long runningBalance) {
+        TransactionEvent transactionEvent = new TransactionEvent();
+        transactionEvent.setUserId(userId);
+        transactionEvent.setRunningBalance(runningBalance);
+        transactionEvent.setSequence(1);
+        return transactionEvent;
+    }
+
+    private LoadRequest loadRequest(String user, String message, String value) {
+        LoadRequest request = new LoadRequest();
+        request.setUserId(user);
+        request.setMessageId(message);
+        Amount amount = new Amount();
+        amount.setDebitOrCredit(TransactionType.CREDIT);
+        amount.setAmount(value);
+        amount.setCurrency("$");
+        request.setTransactionAmount(amount);
+        return request;
+    }
+
+    private AuthorizationRequest authorizationRequest(String user, String message, String value) {
+        AuthorizationRequest request = new AuthorizationRequest();
+        request.setUserId(user);
+        request.setMessageId(message);
+        Amount amount = new Amount();
+        amount.setDebitOrCredit(TransactionType.DEBIT);
+        amount.setAmount(value);
+        amount.setCurrency("$");
+        request.setTransactionAmount(amount);
+        return request;
+    }
+
+    private BatchItemRequest batchItem(TransactionRequest transactionRequest) {
+        BatchItemRequest item = new BatchItemRequest();
+        item.setUserId(transactionRequest.getUserId());
+        item.setMessageId(transactionRequest.getMessageId());
+        item.setTransactionAmount(transactionRequest.getTransactionAmount());
+        return item;
+    }
+}
@@ -0,0 +1,122 @@
+package com.transaction.modules.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Export of a thousand transactions, checked for the written rows, the format and the filter
+ * The flat heap over a million rows is checked by TransactionExportVolumeTest
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:transaction-export-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionExportTest {
+
+    private static final String USER_ID = "export-user";
+
+    // Every tenth transaction belongs to the other user
+    private static final String OTHER_USER_ID = "export-other-user";
+
+    private static final int TRANSACTIONS = 1_000;
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Transaction n is created n seconds after the start, even ones are credits
+    @BeforeAll
+    void seedTransactions() {
+        accountRepository.save(new Account(USER_ID));
+        accountRepository.save(new Account(OTHER_USER_ID));
+        jdbcTemplate.update("INSERT INTO TRANSACTION (ID, USER_ID, TYPE, AMOUNT, CURRENCY, CREATED_AT) "
+                + "SELECT X, CASEWHEN(MOD(X, 10) = 0, '" + OTHER_USER_ID + "', '" + USER_ID + "'), CASEWHEN(MOD(X, 2) = 0, 'CREDIT', 'DEBIT'), X, '$', "
+                + "DATEADD(SECOND, X, TIMESTAMP '" + Timestamp.valueOf(START) + "') FROM SYSTEM_RANGE(1, " + TRANSACTIONS + ")");
+    }
+
+    @Test
+    void csvOfUserInRange() throws Exception {
+        mockMvc.perform(get("/api/v1/transaction/export")
+                        .param("userId", USER_ID)
+                        .param("from", START.plusSeconds(9).toString())
+                        .param("to", START.plusSeconds(13).toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("id,userId,type,amount,currency,createdAt\n"
+                        + "12,export-user,CREDIT,0.12,$,2024-01-01T00:00:12\n"
+                        + "11,export-user,DEBIT,0.11,$,2024-01-01T00:00:11\n"
+                        + "9,export-user,DEBIT,0.09,$,2024-01-01T00:00:09\n"));
+    }
+
+    @Test
+    void ndjsonOfEveryUserInRange() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/transaction/export")
+                        .param("format", "NDJSON")
+                        .param("from", START.plusSeconds(500).toString())
+                        .param("to", START.plusSeconds(521).toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = response.lines().toList();
+        assertEquals(21, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode transaction = objectMapper.readTree(lines.get(i));
+            assertEquals(500 + i, transaction.get("id").asLong());
+            assertEquals(i % 10 == 0 ? OTHER_USER_ID : USER_ID, transaction.get("userId").asText());
+        }
+        assertEquals("5.00", objectMapper.readTree(lines.get(0)).get("amount").asText());
+        assertEquals("2024-01-01T00:08:20", objectMapper.readTree(lines.get(0)).get("createdAt").asText());
+    }
+
+    // Without a range every row is exported
+    @Test
+    void csvOfEveryRow() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/transaction/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(TRANSACTIONS + 1, response.lines().count());
+    }
+
+    @Test
+    void invalidRange() throws Exception {
+        mockMvc.perform(get("/api/v1/transaction/export")
+                        .param("from", START.plusSeconds(10).toString())
+                        .param("to", START.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknownUser() throws Exception {
+        mockMvc.perform(get("/api/v1/transaction/export").param("userId", "export-unknown-user"))
+                .andExpect(status().isBadRequest());
+    }
+}
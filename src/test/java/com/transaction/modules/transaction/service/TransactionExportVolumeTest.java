@@ -0,0 +1,107 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.modules.transaction.enums.TransactionExportFormat;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Export of a million transactions, checked for a heap that does not grow with the number of rows
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:transaction-export-volume-test;DB_CLOSE_DELAY=-1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Tag("volume")
+class TransactionExportVolumeTest {
+
+    private static final int TRANSACTIONS = 1_000_000;
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    // Heap the export may hold at any time, far below the hundreds of megabytes a million loaded transactions take
+    // and below the rows the database buffers of a result that is not read lazily
+    private static final long HEAP_GROWTH_LIMIT = 16 * 1024 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeAll
+    void seedTransactions() {
+        jdbcTemplate.update("INSERT INTO TRANSACTION (ID, USER_ID, TYPE, AMOUNT, CURRENCY, CREATED_AT) "
+                + "SELECT X, 'export-user', CASEWHEN(MOD(X, 2) = 0, 'CREDIT', 'DEBIT'), X, '$', "
+                + "DATEADD(SECOND, X, TIMESTAMP '" + Timestamp.valueOf(START) + "') FROM SYSTEM_RANGE(1, " + TRANSACTIONS + ")");
+    }
+
+    // Exports every row while sampling the heap and the persistence context as the output is written
+    @Test
+    void flatHeapForEveryRow() throws Exception {
+        HeapSamplingOutputStream output = new HeapSamplingOutputStream();
+
+        transactionExportService.export(TransactionExportFormat.CSV, null, null, null, output);
+
+        assertEquals(TRANSACTIONS + 1, output.lines);
+        assertTrue(output.samples >= 9, "samples " + output.samples);
+        assertTrue(output.maxHeapGrowth < HEAP_GROWTH_LIMIT, "heap grew by " + output.maxHeapGrowth + " bytes");
+        assertTrue(output.maxManagedEntities <= 1, "managed entities " + output.maxManagedEntities);
+    }
+
+    /*
+     * Discards the output, counting lines and sampling the used heap after a collection every 100k lines
+     */
+    private class HeapSamplingOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        private final long baseline = usedHeap();
+
+        private long lines;
+
+        private int samples;
+
+        private long maxHeapGrowth;
+
+        private int maxManagedEntities;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % 100_000 == 0) {
+                samples++;
+                maxHeapGrowth = Math.max(maxHeapGrowth, usedHeap() - baseline);
+                // Written within the export transaction, so this is the persistence context of the export
+                maxManagedEntities = Math.max(maxManagedEntities, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        private long usedHeap() {
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+}
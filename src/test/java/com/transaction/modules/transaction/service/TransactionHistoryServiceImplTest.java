@@ -0,0 +1,163 @@
+package com.transaction.modules.transaction.service;
+
+import com.transaction.modules.account.cache.AccountRegistry;
+import com.transaction.modules.transaction.archive.EventArchive;
+import com.transaction.modules.transaction.controller.response.TransactionHistoryResponse;
+import com.transaction.modules.transaction.entity.Transaction;
+import com.transaction.modules.transaction.enums.TransactionType;
+import com.transaction.modules.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHistoryServiceImplTest {
+
+    private final String userId = "testUser";
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private AccountRegistry accountRegistry;
+    @Mock
+    private EventArchive eventArchive;
+    @InjectMocks
+    private TransactionHistoryServiceImpl transactionHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionHistoryService, "defaultPageSize", 3);
+        ReflectionTestUtils.setField(transactionHistoryService, "maxPageSize", 10);
+    }
+
+    // One row more than the page is read, the last row of the page becomes the next cursor
+    @Test
+    void findHistoryWithNextPage() {
+        when(accountRegistry.exists(userId)).thenReturn(true);
+        when(transactionRepository.findHistory(eq(userId), eq(Long.MAX_VALUE), eq(EnumSet.allOf(TransactionType.class)),
+                isNull(), isNull(), eq(PageRequest.of(0, 4))))
+                .thenReturn(transactions(40, 30, 20, 10));
+
+        TransactionHistoryResponse transactionHistoryResponse = transactionHistoryService.findHistory(userId, null, null, null, null, null);
+
+        assertEquals(userId, transactionHistoryResponse.getUserId());
+        assertEquals(List.of(40L, 30L, 20L), transactionHistoryResponse.getTransactions().stream().map(transaction -> transaction.getId()).toList());
+        assertEquals("1.00", transactionHistoryResponse.getTransactions().get(0).getAmount());
+        assertEquals(20L, transactionHistoryResponse.getNextCursor());
+    }
+
+    @Test
+    void findHistoryLastPage() {
+        when(accountRegistry.exists(userId)).thenReturn(true);
+        when(transactionRepository.findHistory(eq(userId), eq(20L), any(), any(), any(), eq(PageRequest.of(0, 3))))
+                .thenReturn(transactions(10));
+
+        TransactionHistoryResponse transactionHistoryResponse = transactionHistoryService.findHistory(userId, 20L, 2, null, null, null);
+
+        assertEquals(1, transactionHistoryResponse.getTransactions().size());
+        assertNull(transactionHistoryResponse.getNextCursor());
+    }
+
+    // Archived transactions are read above the last row of a full page and merged in id order, a row found in both is kept once
+    @Test
+    void findHistoryWithArchivedTransactions() {
+        when(accountRegistry.exists(userId)).thenReturn(true);
+        when(transactionRepository.findHistory(eq(userId), eq(Long.MAX_VALUE), any(), any(), any(), eq(PageRequest.of(0, 4))))
+                .thenReturn(transactions(40, 30, 20, 10));
+        when(eventArchive.readTransactions(eq(userId), eq(10L), eq(Long.MAX_VALUE), any(), any(), any(), eq(4)))
+                .thenReturn(transactions(35, 30, 25));
+
+        TransactionHistoryResponse transactionHistoryResponse = transactionHistoryService.findHistory(userId, null, null, null, null, null);
+
+        assertEquals(List.of(40L, 35L, 30L), transactionHistoryResponse.getTransactions().stream().map(transaction -> transaction.getId()).toList());
+        assertEquals(30L, transactionHistoryResponse.getNextCursor());
+    }
+
+    // A page the table cannot fill is completed from the archive
+    @Test
+    void findHistoryContinuedInArchive() {
+        when(accountRegistry.exists(userId)).thenReturn(true);
+        when(transactionRepository.findHistory(eq(userId), eq(50L), any(), any(), any(), eq(PageRequest.of(0, 4))))
+                .thenReturn(transactions(40));
+        when(eventArchive.readTransactions(eq(userId), eq(0L), eq(50L), any(), any(), any(), eq(4)))
+                .thenReturn(transactions(8, 6, 4));
+
+        TransactionHistoryResponse transactionHistoryResponse = transactionHistoryService.findHistory(userId, 50L, null, null, null, null);
+
+        assertEquals(List.of(40L, 8L, 6L), transactionHistoryResponse.getTransactions().stream().map(transaction -> transaction.getId()).toList());
+        assertEquals(6L, transactionHistoryResponse.getNextCursor());
+    }
+
+    // The filters are passed to the query, an open end of the range stays null
+    @Test
+    void findHistoryWithFilters() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(accountRegistry.exists(userId)).thenReturn(true);
+        when(transactionRepository.findHistory(eq(userId), anyLong(), eq(EnumSet.of(TransactionType.DEBIT)), eq(from),
+                isNull(), any())).thenReturn(List.of());
+
+        TransactionHistoryResponse transactionHistoryResponse = transactionHistoryService.findHistory(userId, null, null, TransactionType.DEBIT, from, null);
+
+        assertTrue(transactionHistoryResponse.getTransactions().isEmpty());
+        assertNull(transactionHistoryResponse.getNextCursor());
+    }
+
+    @Test
+    void findHistoryWithInvalidPageSize() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transactionHistoryService.findHistory(userId, null, 11, null, null, null));
+
+        assertEquals("Page size must be between 1 and 10", exception.getMessage());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void findHistoryWithInvalidRange() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transactionHistoryService.findHistory(userId, null, null, null, from, from));
+
+        assertEquals("From must be before to", exception.getMessage());
+    }
+
+    @Test
+    void findHistoryOfUnknownUser() {
+        when(accountRegistry.exists(userId)).thenReturn(false);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transactionHistoryService.findHistory(userId, null, null, null, null, null));
+
+        assertEquals("User not found for user id " + userId, exception.getMessage());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private List<Transaction> transactions(long... ids) {
+        List<Transaction> transactions = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Transaction transaction = new Transaction();
+            ReflectionTestUtils.setField(transaction, "id", id);
+            transaction.setUserId(userId);
+            transaction.setType(TransactionType.CREDIT);
+            transaction.setAmount(100);
+            transaction.setCurrency("$");
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,186 @@
+package com.transaction.modules.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.modules.account.entity.Account;
+import com.transaction.modules.account.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * History of a user with millions of transactions, checked for correct pages and for a cost that does not depend on the page depth
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transaction-history-test;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.transaction.modules.transaction.service.HistoryStatementInspector"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionHistoryTest {
+
+    private static final String USER_ID = "history-user";
+
+    private static final String OTHER_USER_ID = "history-other-user";
+
+    // Every tenth transaction belongs to the other user, so the history user has 1.8 million
+    private static final int TRANSACTIONS = 2_000_000;
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Transaction n is created n seconds after the start, even ones are credits
+    @BeforeAll
+    void seedTransactions() {
+        accountRepository.save(new Account(USER_ID));
+        accountRepository.save(new Account(OTHER_USER_ID));
+        jdbcTemplate.update("INSERT INTO TRANSACTION (ID, USER_ID, TYPE, AMOUNT, CURRENCY, CREATED_AT) "
+                + "SELECT X, CASEWHEN(MOD(X, 10) = 0, '" + OTHER_USER_ID + "', '" + USER_ID + "'), CASEWHEN(MOD(X, 2) = 0, 'CREDIT', 'DEBIT'), X, '$', "
+                + "DATEADD(SECOND, X, TIMESTAMP '" + Timestamp.valueOf(START) + "') FROM SYSTEM_RANGE(1, " + TRANSACTIONS + ")");
+    }
+
+    @Test
+    void firstPage() throws Exception {
+        JsonNode page = history("size=5");
+
+        assertEquals(List.of(1999999L, 1999998L, 1999997L, 1999996L, 1999995L), ids(page));
+        assertEquals(1999995L, page.get("nextCursor").asLong());
+        assertEquals("DEBIT", page.get("transactions").get(0).get("type").asText());
+        assertEquals("19999.99", page.get("transactions").get(0).get("amount").asText());
+    }
+
+    // Following the cursors walks the history without gaps or repeats, skipping the other user's transactions
+    @Test
+    void walkPages() throws Exception {
+        List<Long> walked = new ArrayList<>();
+        String cursor = "1000001";
+        for (int i = 0; i < 10; i++) {
+            JsonNode page = history("size=50&cursor=" + cursor);
+            walked.addAll(ids(page));
+            cursor = page.get("nextCursor").asText();
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (long id = 1000000; expected.size() < 500; id--) {
+            if (id % 10 != 0) {
+                expected.add(id);
+            }
+        }
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void lastPage() throws Exception {
+        JsonNode page = history("size=50&cursor=15");
+
+        assertEquals(List.of(14L, 13L, 12L, 11L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L), ids(page));
+        assertTrue(page.get("nextCursor").isNull());
+    }
+
+    @Test
+    void filterByTypeAndRange() throws Exception {
+        JsonNode page = history("size=500&type=CREDIT&from=" + START.plusSeconds(1000) + "&to=" + START.plusSeconds(1100));
+
+        List<Long> expected = new ArrayList<>();
+        for (long id = 1098; id >= 1000; id -= 2) {
+            if (id % 10 != 0) {
+                expected.add(id);
+            }
+        }
+        assertEquals(expected, ids(page));
+        page.get("transactions").forEach(transaction -> assertEquals("CREDIT", transaction.get("type").asText()));
+        assertTrue(page.get("nextCursor").isNull());
+    }
+
+    @Test
+    void invalidPageSize() throws Exception {
+        mockMvc.perform(get("/api/v1/transaction/history/" + USER_ID).param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // The database reads the same number of index entries for the newest, a middle and the oldest page
+    @Test
+    void constantCostAtAnyDepth() throws Exception {
+        history("size=50");
+        String historyQuery = HistoryStatementInspector.lastHistoryQuery;
+        assertNotNull(historyQuery);
+
+        for (long cursor : new long[]{Long.MAX_VALUE, TRANSACTIONS / 2, 200}) {
+            assertEquals(51, scanCount(historyQuery, cursor));
+        }
+    }
+
+    private JsonNode history(String query) throws Exception {
+        String response = mockMvc.perform(get("/api/v1/transaction/history/" + USER_ID + "?" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private List<Long> ids(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("transactions").forEach(transaction -> ids.add(transaction.get("id").asLong()));
+        return ids;
+    }
+
+    /**
+     * Runs the history query with the plan analysed, binding the filters and an open date range in the order of the query, then an offset of 0 if there is one and a page of 50 plus one.
+     */
+    private long scanCount(String historyQuery, long cursor) {
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN ANALYZE " + historyQuery)) {
+                Object[] parameters = {USER_ID, cursor, "CREDIT", "DEBIT"};
+                int parameterCount = statement.getParameterMetaData().getParameterCount();
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                // The open date range, each end is bound to its null check and to its comparison
+                int rangeParameters = 4;
+                for (int i = 1; i <= rangeParameters; i++) {
+                    statement.setNull(parameters.length + i, Types.TIMESTAMP);
+                }
+                if (parameterCount == parameters.length + rangeParameters + 2) {
+                    statement.setInt(parameters.length + rangeParameters + 1, 0);
+                }
+                statement.setInt(parameterCount, 51);
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    Matcher matcher = SCAN_COUNT.matcher(plan.getString(1));
+                    assertTrue(matcher.find(), plan.getString(1));
+                    return Long.parseLong(matcher.group(1));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package com.transaction.modules.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.modules.transaction.controller.request.AuthorizationRequest;
+import com.transaction.modules.transaction.controller.request.BatchItemRequest;
+import com.transaction.modules.transaction.controller.request.BatchRequest;
+import com.transaction.modules.transaction.controller.request.LoadRequest;
+import com.transaction.modules.transaction.controller.response.AuthorizationResponse;
+import com.transaction.modules.transaction.controller.response.BatchItemResponse;
+import com.transaction.modules.transaction.controller.response.BatchResponse;
+import com.transaction.modules.transaction.controller.response.LoadResponse;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionStreamServiceImplTest {
+
+    private static final String RECORD = "{\"messageId\": \"message%d\", \"userId\": \"user%d\", \"transactionAmount\": {\"amount\": \"1.00\", \"currency\": \"$\", \"debitOrCredit\": \"CREDIT\"}}\n";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RecordingTransactionEventService transactionEventService = new RecordingTransactionEventService();
+
+    private final TransactionStreamServiceImpl transactionStreamService = new TransactionStreamServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionStreamService, "transactionEventService", transactionEventService);
+        ReflectionTestUtils.setField(transactionStreamService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(transactionStreamService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(transactionStreamService, "chunkSize", 500);
+    }
+
+    // Results are written in record order, invalid records get their validation error
+    @Test
+    void ingest() throws Exception {
+        String records = String.format(RECORD, 1, 1)
+                + "{\"messageId\": \"message2\", \"transactionAmount\": {\"amount\": \"1.00\", \"currency\": \"$\", \"debitOrCredit\": \"CREDIT\"}}\n"
+                + String.format(RECORD, 3, 1);
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        transactionStreamService.ingest(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)), results);
+
+        String[] lines = results.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("message1", objectMapper.readTree(lines[0]).get("messageId").asText());
+        JsonNode invalid = objectMapper.readTree(lines[1]);
+        assertEquals(400, invalid.get("code").asInt());
+        assertEquals("User Id cannot be empty.", invalid.get("message").asText());
+        assertEquals("message3", objectMapper.readTree(lines[2]).get("messageId").asText());
+    }
+
+    // A malformed line ends the stream with an error after the results of the records before it
+    @Test
+    void ingestMalformedRecord() throws Exception {
+        String records = String.format(RECORD, 1, 1) + "{\"messageId\": \n" + String.format(RECORD, 3, 1);
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        transactionStreamService.ingest(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)), results);
+
+        String[] lines = results.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("message1", objectMapper.readTree(lines[0]).get("messageId").asText());
+        assertTrue(objectMapper.readTree(lines[1]).get("message").asText().startsWith("Malformed record"));
+    }
+
+    // 5M records are applied in bounded chunks and the heap does not grow with the input
+    @Test
+    @Tag("volume")
+    void ingestFiveMillionRecords() throws Exception {
+        int records = 5_000_000;
+        CountingOutputStream results = new CountingOutputStream();
+        transactionStreamService.ingest(generate(records), results);
+
+        assertEquals(records, results.lines);
+        assertEquals(records, transactionEventService.applied);
+        assertEquals(500, transactionEventService.largestBatch);
+        long heapGrowth = transactionEventService.lastHeapSample - transactionEventService.firstHeapSample;
+        assertTrue(heapGrowth < 64 * 1024 * 1024, "Heap grew by " + heapGrowth + " bytes");
+    }
+
+    private InputStream generate(int records) {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int record;
+
+            @Override
+            public boolean hasMoreElements() {
+                return record < records;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                record++;
+                return new ByteArrayInputStream(String.format(RECORD, record, record % 1000).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /*
+     * Service answering every item as applied, without keeping any of them
+     */
+    private static class RecordingTransactionEventService implements TransactionEventService {
+
+        private long applied;
+
+        private int largestBatch;
+
+        private long firstHeapSample;
+
+        private long lastHeapSample;
+
+        @Override
+        public LoadResponse load(LoadRequest loadRequest, String messageId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AuthorizationResponse authorize(AuthorizationRequest authorizationRequest, String messageId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BatchResponse batch(BatchRequest batchRequest) {
+            List<BatchItemResponse> results = new ArrayList<>(batchRequest.getItems().size());
+            for (BatchItemRequest item : batchRequest.getItems()) {
+                BatchItemResponse result = new BatchItemResponse(item, null);
+                result.setCode(200);
+                results.add(result);
+            }
+            largestBatch = Math.max(largestBatch, results.size());
+            applied += results.size();
+            if (applied == 500_000) {
+                firstHeapSample = usedHeapAfterGc();
+            } else if (applied % 1_000_000 == 0) {
+                lastHeapSample = usedHeapAfterGc();
+            }
+            return new BatchResponse(results);
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
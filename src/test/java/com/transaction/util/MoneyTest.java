@@ -0,0 +1,69 @@
+package com.transaction.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    // Parses whole and decimal amounts into minor units
+    @Test
+    void parse() {
+        assertEquals(10000, Money.parse("100"));
+        assertEquals(10050, Money.parse("100.5"));
+        assertEquals(10050, Money.parse("100.50"));
+        assertEquals(1, Money.parse("0.01"));
+        assertEquals(5, Money.parse(".05"));
+        assertEquals(0, Money.parse("0"));
+        assertEquals(Long.MAX_VALUE / 100 * 100, Money.parse(String.valueOf(Long.MAX_VALUE / 100)));
+    }
+
+    // Rejects anything that is not a positive amount with at most two decimal places
+    @Test
+    void parseInvalid() {
+        for (String amount : new String[]{"", ".", "100.", "-1", "+1", "1.001", "1.2.3", "abc", "1e5", " 1", "92233720368547758.08"}) {
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> Money.parse(amount));
+            assertEquals("Invalid amount " + amount, exception.getMessage());
+        }
+    }
+
+    // Formats minor units with two decimal places
+    @Test
+    void format() {
+        assertEquals("100.00", Money.format(10000));
+        assertEquals("100.50", Money.format(10050));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("0.00", Money.format(0));
+        assertEquals("-1.01", Money.format(-101));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+    }
+
+    // Round trips every amount between 0.00 and 1000.00
+    @Test
+    void roundTrip() {
+        for (long units = 0; units <= 100000; units++) {
+            assertEquals(units, Money.parse(Money.format(units)));
+        }
+    }
+
+    // Millions of repeated cent amounts stay exact, unlike the previous Double balances
+    @Test
+    void exactOverMillionsOfOperations() {
+        long cent = Money.parse("0.01");
+        long dime = Money.parse("0.10");
+        long balance = 0;
+        double doubleBalance = 0.0;
+        for (int i = 0; i < 10_000_000; i++) {
+            balance += cent;
+            doubleBalance += 0.01;
+            if (i % 2 == 0) {
+                balance += dime;
+                balance -= dime;
+            }
+        }
+        assertEquals("100000.00", Money.format(balance));
+        assertNotEquals(100000.0, doubleBalance);
+    }
+}